@@ -0,0 +1,97 @@
+package ir.mahdiparastesh.mcdtp.benchmarks;
+
+import com.ibm.icu.util.Calendar;
+import com.ibm.icu.util.ULocale;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+
+import ir.mahdiparastesh.mcdtp.engine.DayRules;
+
+/**
+ * The work of DefaultDateRangeLimiter: checking every day of a month while it's drawn, and finding
+ * the nearest selectable date when the selection moves.
+ */
+@State(Scope.Benchmark)
+public class DayRulesBenchmark {
+    /** Same as DefaultDateRangeLimiter */
+    private static final int YEAR_RANGE_RADIUS = 100;
+
+    @Param({"gregorian", "persian", "indian"})
+    public String calendar;
+
+    @Param({"0", "1000", "50000"})
+    public int disabledDays;
+
+    /** Disabled days spread over the range, or one run around today, which is the worst case. */
+    @Param({"scattered", "run"})
+    public String layout;
+
+    private Calendar mCalendar;
+    private DayRules mRules;
+    private int[] mDisabled;
+    private int mToday;
+    private int mYear;
+    private int mMonth;
+    private int mDaysInMonth;
+
+    @Setup
+    public void setUp() {
+        mCalendar = Calendar.getInstance(new ULocale("en@calendar=" + calendar));
+        mToday = mCalendar.get(Calendar.JULIAN_DAY);
+        mYear = mCalendar.get(Calendar.YEAR);
+        mMonth = mCalendar.get(Calendar.MONTH);
+        mDaysInMonth = mCalendar.getActualMaximum(Calendar.DAY_OF_MONTH);
+
+        mCalendar.set(Calendar.YEAR, mYear - YEAR_RANGE_RADIUS);
+        mCalendar.set(Calendar.DAY_OF_YEAR, 1);
+        int minDay = mCalendar.get(Calendar.JULIAN_DAY);
+        mCalendar.set(Calendar.YEAR, mYear + YEAR_RANGE_RADIUS + 1);
+        mCalendar.set(Calendar.DAY_OF_YEAR, 1);
+        int maxDay = mCalendar.get(Calendar.JULIAN_DAY) - 1;
+
+        mDisabled = new int[disabledDays];
+        if (layout.equals("run")) {
+            for (int i = 0; i < disabledDays; i++) mDisabled[i] = mToday - disabledDays / 2 + i;
+        } else {
+            Random random = new Random(42);
+            for (int i = 0; i < disabledDays; i++)
+                mDisabled[i] = minDay + random.nextInt(maxDay - minDay + 1);
+        }
+
+        mRules = new DayRules();
+        mRules.setRange(minDay, maxDay);
+        mRules.setDisabled(mDisabled);
+    }
+
+    /** What a MonthView asks for every day it draws, including the conversion of the date. */
+    @Benchmark
+    public void drawMonth(Blackhole bh) {
+        for (int day = 1; day <= mDaysInMonth; day++) {
+            mCalendar.set(Calendar.YEAR, mYear);
+            mCalendar.set(Calendar.MONTH, mMonth);
+            mCalendar.set(Calendar.DAY_OF_MONTH, day);
+            bh.consume(mRules.isOutOfRange(mCalendar.get(Calendar.JULIAN_DAY)));
+        }
+    }
+
+    @Benchmark
+    public int nearest() {
+        return mRules.nearest(mToday);
+    }
+
+    /** Rebuilt whenever the restrictions of the limiter change. */
+    @Benchmark
+    public DayRules build() {
+        DayRules rules = new DayRules();
+        rules.setRange(mRules.getMinDay(), mRules.getMaxDay());
+        rules.setDisabled(mDisabled);
+        return rules;
+    }
+}
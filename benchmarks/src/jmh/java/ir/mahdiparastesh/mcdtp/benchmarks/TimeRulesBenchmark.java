@@ -0,0 +1,92 @@
+package ir.mahdiparastesh.mcdtp.benchmarks;
+
+import static ir.mahdiparastesh.mcdtp.engine.TimeRules.ANY;
+import static ir.mahdiparastesh.mcdtp.engine.TimeRules.HOUR;
+import static ir.mahdiparastesh.mcdtp.engine.TimeRules.MINUTE;
+import static ir.mahdiparastesh.mcdtp.engine.TimeRules.SECOND;
+import static ir.mahdiparastesh.mcdtp.engine.TimeRules.SECONDS_IN_DAY;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+
+import ir.mahdiparastesh.mcdtp.engine.TimeRules;
+
+/**
+ * The work of DefaultTimepointLimiter: checking the labels of the dial, and rounding the touched
+ * time to a selectable one.
+ */
+@State(Scope.Benchmark)
+public class TimeRulesBenchmark {
+
+    /**
+     * none: no restrictions;
+     * interval: selectable times every 5 minutes between 08:00 and 20:00, as setTimeInterval()
+     * generates them;
+     * scattered: 5000 random disabled seconds;
+     * run: every second disabled except the last minute of the day, which is the worst case of
+     * searching for a valid time.
+     */
+    @Param({"none", "interval", "scattered", "run"})
+    public String scenario;
+
+    private TimeRules mRules;
+    /** In the middle of the restrictions */
+    private int mProbe;
+
+    @Setup
+    public void setUp() {
+        mRules = new TimeRules();
+        mProbe = 12 * 3600 + 7 * 60 + 30;
+        switch (scenario) {
+            case "interval" -> {
+                int[] times = new int[(20 - 8) * 12 + 1];
+                for (int i = 0; i < times.length; i++) times[i] = 8 * 3600 + i * 5 * 60;
+                mRules.addSelectable(times);
+            }
+            case "scattered" -> {
+                Random random = new Random(42);
+                int[] times = new int[5000];
+                for (int i = 0; i < times.length; i++) times[i] = random.nextInt(SECONDS_IN_DAY);
+                times[0] = mProbe;
+                mRules.addDisabled(times);
+            }
+            case "run" -> {
+                int[] times = new int[SECONDS_IN_DAY - 60];
+                for (int i = 0; i < times.length; i++) times[i] = i;
+                mRules.addDisabled(times);
+            }
+        }
+    }
+
+    /** What RadialTextsView asks for its 24 hours and 60 minutes. */
+    @Benchmark
+    public void dialLabels(Blackhole bh) {
+        for (int hour = 0; hour < 24; hour++)
+            bh.consume(mRules.isOutOfRange(hour * 3600, HOUR, SECOND));
+        int hour = mProbe / 3600 * 3600;
+        for (int minute = 0; minute < 60; minute++)
+            bh.consume(mRules.isOutOfRange(hour + minute * 60, MINUTE, SECOND));
+    }
+
+    @Benchmark
+    public int roundToNearest() {
+        return mRules.roundToNearest(mProbe, ANY, SECOND);
+    }
+
+    /** Dragging over the minutes, where the hour must not change. */
+    @Benchmark
+    public int roundWithinHour() {
+        return mRules.roundToNearest(mProbe, HOUR, MINUTE);
+    }
+
+    @Benchmark
+    public int roundAtMinuteResolution() {
+        return mRules.roundToNearest(mProbe, ANY, MINUTE);
+    }
+}
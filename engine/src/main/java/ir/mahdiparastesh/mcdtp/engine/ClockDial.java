@@ -0,0 +1,202 @@
+package ir.mahdiparastesh.mcdtp.engine;
+
+import static ir.mahdiparastesh.mcdtp.engine.TimeRules.HOUR;
+import static ir.mahdiparastesh.mcdtp.engine.TimeRules.MINUTE;
+
+/**
+ * The geometry of the radial time picker: which value lies at which degrees of the dial, and how
+ * touches are snapped to the values. Degrees are measured clockwise from 12 o'clock, from 0 to
+ * 360; the pickers are indexed by {@link TimeRules#HOUR}, {@link TimeRules#MINUTE} and
+ * {@link TimeRules#SECOND}.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class ClockDial {
+    public static final int VISIBLE_DEGREES_STEP_SIZE = 30;
+    public static final int HOUR_VALUE_TO_DEGREES_STEP_SIZE = VISIBLE_DEGREES_STEP_SIZE;
+    public static final int MINUTE_VALUE_TO_DEGREES_STEP_SIZE = 6;
+    public static final int SECOND_VALUE_TO_DEGREES_STEP_SIZE = 6;
+
+    /** Mapping of the touchable degrees to the selectable degrees, see prepareSnapPrefer30s() */
+    private static final int[] SNAP_PREFER_30S = prepareSnapPrefer30s();
+
+    private ClockDial() {
+    }
+
+    public static int stepSize(int index) {
+        return switch (index) {
+            case HOUR -> HOUR_VALUE_TO_DEGREES_STEP_SIZE;
+            case MINUTE -> MINUTE_VALUE_TO_DEGREES_STEP_SIZE;
+            default -> SECOND_VALUE_TO_DEGREES_STEP_SIZE;
+        };
+    }
+
+    /**
+     * Split up the input degrees between the output degrees, where a visible number (0, 30, 60...)
+     * has a higher range of input associated with it than a non-visible one.
+     * E.g. the output of 30 degrees should have a higher range of input associated with it than
+     * the output of 24 degrees, because 30 degrees corresponds to a visible number on the clock
+     * circle (5 on the minutes, 1 or 13 on the hours).
+     */
+    private static int[] prepareSnapPrefer30s() {
+        // We'll split up the visible output and the non-visible output such that each visible
+        // output will correspond to a range of 14 associated input degrees, and each non-visible
+        // output will correspond to a range of 4 associate input degrees, so visible numbers
+        // are more than 3 times easier to get than non-visible numbers:
+        // {354-359,0-7}:0, {8-11}:6, {12-15}:12, {16-19}:18, {20-23}:24, {24-37}:30, etc.
+        //
+        // If an output of 30 degrees should correspond to a range of 14 associated degrees, then
+        // we'll need any input between 24 - 37 to snap to 30. Working out from there, 20-23 should
+        // snap to 24, while 38-41 should snap to 36. This is somewhat counter-intuitive, that you
+        // can be touching 36 degrees but have the selection snapped to 30 degrees; however, this
+        // inconsistency isn't noticeable at such fine-grained degrees, and it affords us the
+        // ability to aggressively prefer the visible values by a factor of more than 3:1, which
+        // greatly contributes to the selectivity of these values.
+
+        // Our input will be 0 through 360.
+        int[] map = new int[361];
+
+        // The first output is 0, and each following output will increment by 6 {0, 6, 12, ...}.
+        int snappedOutputDegrees = 0;
+        // Count of how many inputs we've designated to the specified output.
+        int count = 1;
+        // How many input we expect for a specified output. This will be 14 for output divisible
+        // by 30, and 4 for the remaining output. We'll special case the outputs of 0 and 360, so
+        // the caller can decide which they need.
+        int expectedCount = 8;
+        // Iterate through the input.
+        for (int degrees = 0; degrees < 361; degrees++) {
+            // Save the input-output mapping.
+            map[degrees] = snappedOutputDegrees;
+            // If this is the last input for the specified output, calculate the next output and
+            // the next expected count.
+            if (count == expectedCount) {
+                snappedOutputDegrees += 6;
+                if (snappedOutputDegrees == 360) {
+                    expectedCount = 7;
+                } else if (snappedOutputDegrees % 30 == 0) {
+                    expectedCount = 14;
+                } else {
+                    expectedCount = 4;
+                }
+                count = 1;
+            } else {
+                count++;
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Returns mapping of any input degrees (0 to 360) to one of 60 selectable output degrees,
+     * where the degrees corresponding to visible numbers (i.e. those divisible by 30) will be
+     * weighted heavier than the degrees corresponding to non-visible numbers.
+     */
+    public static int snapPrefer30s(int degrees) {
+        return SNAP_PREFER_30S[degrees];
+    }
+
+    /**
+     * Returns mapping of any input degrees (0 to 360) to one of 12 visible output degrees (all
+     * multiples of 30), where the input will be "snapped" to the closest visible degrees.
+     *
+     * @param degrees            The input degrees
+     * @param forceHigherOrLower The output may be forced to either the higher or lower step, or may
+     *                           be allowed to snap to whichever is closer. Use 1 to force strictly
+     *                           higher, -1 to force strictly lower, and 0 to snap to the closer one.
+     * @return output degrees, will be a multiple of 30
+     */
+    public static int snapOnly30s(int degrees, int forceHigherOrLower) {
+        int stepSize = VISIBLE_DEGREES_STEP_SIZE;
+        int floor = (degrees / stepSize) * stepSize;
+        int ceiling = floor + stepSize;
+        if (forceHigherOrLower == 1) {
+            degrees = ceiling;
+        } else if (forceHigherOrLower == -1) {
+            if (degrees == floor) {
+                floor -= stepSize;
+            }
+            degrees = floor;
+        } else {
+            if ((degrees - floor) < (ceiling - degrees)) {
+                degrees = floor;
+            } else {
+                degrees = ceiling;
+            }
+        }
+        return degrees;
+    }
+
+    /**
+     * @param degrees        the touched degrees, from 0 to 360
+     * @param isInnerCircle  whether the inner circle of the 24-hour dial has been touched
+     * @param forceToVisible snap minutes and seconds to the visible numbers only
+     * @param rotated24Hours whether the 24-hour dial shows 0-11 on the inner circle (Version 2)
+     * @param pm             whether PM is selected, only used in the 12-hour mode
+     * @return the hour of the day, the minute or the second at the degrees
+     */
+    public static int valueAt(int index, int degrees, boolean isInnerCircle, boolean forceToVisible,
+                              boolean is24HourMode, boolean rotated24Hours, boolean pm) {
+        if (!forceToVisible && index != HOUR)
+            degrees = snapPrefer30s(degrees);
+        else
+            degrees = snapOnly30s(degrees, 0);
+
+        if (index == HOUR) {
+            if (is24HourMode) {
+                if (degrees == 0 && isInnerCircle)
+                    degrees = 360;
+                else if (degrees == 360 && !isInnerCircle)
+                    degrees = 0;
+            } else if (degrees == 0)
+                degrees = 360;
+        } else if (degrees == 360) {
+            degrees = 0;
+        }
+
+        int value = degrees / stepSize(index);
+        if (index != HOUR) return value;
+
+        if (is24HourMode) {
+            if (!isInnerCircle && degrees != 0) value += 12;
+            if (rotated24Hours) value = (value + 12) % 24;
+        } else if (pm && degrees != 360) {
+            value += 12;
+        } else if (!pm && degrees == 360) {
+            value = 0;
+        }
+        return value;
+    }
+
+    /**
+     * Moves the value to the next or the previous visible number, as accessibility scrolling does,
+     * wrapping around the dial.
+     *
+     * @param direction 1 for forward and -1 for backward
+     */
+    public static int scroll(int index, int value, int direction, boolean is24HourMode) {
+        int stepSize = stepSize(index);
+        if (index == HOUR) value %= 12;
+
+        value = snapOnly30s(value * stepSize, direction) / stepSize;
+        int maxValue;
+        int minValue = 0;
+        if (index == HOUR) {
+            if (is24HourMode) {
+                maxValue = 23;
+            } else {
+                maxValue = 12;
+                minValue = 1;
+            }
+        } else {
+            maxValue = 55;
+        }
+        if (value > maxValue) {
+            // If we scrolled forward past the highest number, wrap around to the lowest.
+            value = minValue;
+        } else if (value < minValue) {
+            // If we scrolled backward past the lowest number, wrap around to the highest.
+            value = maxValue;
+        }
+        return value;
+    }
+}
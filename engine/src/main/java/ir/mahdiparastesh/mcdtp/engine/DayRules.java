@@ -0,0 +1,90 @@
+package ir.mahdiparastesh.mcdtp.engine;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * The restrictions of a date picker on day numbers, e.g. the Julian days of ICU calendars, so that
+ * they don't depend on the calendar system: an optional first and last day, and sorted sets of
+ * selectable and disabled days. This is the logic of DefaultDateRangeLimiter without calendars.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class DayRules {
+    private int mMinDay = Integer.MIN_VALUE;
+    private int mMaxDay = Integer.MAX_VALUE;
+    // Sorted and distinct day numbers
+    private int[] mSelectable = new int[0];
+    private int[] mDisabled = new int[0];
+
+    /** Both ends are inclusive; no day is in range if the last day is before the first one. */
+    public void setRange(int minDay, int maxDay) {
+        mMinDay = minDay;
+        mMaxDay = maxDay;
+    }
+
+    /** Replaces the selectable days, which needn't be sorted nor distinct. */
+    public void setSelectable(@NonNull int[] days) {
+        mSelectable = distinct(days);
+    }
+
+    /** Replaces the disabled days, which needn't be sorted nor distinct. */
+    public void setDisabled(@NonNull int[] days) {
+        mDisabled = distinct(days);
+    }
+
+    public int getMinDay() {
+        return mMinDay;
+    }
+
+    public int getMaxDay() {
+        return mMaxDay;
+    }
+
+    public boolean isOutOfRange(int day) {
+        return day < mMinDay || day > mMaxDay || Arrays.binarySearch(mDisabled, day) >= 0
+                || (mSelectable.length > 0 && Arrays.binarySearch(mSelectable, day) < 0);
+    }
+
+    /**
+     * @return the nearest selectable day, preferring the later one among the selectable days and
+     * the earlier one among the days around the disabled ones; or the day clamped to the range if
+     * there's no such day.
+     */
+    public int nearest(int day) {
+        if (mSelectable.length > 0) {
+            int i = Arrays.binarySearch(mSelectable, day);
+            if (i >= 0) return day;
+            i = -i - 1;
+            if (i == mSelectable.length) return mSelectable[i - 1];
+            if (i == 0) return mSelectable[0];
+            int higher = mSelectable[i], lower = mSelectable[i - 1];
+            return (long) day - lower < (long) higher - day ? lower : higher;
+        }
+
+        int clamped = Math.max(mMinDay, Math.min(mMaxDay, day));
+        if (mDisabled.length > 0 && mMinDay <= mMaxDay) {
+            // Walk both ways from the day at once, since runs of disabled days are usually short.
+            for (long distance = 0; ; distance++) {
+                long backward = clamped - distance, forward = clamped + distance;
+                boolean hasBackward = backward >= mMinDay, hasForward = forward <= mMaxDay;
+                if (!hasBackward && !hasForward) break;
+                if (hasBackward && Arrays.binarySearch(mDisabled, (int) backward) < 0)
+                    return (int) backward;
+                if (hasForward && Arrays.binarySearch(mDisabled, (int) forward) < 0)
+                    return (int) forward;
+            }
+        }
+        return clamped;
+    }
+
+    @NonNull
+    private static int[] distinct(@NonNull int[] days) {
+        int[] output = days.clone();
+        Arrays.sort(output);
+        int size = 0;
+        for (int day : output)
+            if (size == 0 || output[size - 1] != day) output[size++] = day;
+        return size == output.length ? output : Arrays.copyOf(output, size);
+    }
+}
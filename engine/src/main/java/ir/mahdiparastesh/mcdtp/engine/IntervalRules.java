@@ -0,0 +1,163 @@
+package ir.mahdiparastesh.mcdtp.engine;
+
+import static ir.mahdiparastesh.mcdtp.engine.TimeRules.HOUR;
+import static ir.mahdiparastesh.mcdtp.engine.TimeRules.MINUTE;
+import static ir.mahdiparastesh.mcdtp.engine.TimeRules.SECOND;
+import static ir.mahdiparastesh.mcdtp.engine.TimeRules.SECONDS_IN_DAY;
+
+import androidx.annotation.NonNull;
+
+/**
+ * The selectable times of a time picker as sorted, non-overlapping [start, end) intervals of
+ * seconds of the day. This is the logic of IntervalTimepointLimiter without Timepoints, so that it
+ * can be run on the plain JVM; units and picker indices are those of {@link TimeRules}.
+ * <p>
+ * Membership is a binary search over the ends of the intervals and rounding snaps to the nearest
+ * edge of an interval which is a multiple of the resolution.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class IntervalRules {
+    private static final int MIDDAY = 12 * 3600;
+
+    private final int[] mStarts;
+    private final int[] mEnds;
+
+    /**
+     * @param starts the inclusive starts of the intervals in seconds of the day
+     * @param ends   the exclusive ends of the intervals in seconds of the day
+     */
+    public IntervalRules(@NonNull int[] starts, @NonNull int[] ends) {
+        if (starts.length != ends.length)
+            throw new IllegalArgumentException("Every interval must have both a start and an end");
+        for (int i = 0; i < starts.length; i++) {
+            if (starts[i] < 0 || ends[i] > SECONDS_IN_DAY || starts[i] >= ends[i])
+                throw new IllegalArgumentException(
+                        "Interval " + i + " is not a valid range of the day");
+            if (i > 0 && starts[i] < ends[i - 1])
+                throw new IllegalArgumentException("Intervals must be sorted and must not overlap");
+        }
+        mStarts = starts.clone();
+        mEnds = ends.clone();
+    }
+
+    @NonNull
+    public int[] getStarts() {
+        return mStarts.clone();
+    }
+
+    @NonNull
+    public int[] getEnds() {
+        return mEnds.clone();
+    }
+
+    /**
+     * @param index      the picker being shown; hours and minutes are out of range only if none
+     *                   of their times can be selected
+     * @param resolution the finest unit which can be picked
+     */
+    public boolean isOutOfRange(int seconds, int index, int resolution) {
+        int from, span;
+        if (index == HOUR) {
+            from = seconds / 3600 * 3600;
+            span = 3600;
+        } else if (index == MINUTE) {
+            from = seconds / 60 * 60;
+            span = 60;
+        } else {
+            from = seconds;
+            span = 1;
+        }
+        return !hasSelectable(from, from + span, Math.min(step(resolution), span));
+    }
+
+    public boolean isAmDisabled() {
+        return !hasSelectable(0, MIDDAY, 1);
+    }
+
+    public boolean isPmDisabled() {
+        return !hasSelectable(MIDDAY, SECONDS_IN_DAY, 1);
+    }
+
+    /**
+     * @param type       the unit which must not change, or {@link TimeRules#ANY}; e.g. MINUTE
+     *                   when the seconds are being picked, so the time may only move within its
+     *                   minute
+     * @param resolution the finest unit which can be picked
+     * @return the nearest selectable time, or the input if it cannot be rounded within its type;
+     * the later one on a tie
+     */
+    public int roundToNearest(int seconds, int type, int resolution) {
+        // type == SECOND: cannot change anything, return input
+        if (type == SECOND) return seconds;
+
+        int i = firstEndingAfter(seconds);
+        if (i < mStarts.length && mStarts[i] <= seconds) return seconds;
+
+        // The rounded value must keep the components which are not being picked.
+        int from = 0, to = SECONDS_IN_DAY;
+        if (type == HOUR) {
+            from = seconds / 3600 * 3600;
+            to = from + 3600;
+        } else if (type == MINUTE) {
+            from = seconds / 60 * 60;
+            to = from + 60;
+        }
+        int step = step(resolution);
+
+        int ceil = -1;
+        for (int j = i; j < mStarts.length && mStarts[j] < to; j++) {
+            int candidate = ceilTo(Math.max(mStarts[j], from), step);
+            if (candidate < mEnds[j] && candidate < to) {
+                ceil = candidate;
+                break;
+            }
+        }
+        int floor = -1;
+        for (int j = i - 1; j >= 0 && mEnds[j] > from; j--) {
+            int candidate = (Math.min(mEnds[j], to) - 1) / step * step;
+            if (candidate >= mStarts[j] && candidate >= from) {
+                floor = candidate;
+                break;
+            }
+        }
+
+        if (floor < 0 && ceil < 0) return seconds;
+        return floor < 0 || (ceil >= 0 && ceil - seconds <= seconds - floor) ? ceil : floor;
+    }
+
+    /**
+     * Whether any value in [from, to) which is a multiple of step lies within an interval.
+     */
+    private boolean hasSelectable(int from, int to, int step) {
+        for (int i = firstEndingAfter(from); i < mStarts.length && mStarts[i] < to; i++) {
+            int candidate = ceilTo(Math.max(mStarts[i], from), step);
+            if (candidate < mEnds[i] && candidate < to) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Binary search for the first interval whose end lies after the given second.
+     */
+    private int firstEndingAfter(int seconds) {
+        int low = 0, high = mEnds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mEnds[mid] > seconds) high = mid;
+            else low = mid + 1;
+        }
+        return low;
+    }
+
+    private static int ceilTo(int value, int step) {
+        return (value + step - 1) / step * step;
+    }
+
+    private static int step(int resolution) {
+        return switch (resolution) {
+            case HOUR -> 3600;
+            case MINUTE -> 60;
+            default -> 1;
+        };
+    }
+}
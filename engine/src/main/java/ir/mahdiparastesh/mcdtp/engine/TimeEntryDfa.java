@@ -0,0 +1,244 @@
+package ir.mahdiparastesh.mcdtp.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Precomputed automata deciding which keys can legally be typed in the keyboard mode of
+ * TimePickerDialog. There is one transition table for every combination of 12/24-hour mode and
+ * hours/minutes/seconds resolution; they are built once and shared by all dialogs, so checking a
+ * key is a single array lookup from the state of the previously typed keys.
+ * <p>
+ * Symbols 0-9 are the digits, {@link #SYMBOL_AM} and {@link #SYMBOL_PM} are the AM/PM keys.
+ */
+public final class TimeEntryDfa {
+    public static final int START = 0;
+    public static final int REJECT = -1;
+    public static final int SYMBOL_AM = 10;
+    public static final int SYMBOL_PM = 11;
+    private static final int SYMBOLS = 12;
+
+    /** The longest legal input, e.g. "12:59:59pm" */
+    public static final int MAX_LENGTH = 7;
+
+    private static final int MODE_HOURS_24 = 0;
+    private static final int MODE_HOURS_12 = 1;
+    private static final int MODE_MINUTES_24 = 2;
+    private static final int MODE_MINUTES_12 = 3;
+    private static final int MODE_SECONDS_24 = 4;
+    private static final int MODE_SECONDS_12 = 5;
+
+    private static final int[][][] TRANSITIONS = new int[6][][];
+    /** The state reached after typing AM or PM, or -1 in 24-hour modes. */
+    private static final int[] MERIDIEM_STATES = new int[6];
+
+    static {
+        for (int mode = 0; mode < TRANSITIONS.length; mode++) {
+            Builder b = new Builder();
+            switch (mode) {
+                case MODE_HOURS_24 -> buildHours24(b);
+                case MODE_HOURS_12 -> buildHours12(b);
+                case MODE_MINUTES_24 -> build24(b, false);
+                case MODE_MINUTES_12 -> build12(b, false);
+                case MODE_SECONDS_24 -> build24(b, true);
+                default -> build12(b, true);
+            }
+            TRANSITIONS[mode] = b.build();
+            MERIDIEM_STATES[mode] = b.meridiem;
+        }
+    }
+
+    private TimeEntryDfa() {
+    }
+
+    public static int mode(boolean is24HourMode, boolean enableMinutes, boolean enableSeconds) {
+        if (!enableMinutes) return is24HourMode ? MODE_HOURS_24 : MODE_HOURS_12;
+        if (!enableSeconds) return is24HourMode ? MODE_MINUTES_24 : MODE_MINUTES_12;
+        return is24HourMode ? MODE_SECONDS_24 : MODE_SECONDS_12;
+    }
+
+    /**
+     * @return the state after typing the symbol, or {@link #REJECT} if it cannot legally be typed
+     */
+    public static int next(int mode, int state, int symbol) {
+        if (state < 0 || symbol < 0 || symbol >= SYMBOLS) return REJECT;
+        return TRANSITIONS[mode][state][symbol];
+    }
+
+    /**
+     * Whether AM or PM has been typed, which in 12-hour modes completes a legal time.
+     */
+    public static boolean isMeridiemEntered(int mode, int state) {
+        return state >= 0 && state == MERIDIEM_STATES[mode];
+    }
+
+    private static void buildHours24(Builder b) {
+        // The first digit may be 0-1, followed by 0-9.
+        int firstDigit = b.node(0, 1);
+        b.addChild(START, firstDigit);
+        b.addChild(firstDigit, b.node(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+
+        // The first digit may be 2, followed by 0-3.
+        firstDigit = b.node(2);
+        b.addChild(START, firstDigit);
+        b.addChild(firstDigit, b.node(0, 1, 2, 3));
+    }
+
+    private static void buildHours12(Builder b) {
+        int ampm = b.meridiemNode();
+
+        // The first digit may be 1, followed by am/pm (1pm) or 0-2 and then am/pm.
+        int firstDigit = b.node(1);
+        b.addChild(START, firstDigit);
+        b.addChild(firstDigit, ampm);
+        int secondDigit = b.node(0, 1, 2);
+        b.addChild(firstDigit, secondDigit);
+        b.addChild(secondDigit, ampm);
+
+        // The first digit may be 2-9, followed by am/pm.
+        firstDigit = b.node(2, 3, 4, 5, 6, 7, 8, 9);
+        b.addChild(START, firstDigit);
+        b.addChild(firstDigit, ampm);
+    }
+
+    private static void build24(Builder b, boolean enableSeconds) {
+        int minuteFirstDigit = b.node(0, 1, 2, 3, 4, 5);
+        int minuteSecondDigit = b.node(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        b.addChild(minuteFirstDigit, minuteSecondDigit);
+
+        if (enableSeconds) {
+            // Minutes can be followed by seconds.
+            int secondsFirstDigit = b.node(0, 1, 2, 3, 4, 5);
+            b.addChild(secondsFirstDigit, b.node(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+            b.addChild(minuteSecondDigit, secondsFirstDigit);
+        }
+
+        // The first digit may be 0-1.
+        int firstDigit = b.node(0, 1);
+        b.addChild(START, firstDigit);
+
+        // Followed by 0-5 and then the first minute digit (00:09, 15:58),
+        // or by 6-9 which finishes the time (0:55, 1:08).
+        int secondDigit = b.node(0, 1, 2, 3, 4, 5);
+        b.addChild(firstDigit, secondDigit);
+        b.addChild(secondDigit, minuteFirstDigit);
+        b.addChild(secondDigit, b.node(6, 7, 8, 9));
+
+        // Or by 6-9 and then the first minute digit. E.g. 06:50, 18:20.
+        secondDigit = b.node(6, 7, 8, 9);
+        b.addChild(firstDigit, secondDigit);
+        b.addChild(secondDigit, minuteFirstDigit);
+
+        // The first digit may be 2.
+        firstDigit = b.node(2);
+        b.addChild(START, firstDigit);
+
+        // Followed by 0-3 and then the first minute digit. E.g. 20:50, 23:09.
+        secondDigit = b.node(0, 1, 2, 3);
+        b.addChild(firstDigit, secondDigit);
+        b.addChild(secondDigit, minuteFirstDigit);
+
+        // Or by 4-5 and then the last minute digit. E.g. 2:40, 2:53.
+        secondDigit = b.node(4, 5);
+        b.addChild(firstDigit, secondDigit);
+        b.addChild(secondDigit, minuteSecondDigit);
+
+        // The first digit may be 3-9, followed by the first minute digit. E.g. 3:57, 8:12.
+        firstDigit = b.node(3, 4, 5, 6, 7, 8, 9);
+        b.addChild(START, firstDigit);
+        b.addChild(firstDigit, minuteFirstDigit);
+    }
+
+    private static void build12(Builder b, boolean enableSeconds) {
+        int ampm = b.meridiemNode();
+        int secondsFirstDigit = b.node(0, 1, 2, 3, 4, 5);
+        int secondsSecondDigit = b.node(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        b.addChild(secondsSecondDigit, ampm);
+        b.addChild(secondsFirstDigit, secondsSecondDigit);
+
+        // The first hour digit may be 1, allowing quick input of on-the-hour times. E.g. 1pm.
+        int firstDigit = b.node(1);
+        b.addChild(START, firstDigit);
+        b.addChild(firstDigit, ampm);
+
+        // When the first digit is 1, the second digit may be 0-2. E.g. 10pm, 12am.
+        int secondDigit = b.node(0, 1, 2);
+        b.addChild(firstDigit, secondDigit);
+        b.addChild(secondDigit, ampm);
+
+        // Then the third digit may be 0-5 (1:02pm, 1:25am) followed by 0-9 (10:49am, 12:40pm).
+        int thirdDigit = b.node(0, 1, 2, 3, 4, 5);
+        b.addChild(secondDigit, thirdDigit);
+        b.addChild(thirdDigit, ampm);
+        int fourthDigit = b.node(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        b.addChild(thirdDigit, fourthDigit);
+        b.addChild(fourthDigit, ampm);
+        if (enableSeconds) b.addChild(fourthDigit, secondsFirstDigit);
+
+        // Or the third digit may be 6-9, which finishes the minutes. E.g. 1:08am, 1:26pm.
+        thirdDigit = b.node(6, 7, 8, 9);
+        b.addChild(secondDigit, thirdDigit);
+        b.addChild(thirdDigit, ampm);
+        if (enableSeconds) b.addChild(thirdDigit, secondsFirstDigit);
+
+        // When the first digit is 1, the second digit may be 3-5 followed by 0-9. E.g. 1:39am.
+        secondDigit = b.node(3, 4, 5);
+        b.addChild(firstDigit, secondDigit);
+        thirdDigit = b.node(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        b.addChild(secondDigit, thirdDigit);
+        b.addChild(thirdDigit, ampm);
+        if (enableSeconds) b.addChild(thirdDigit, secondsFirstDigit);
+
+        // The hour digit may be 2-9, allowing quick input of on-the-hour times. E.g. 2am, 5pm.
+        firstDigit = b.node(2, 3, 4, 5, 6, 7, 8, 9);
+        b.addChild(START, firstDigit);
+        b.addChild(firstDigit, ampm);
+
+        // Then the minutes may follow. E.g. 2:57am, 9:30pm.
+        secondDigit = b.node(0, 1, 2, 3, 4, 5);
+        b.addChild(firstDigit, secondDigit);
+        thirdDigit = b.node(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        b.addChild(secondDigit, thirdDigit);
+        b.addChild(thirdDigit, ampm);
+        if (enableSeconds) b.addChild(thirdDigit, secondsFirstDigit);
+    }
+
+    /**
+     * Collects the nodes of the grammar; every node is a state which is entered by typing one of
+     * its symbols from any of its parents.
+     */
+    private static class Builder {
+        private final ArrayList<int[]> mSymbols = new ArrayList<>();
+        private final ArrayList<int[]> mRows = new ArrayList<>();
+        int meridiem = -1;
+
+        Builder() {
+            node(); // START
+        }
+
+        int node(int... symbols) {
+            int[] row = new int[SYMBOLS];
+            Arrays.fill(row, REJECT);
+            mSymbols.add(symbols);
+            mRows.add(row);
+            return mRows.size() - 1;
+        }
+
+        int meridiemNode() {
+            return meridiem = node(SYMBOL_AM, SYMBOL_PM);
+        }
+
+        void addChild(int parent, int child) {
+            int[] row = mRows.get(parent);
+            for (int symbol : mSymbols.get(child)) {
+                if (row[symbol] != REJECT)
+                    throw new IllegalStateException("Ambiguous transition on " + symbol);
+                row[symbol] = child;
+            }
+        }
+
+        int[][] build() {
+            return mRows.toArray(new int[0][]);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package ir.mahdiparastesh.mcdtp.engine;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * The restrictions of a time picker on seconds of the day: an optional minimum and maximum, and
+ * sorted sets of selectable and disabled times. This is the logic of DefaultTimepointLimiter
+ * without Timepoints, so that it can be run on the plain JVM.
+ * <p>
+ * Units and picker indices are {@link #HOUR}, {@link #MINUTE} and {@link #SECOND}; {@link #ANY}
+ * stands for no unit. A missing time is represented by -1.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class TimeRules {
+    public static final int ANY = -1;
+    public static final int HOUR = 0;
+    public static final int MINUTE = 1;
+    public static final int SECOND = 2;
+
+    public static final int SECONDS_IN_DAY = 24 * 3600;
+    private static final int MIDDAY = 12 * 3600;
+
+    private int mMin = -1;
+    private int mMax = -1;
+    // Sorted and distinct seconds of the day
+    private int[] mSelectable = new int[0];
+    private int[] mDisabled = new int[0];
+    private int[] mExclusiveSelectable = new int[0];
+
+    public void setMin(int seconds) {
+        if (mMax >= 0 && seconds > mMax)
+            throw new IllegalArgumentException("Minimum time must be smaller than the maximum time");
+        mMin = seconds;
+    }
+
+    public void setMax(int seconds) {
+        if (mMin >= 0 && seconds < mMin)
+            throw new IllegalArgumentException("Maximum time must be greater than the minimum time");
+        mMax = seconds;
+    }
+
+    /** Adds to the selectable times, which needn't be sorted. */
+    public void addSelectable(@NonNull int[] seconds) {
+        mSelectable = union(mSelectable, sorted(seconds));
+        mExclusiveSelectable = difference(mSelectable, mDisabled);
+    }
+
+    /** Adds to the disabled times, which needn't be sorted. */
+    public void addDisabled(@NonNull int[] seconds) {
+        mDisabled = union(mDisabled, sorted(seconds));
+        mExclusiveSelectable = difference(mSelectable, mDisabled);
+    }
+
+    public int getMin() {
+        return mMin;
+    }
+
+    public int getMax() {
+        return mMax;
+    }
+
+    @NonNull
+    public int[] getSelectable() {
+        return mSelectable.clone();
+    }
+
+    @NonNull
+    public int[] getDisabled() {
+        return mDisabled.clone();
+    }
+
+    /**
+     * @param index      the picker being shown; hours and minutes are out of range only if none
+     *                   of their times can be selected
+     * @param resolution the finest unit which can be picked
+     */
+    public boolean isOutOfRange(int seconds, int index, int resolution) {
+        if (index == HOUR) {
+            if (mMin >= 0 && mMin / 3600 > seconds / 3600) return true;
+
+            if (mMax >= 0 && mMax / 3600 + 1 <= seconds / 3600) return true;
+
+            if (mExclusiveSelectable.length > 0) {
+                int ceil = ceiling(mExclusiveSelectable, seconds);
+                int floor = floor(mExclusiveSelectable, seconds);
+                return !(equals(seconds, ceil, HOUR) || equals(seconds, floor, HOUR));
+            }
+
+            if (mDisabled.length > 0 && resolution == HOUR) {
+                int ceil = ceiling(mDisabled, seconds);
+                int floor = floor(mDisabled, seconds);
+                return equals(seconds, ceil, HOUR) || equals(seconds, floor, HOUR);
+            }
+
+            return false;
+        } else if (index == MINUTE) {
+            if (mMin >= 0 && mMin / 60 * 60 > seconds) return true;
+
+            if (mMax >= 0 && mMax / 60 * 60 + 59 < seconds) return true;
+
+            if (mExclusiveSelectable.length > 0) {
+                int ceil = ceiling(mExclusiveSelectable, seconds);
+                int floor = floor(mExclusiveSelectable, seconds);
+                return !(equals(seconds, ceil, MINUTE) || equals(seconds, floor, MINUTE));
+            }
+
+            if (mDisabled.length > 0 && resolution == MINUTE) {
+                int ceil = ceiling(mDisabled, seconds);
+                int floor = floor(mDisabled, seconds);
+                return equals(seconds, ceil, MINUTE) || equals(seconds, floor, MINUTE);
+            }
+
+            return false;
+        } else return isOutOfRange(seconds);
+    }
+
+    /** Whether this exact time cannot be selected. */
+    public boolean isOutOfRange(int seconds) {
+        if (mMin >= 0 && mMin > seconds) return true;
+
+        if (mMax >= 0 && mMax < seconds) return true;
+
+        if (mExclusiveSelectable.length > 0)
+            return Arrays.binarySearch(mExclusiveSelectable, seconds) < 0;
+
+        return Arrays.binarySearch(mDisabled, seconds) >= 0;
+    }
+
+    @SuppressWarnings("SimplifiableIfStatement")
+    public boolean isAmDisabled() {
+        if (mMin >= MIDDAY) return true;
+
+        if (mExclusiveSelectable.length > 0)
+            return mExclusiveSelectable[0] >= MIDDAY;
+
+        return false;
+    }
+
+    @SuppressWarnings("SimplifiableIfStatement")
+    public boolean isPmDisabled() {
+        if (mMax >= 0 && mMax < MIDDAY) return true;
+
+        if (mExclusiveSelectable.length > 0)
+            return mExclusiveSelectable[mExclusiveSelectable.length - 1] < MIDDAY;
+
+        return false;
+    }
+
+    /**
+     * @param type       the unit which must not change, or {@link #ANY}; e.g. MINUTE when the
+     *                   seconds are being picked, so the time may only move within its minute
+     * @param resolution the finest unit which can be picked
+     * @return the nearest selectable time, or the input if it cannot be rounded within its type
+     */
+    public int roundToNearest(int seconds, int type, int resolution) {
+        if (mMin >= 0 && mMin > seconds) return mMin;
+
+        if (mMax >= 0 && mMax < seconds) return mMax;
+
+        // type == SECOND: cannot change anything, return input
+        if (type == SECOND) return seconds;
+
+        int hour = seconds / 3600, minute = (seconds / 60) % 60;
+        if (mExclusiveSelectable.length > 0) {
+            int floor = floor(mExclusiveSelectable, seconds);
+            int ceil = ceiling(mExclusiveSelectable, seconds);
+
+            if (floor < 0 || ceil < 0) {
+                int t = floor < 0 ? ceil : floor;
+                if (type == ANY) return t;
+                if (t / 3600 != hour) return seconds;
+                if (type == MINUTE && (t / 60) % 60 != minute) return seconds;
+                return t;
+            }
+
+            if (type == HOUR) {
+                if (floor / 3600 != hour && ceil / 3600 == hour) return ceil;
+                if (floor / 3600 == hour && ceil / 3600 != hour) return floor;
+                if (floor / 3600 != hour && ceil / 3600 != hour) return seconds;
+            }
+
+            if (type == MINUTE) {
+                int floorMinute = (floor / 60) % 60, ceilMinute = (ceil / 60) % 60;
+                if (floor / 3600 != hour && ceil / 3600 != hour) return seconds;
+                if (floor / 3600 != hour && ceil / 3600 == hour)
+                    return ceilMinute == minute ? ceil : seconds;
+                if (floor / 3600 == hour && ceil / 3600 != hour)
+                    return floorMinute == minute ? floor : seconds;
+                if (floorMinute != minute && ceilMinute == minute) return ceil;
+                if (floorMinute == minute && ceilMinute != minute) return floor;
+                if (floorMinute != minute && ceilMinute != minute) return seconds;
+            }
+
+            return seconds - floor < ceil - seconds ? floor : ceil;
+        }
+
+        if (mDisabled.length > 0) {
+            // if type matches resolution: cannot change anything, return input
+            if (type == resolution) return seconds;
+
+            if (resolution == SECOND) {
+                if (Arrays.binarySearch(mDisabled, seconds) < 0) return seconds;
+                return searchValidTime(seconds, type, resolution);
+            }
+
+            int ceil = ceiling(mDisabled, seconds);
+            int floor = floor(mDisabled, seconds);
+            if (equals(seconds, ceil, resolution) || equals(seconds, floor, resolution))
+                return searchValidTime(seconds, type, resolution);
+            return seconds;
+        }
+
+        return seconds;
+    }
+
+    private int searchValidTime(int seconds, int type, int resolution) {
+        int step = step(resolution);
+        int forward = seconds;
+        int backward = seconds;
+
+        for (int iteration = 0; iteration < SECONDS_IN_DAY / step; iteration++) {
+            forward = Math.floorMod(forward + step, SECONDS_IN_DAY);
+            backward = Math.floorMod(backward - step, SECONDS_IN_DAY);
+
+            if (type == ANY || get(forward, type) == get(seconds, type)) {
+                if (!equals(forward, ceiling(mDisabled, forward), resolution)
+                        && !equals(forward, floor(mDisabled, forward), resolution))
+                    return forward;
+            }
+
+            if (type == ANY || get(backward, type) == get(seconds, type)) {
+                if (!equals(backward, ceiling(mDisabled, backward), resolution)
+                        && !equals(backward, floor(mDisabled, backward), resolution))
+                    return backward;
+            }
+
+            if (type != ANY && get(backward, type) != get(seconds, type)
+                    && get(forward, type) != get(seconds, type))
+                break;
+        }
+        // If this step is reached, the user has disabled all times
+        return seconds;
+    }
+
+    /**
+     * @return the smallest value which is greater than or equal to the given seconds, or -1
+     */
+    private static int ceiling(@NonNull int[] times, int seconds) {
+        int i = Arrays.binarySearch(times, seconds);
+        if (i < 0) i = -i - 1;
+        return i < times.length ? times[i] : -1;
+    }
+
+    /**
+     * @return the greatest value which is smaller than or equal to the given seconds, or -1
+     */
+    private static int floor(@NonNull int[] times, int seconds) {
+        int i = Arrays.binarySearch(times, seconds);
+        if (i < 0) i = -i - 2;
+        return i >= 0 ? times[i] : -1;
+    }
+
+    /**
+     * Whether both times are in the same hour, minute or second; a negative value stands for a
+     * missing time.
+     */
+    private static boolean equals(int seconds, int other, int resolution) {
+        if (other < 0) return false;
+        return switch (resolution) {
+            case HOUR -> seconds / 3600 == other / 3600;
+            case MINUTE -> seconds / 60 == other / 60;
+            default -> seconds == other;
+        };
+    }
+
+    private static int get(int seconds, int type) {
+        return switch (type) {
+            case HOUR -> seconds / 3600;
+            case MINUTE -> (seconds / 60) % 60;
+            default -> seconds % 60;
+        };
+    }
+
+    private static int step(int resolution) {
+        return switch (resolution) {
+            case HOUR -> 3600;
+            case MINUTE -> 60;
+            default -> 1;
+        };
+    }
+
+    @NonNull
+    private static int[] sorted(@NonNull int[] seconds) {
+        int[] output = seconds.clone();
+        Arrays.sort(output);
+        return output;
+    }
+
+    /**
+     * Merges two sorted arrays into a sorted array of distinct values.
+     */
+    @NonNull
+    private static int[] union(@NonNull int[] a, @NonNull int[] b) {
+        int[] output = new int[a.length + b.length];
+        int size = 0, i = 0, j = 0;
+        while (i < a.length || j < b.length) {
+            int value;
+            if (j >= b.length || (i < a.length && a[i] <= b[j])) value = a[i++];
+            else value = b[j++];
+            if (size == 0 || output[size - 1] != value) output[size++] = value;
+        }
+        return size == output.length ? output : Arrays.copyOf(output, size);
+    }
+
+    /**
+     * Linear merge of two sorted arrays, returning the values of the first which aren't in the second.
+     */
+    @NonNull
+    private static int[] difference(@NonNull int[] selectable, @NonNull int[] disabled) {
+        int[] output = new int[selectable.length];
+        int size = 0, j = 0;
+        for (int value : selectable) {
+            while (j < disabled.length && disabled[j] < value) j++;
+            if (j >= disabled.length || disabled[j] != value) output[size++] = value;
+        }
+        return size == output.length ? output : Arrays.copyOf(output, size);
+    }
+}
@@ -0,0 +1,89 @@
+package ir.mahdiparastesh.mcdtp.engine;
+
+import static ir.mahdiparastesh.mcdtp.engine.TimeRules.HOUR;
+import static ir.mahdiparastesh.mcdtp.engine.TimeRules.MINUTE;
+import static ir.mahdiparastesh.mcdtp.engine.TimeRules.SECOND;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ClockDialTest {
+
+    @Test
+    public void snapPrefersVisibleNumbers() {
+        assertEquals(0, ClockDial.snapPrefer30s(0));
+        assertEquals(0, ClockDial.snapPrefer30s(7));
+        assertEquals(6, ClockDial.snapPrefer30s(8));
+        assertEquals(24, ClockDial.snapPrefer30s(23));
+        assertEquals(30, ClockDial.snapPrefer30s(24));
+        assertEquals(30, ClockDial.snapPrefer30s(37));
+        assertEquals(36, ClockDial.snapPrefer30s(38));
+        assertEquals(348, ClockDial.snapPrefer30s(349));
+        assertEquals(354, ClockDial.snapPrefer30s(353));
+        assertEquals(360, ClockDial.snapPrefer30s(354));
+        assertEquals(360, ClockDial.snapPrefer30s(360));
+    }
+
+    @Test
+    public void minutesAndSecondsWrapAt360() {
+        assertEquals(0, valueAt(MINUTE, 0, false));
+        assertEquals(0, valueAt(MINUTE, 360, false));
+        assertEquals(0, valueAt(SECOND, 356, false));
+        assertEquals(59, valueAt(MINUTE, 353, false));
+        assertEquals(58, valueAt(MINUTE, 349, false));
+        assertEquals(1, valueAt(SECOND, 8, false));
+        // Only the visible numbers
+        assertEquals(0, valueAt(MINUTE, 14, true));
+        assertEquals(5, valueAt(MINUTE, 15, true));
+        assertEquals(0, valueAt(MINUTE, 355, true));
+    }
+
+    @Test
+    public void hoursIn12HourMode() {
+        assertEquals(0, ClockDial.valueAt(HOUR, 0, false, false, false, false, false));
+        assertEquals(0, ClockDial.valueAt(HOUR, 360, false, false, false, false, false));
+        assertEquals(12, ClockDial.valueAt(HOUR, 0, false, false, false, false, true));
+        assertEquals(12, ClockDial.valueAt(HOUR, 350, false, false, false, false, true));
+        assertEquals(1, ClockDial.valueAt(HOUR, 30, false, false, false, false, false));
+        assertEquals(13, ClockDial.valueAt(HOUR, 30, false, false, false, false, true));
+        assertEquals(11, ClockDial.valueAt(HOUR, 330, false, false, false, false, false));
+    }
+
+    @Test
+    public void hoursIn24HourMode() {
+        // Version 1: 1-12 on the inner circle, 13-23 and 0 on the outer one.
+        assertEquals(12, ClockDial.valueAt(HOUR, 0, true, false, true, false, false));
+        assertEquals(12, ClockDial.valueAt(HOUR, 360, true, false, true, false, false));
+        assertEquals(0, ClockDial.valueAt(HOUR, 0, false, false, true, false, false));
+        assertEquals(0, ClockDial.valueAt(HOUR, 360, false, false, true, false, false));
+        assertEquals(1, ClockDial.valueAt(HOUR, 30, true, false, true, false, false));
+        assertEquals(13, ClockDial.valueAt(HOUR, 30, false, false, true, false, false));
+        assertEquals(23, ClockDial.valueAt(HOUR, 330, false, false, true, false, false));
+
+        // Version 2: 13-23 and 0 on the inner circle, 1-12 on the outer one.
+        assertEquals(0, ClockDial.valueAt(HOUR, 0, true, false, true, true, false));
+        assertEquals(12, ClockDial.valueAt(HOUR, 360, false, false, true, true, false));
+        assertEquals(13, ClockDial.valueAt(HOUR, 30, true, false, true, true, false));
+        assertEquals(1, ClockDial.valueAt(HOUR, 30, false, false, true, true, false));
+        assertEquals(11, ClockDial.valueAt(HOUR, 330, false, false, true, true, false));
+    }
+
+    @Test
+    public void scrollWrapsAround() {
+        assertEquals(1, ClockDial.scroll(HOUR, 12, 1, false));
+        assertEquals(12, ClockDial.scroll(HOUR, 1, -1, false));
+        assertEquals(12, ClockDial.scroll(HOUR, 11, 1, false));
+        assertEquals(23, ClockDial.scroll(HOUR, 0, -1, true));
+        assertEquals(12, ClockDial.scroll(HOUR, 23, 1, true));
+
+        assertEquals(0, ClockDial.scroll(MINUTE, 55, 1, false));
+        assertEquals(55, ClockDial.scroll(MINUTE, 0, -1, false));
+        assertEquals(10, ClockDial.scroll(MINUTE, 7, 1, false));
+        assertEquals(5, ClockDial.scroll(MINUTE, 7, -1, false));
+        assertEquals(5, ClockDial.scroll(SECOND, 10, -1, false));
+    }
+
+    private static int valueAt(int index, int degrees, boolean forceToVisible) {
+        return ClockDial.valueAt(index, degrees, false, forceToVisible, false, false, false);
+    }
+}
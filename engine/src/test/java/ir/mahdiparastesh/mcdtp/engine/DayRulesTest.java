@@ -0,0 +1,159 @@
+package ir.mahdiparastesh.mcdtp.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class DayRulesTest {
+
+    @Test
+    public void rangeIsInclusive() {
+        DayRules rules = new DayRules();
+        rules.setRange(10, 20);
+        assertTrue(rules.isOutOfRange(9));
+        assertFalse(rules.isOutOfRange(10));
+        assertFalse(rules.isOutOfRange(20));
+        assertTrue(rules.isOutOfRange(21));
+    }
+
+    @Test
+    public void selectableAndDisabledDays() {
+        DayRules rules = new DayRules();
+        rules.setRange(0, 100);
+        rules.setSelectable(new int[]{30, 10, 20, 10});
+        rules.setDisabled(new int[]{20});
+        assertFalse(rules.isOutOfRange(10));
+        assertTrue(rules.isOutOfRange(15));
+        assertTrue(rules.isOutOfRange(20));
+        assertFalse(rules.isOutOfRange(30));
+    }
+
+    @Test
+    public void nearestSelectablePrefersLaterDayOnTie() {
+        DayRules rules = new DayRules();
+        rules.setSelectable(new int[]{10, 20});
+        assertEquals(10, rules.nearest(10));
+        assertEquals(10, rules.nearest(14));
+        assertEquals(20, rules.nearest(15));
+        assertEquals(20, rules.nearest(16));
+        assertEquals(10, rules.nearest(-5));
+        assertEquals(20, rules.nearest(25));
+    }
+
+    @Test
+    public void nearestAroundDisabledPrefersEarlierDayOnTie() {
+        DayRules rules = new DayRules();
+        rules.setRange(0, 100);
+        rules.setDisabled(new int[]{50});
+        assertEquals(49, rules.nearest(50));
+        assertEquals(51, rules.nearest(51));
+
+        rules.setDisabled(new int[]{49, 50});
+        assertEquals(51, rules.nearest(50));
+        rules.setDisabled(new int[]{0, 1, 2});
+        assertEquals(3, rules.nearest(-10));
+        rules.setDisabled(new int[]{98, 99, 100});
+        assertEquals(97, rules.nearest(200));
+    }
+
+    @Test
+    public void nearestFallsBackToClampedDayIfAllDisabled() {
+        DayRules rules = new DayRules();
+        rules.setRange(10, 12);
+        rules.setDisabled(new int[]{10, 11, 12});
+        assertEquals(11, rules.nearest(11));
+        assertEquals(10, rules.nearest(5));
+        assertEquals(12, rules.nearest(50));
+    }
+
+    @Test
+    public void matchesLegacyLimiter() {
+        Random random = new Random(42);
+        for (int trial = 0; trial < 2000; trial++) {
+            int min = random.nextInt(1000), max = min + random.nextInt(400);
+            LegacyDayLimiter legacy = new LegacyDayLimiter(min, max);
+            int[] selectable = random.nextInt(3) == 0 ? randomDays(random, min, max) : new int[0];
+            int[] disabled = random.nextBoolean() ? randomDays(random, min, max) : new int[0];
+            for (int day : selectable) legacy.selectable.add(day);
+            for (int day : disabled) legacy.disabled.add(day);
+
+            DayRules rules = new DayRules();
+            rules.setRange(min, max);
+            rules.setSelectable(selectable);
+            rules.setDisabled(disabled);
+
+            for (int query = 0; query < 20; query++) {
+                int day = min - 50 + random.nextInt(max - min + 101);
+                String message = "trial " + trial + ", day " + day;
+                assertEquals(message, legacy.isOutOfRange(day), rules.isOutOfRange(day));
+                // The legacy search never ended if every day was disabled.
+                if (legacy.hasEnabledDay())
+                    assertEquals(message, legacy.nearest(day), rules.nearest(day));
+            }
+        }
+    }
+
+    private static int[] randomDays(Random random, int min, int max) {
+        int[] days = new int[1 + random.nextInt(max - min + 1)];
+        for (int i = 0; i < days.length; i++) days[i] = min + random.nextInt(max - min + 1);
+        return days;
+    }
+
+    /**
+     * DefaultDateRangeLimiter before it used DayRules, with days in place of calendars.
+     */
+    private static class LegacyDayLimiter {
+        final int mMin, mMax;
+        final TreeSet<Integer> selectable = new TreeSet<>();
+        final HashSet<Integer> disabled = new HashSet<>();
+
+        LegacyDayLimiter(int min, int max) {
+            mMin = min;
+            mMax = max;
+        }
+
+        boolean isOutOfRange(int day) {
+            return isDisabled(day) || !(selectable.isEmpty() || selectable.contains(day));
+        }
+
+        boolean isDisabled(int day) {
+            return disabled.contains(day) || day < mMin || day > mMax;
+        }
+
+        boolean hasEnabledDay() {
+            if (!selectable.isEmpty() || disabled.isEmpty()) return true;
+            for (int day = mMin; day <= mMax; day++) if (!isDisabled(day)) return true;
+            return false;
+        }
+
+        int nearest(int day) {
+            if (!selectable.isEmpty()) {
+                Integer higher = selectable.ceiling(day), lower = selectable.lower(day);
+                if (higher == null) return lower;
+                if (lower == null) return higher;
+                return day - lower < higher - day ? lower : higher;
+            }
+
+            if (!disabled.isEmpty()) {
+                int forward = day < mMin ? mMin : day;
+                int backward = day > mMax ? mMax : day;
+                while (isDisabled(forward) && isDisabled(backward)) {
+                    forward++;
+                    backward--;
+                }
+                if (!isDisabled(backward)) return backward;
+                if (!isDisabled(forward)) return forward;
+            }
+
+            if (day < mMin) return mMin;
+            if (day > mMax) return mMax;
+            return day;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package ir.mahdiparastesh.mcdtp.engine;
+
+import static ir.mahdiparastesh.mcdtp.engine.TimeRules.ANY;
+import static ir.mahdiparastesh.mcdtp.engine.TimeRules.HOUR;
+import static ir.mahdiparastesh.mcdtp.engine.TimeRules.MINUTE;
+import static ir.mahdiparastesh.mcdtp.engine.TimeRules.SECOND;
+import static ir.mahdiparastesh.mcdtp.engine.TimeRules.SECONDS_IN_DAY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class IntervalRulesTest {
+
+    private static int time(int hour, int minute, int second) {
+        return hour * 3600 + minute * 60 + second;
+    }
+
+    /** 9:00-12:30 and 13:15-17:00, opening hours with a lunch break */
+    private static IntervalRules openingHours() {
+        return new IntervalRules(
+                new int[]{time(9, 0, 0), time(13, 15, 0)},
+                new int[]{time(12, 30, 0), time(17, 0, 0)});
+    }
+
+    @Test
+    public void startsAreInclusiveAndEndsExclusive() {
+        IntervalRules rules = openingHours();
+        assertTrue(rules.isOutOfRange(time(8, 59, 59), SECOND, SECOND));
+        assertFalse(rules.isOutOfRange(time(9, 0, 0), SECOND, SECOND));
+        assertFalse(rules.isOutOfRange(time(12, 29, 59), SECOND, SECOND));
+        assertTrue(rules.isOutOfRange(time(12, 30, 0), SECOND, SECOND));
+        assertTrue(rules.isOutOfRange(time(13, 14, 59), SECOND, SECOND));
+        assertFalse(rules.isOutOfRange(time(13, 15, 0), SECOND, SECOND));
+        assertTrue(rules.isOutOfRange(time(17, 0, 0), SECOND, SECOND));
+    }
+
+    @Test
+    public void hoursAndMinutesWithAnySelectableTime() {
+        IntervalRules rules = openingHours();
+        assertTrue(rules.isOutOfRange(time(8, 0, 0), HOUR, MINUTE));
+        assertFalse(rules.isOutOfRange(time(12, 0, 0), HOUR, MINUTE));
+        assertFalse(rules.isOutOfRange(time(13, 0, 0), HOUR, MINUTE));
+        assertTrue(rules.isOutOfRange(time(17, 0, 0), HOUR, MINUTE));
+        assertFalse(rules.isOutOfRange(time(12, 29, 0), MINUTE, SECOND));
+        assertTrue(rules.isOutOfRange(time(12, 30, 0), MINUTE, SECOND));
+        // Only whole hours can be picked, and 13:00 is in the break.
+        assertFalse(rules.isOutOfRange(time(12, 0, 0), HOUR, HOUR));
+        assertTrue(rules.isOutOfRange(time(13, 0, 0), HOUR, HOUR));
+    }
+
+    @Test
+    public void amAndPm() {
+        IntervalRules rules = openingHours();
+        assertFalse(rules.isAmDisabled());
+        assertFalse(rules.isPmDisabled());
+
+        IntervalRules evening = new IntervalRules(
+                new int[]{time(18, 0, 0)}, new int[]{time(22, 0, 0)});
+        assertTrue(evening.isAmDisabled());
+        assertFalse(evening.isPmDisabled());
+
+        IntervalRules morning = new IntervalRules(
+                new int[]{time(6, 0, 0)}, new int[]{time(12, 0, 0)});
+        assertFalse(morning.isAmDisabled());
+        assertTrue(morning.isPmDisabled());
+    }
+
+    @Test
+    public void roundingSnapsToTheNearestEdge() {
+        IntervalRules rules = openingHours();
+        assertEquals(time(10, 0, 0), rules.roundToNearest(time(10, 0, 0), ANY, SECOND));
+        assertEquals(time(9, 0, 0), rules.roundToNearest(time(7, 0, 0), ANY, SECOND));
+        assertEquals(time(16, 59, 59), rules.roundToNearest(time(20, 0, 0), ANY, SECOND));
+        assertEquals(time(16, 59, 0), rules.roundToNearest(time(20, 0, 0), ANY, MINUTE));
+        assertEquals(time(16, 0, 0), rules.roundToNearest(time(20, 0, 0), ANY, HOUR));
+        assertEquals(time(12, 29, 59), rules.roundToNearest(time(12, 40, 0), ANY, SECOND));
+        assertEquals(time(13, 15, 0), rules.roundToNearest(time(13, 0, 0), ANY, SECOND));
+        // The later edge on a tie
+        assertEquals(time(13, 15, 0), rules.roundToNearest(time(12, 52, 30), ANY, SECOND));
+    }
+
+    @Test
+    public void roundingKeepsTheFixedUnits() {
+        IntervalRules rules = openingHours();
+        // Within 12:xx only the morning interval is left.
+        assertEquals(time(12, 29, 59), rules.roundToNearest(time(12, 50, 0), HOUR, SECOND));
+        // Nothing within 12:45.
+        assertEquals(time(12, 45, 0), rules.roundToNearest(time(12, 45, 0), MINUTE, SECOND));
+        // Nothing can change when the seconds are being picked.
+        assertEquals(time(8, 0, 0), rules.roundToNearest(time(8, 0, 0), SECOND, SECOND));
+        // Nothing within 8:xx.
+        assertEquals(time(8, 30, 0), rules.roundToNearest(time(8, 30, 0), HOUR, SECOND));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void overlappingIntervalsAreRejected() {
+        new IntervalRules(new int[]{0, 100}, new int[]{200, 300});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyIntervalsAreRejected() {
+        new IntervalRules(new int[]{100}, new int[]{100});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void intervalsPastTheDayAreRejected() {
+        new IntervalRules(new int[]{0}, new int[]{SECONDS_IN_DAY + 1});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unpairedIntervalsAreRejected() {
+        new IntervalRules(new int[]{0, 100}, new int[]{50});
+    }
+
+    /** Against TimeRules with every second of the intervals selectable */
+    @Test
+    public void matchesTheSelectableSeconds() {
+        Random random = new Random(26);
+        for (int round = 0; round < 20; round++) {
+            int count = 1 + random.nextInt(6);
+            int[] starts = new int[count], ends = new int[count];
+            int[] selectable = new int[SECONDS_IN_DAY];
+            int at = 0, total = 0;
+            for (int i = 0; i < count; i++) {
+                // A gap and an interval of at most 4 hours, so that 6 of them fit into a day
+                starts[i] = at + random.nextInt(2 * 3600);
+                ends[i] = starts[i] + 1 + random.nextInt(2 * 3600);
+                at = ends[i] + 1;
+                for (int s = starts[i]; s < ends[i]; s++) selectable[total++] = s;
+            }
+            selectable = Arrays.copyOf(selectable, total);
+
+            IntervalRules intervals = new IntervalRules(starts, ends);
+            TimeRules times = new TimeRules();
+            times.addSelectable(selectable);
+            for (int probe = 0; probe < 500; probe++) {
+                int seconds = random.nextInt(SECONDS_IN_DAY);
+                for (int index = HOUR; index <= SECOND; index++)
+                    assertEquals(times.isOutOfRange(seconds, index, SECOND),
+                            intervals.isOutOfRange(seconds, index, SECOND));
+                for (int type = ANY; type <= SECOND; type++)
+                    assertEquals(times.roundToNearest(seconds, type, SECOND),
+                            intervals.roundToNearest(seconds, type, SECOND));
+            }
+            assertEquals(times.isAmDisabled(), intervals.isAmDisabled());
+            assertEquals(times.isPmDisabled(), intervals.isPmDisabled());
+        }
+    }
+}
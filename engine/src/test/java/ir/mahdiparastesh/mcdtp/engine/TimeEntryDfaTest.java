@@ -0,0 +1,105 @@
+package ir.mahdiparastesh.mcdtp.engine;
+
+import static ir.mahdiparastesh.mcdtp.engine.TimeEntryDfa.REJECT;
+import static ir.mahdiparastesh.mcdtp.engine.TimeEntryDfa.START;
+import static ir.mahdiparastesh.mcdtp.engine.TimeEntryDfa.SYMBOL_AM;
+import static ir.mahdiparastesh.mcdtp.engine.TimeEntryDfa.SYMBOL_PM;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TimeEntryDfaTest {
+    private static final int HOURS_24 = TimeEntryDfa.mode(true, false, false);
+    private static final int HOURS_12 = TimeEntryDfa.mode(false, false, false);
+    private static final int MINUTES_24 = TimeEntryDfa.mode(true, true, false);
+    private static final int MINUTES_12 = TimeEntryDfa.mode(false, true, false);
+    private static final int SECONDS_24 = TimeEntryDfa.mode(true, true, true);
+    private static final int SECONDS_12 = TimeEntryDfa.mode(false, true, true);
+
+    /** Types the keys one after another; "a" and "p" stand for AM and PM. */
+    private static int type(int mode, String keys) {
+        int state = START;
+        for (char key : keys.toCharArray()) {
+            int symbol = switch (key) {
+                case 'a' -> SYMBOL_AM;
+                case 'p' -> SYMBOL_PM;
+                default -> key - '0';
+            };
+            state = TimeEntryDfa.next(mode, state, symbol);
+        }
+        return state;
+    }
+
+    private static void assertLegal(int mode, String keys) {
+        assertNotEquals(keys, REJECT, type(mode, keys));
+    }
+
+    private static void assertIllegal(int mode, String keys) {
+        assertEquals(keys, REJECT, type(mode, keys));
+    }
+
+    @Test
+    public void hoursOnly() {
+        assertLegal(HOURS_24, "0");
+        assertLegal(HOURS_24, "23");
+        assertIllegal(HOURS_24, "24");
+        assertIllegal(HOURS_24, "3");
+        assertIllegal(HOURS_24, "1a");
+
+        assertTrue(TimeEntryDfa.isMeridiemEntered(HOURS_12, type(HOURS_12, "12p")));
+        assertTrue(TimeEntryDfa.isMeridiemEntered(HOURS_12, type(HOURS_12, "9a")));
+        assertIllegal(HOURS_12, "0");
+        assertIllegal(HOURS_12, "13");
+    }
+
+    @Test
+    public void minutesIn24HourMode() {
+        assertLegal(MINUTES_24, "1230");
+        assertLegal(MINUTES_24, "0009");
+        assertLegal(MINUTES_24, "055");
+        assertLegal(MINUTES_24, "240");
+        assertLegal(MINUTES_24, "812");
+        assertIllegal(MINUTES_24, "2400");
+        assertIllegal(MINUTES_24, "2360");
+        assertIllegal(MINUTES_24, "12300");
+        assertIllegal(MINUTES_24, "12a");
+    }
+
+    @Test
+    public void minutesIn12HourMode() {
+        assertFalse(TimeEntryDfa.isMeridiemEntered(MINUTES_12, type(MINUTES_12, "1")));
+        assertTrue(TimeEntryDfa.isMeridiemEntered(MINUTES_12, type(MINUTES_12, "1p")));
+        assertTrue(TimeEntryDfa.isMeridiemEntered(MINUTES_12, type(MINUTES_12, "130p")));
+        assertTrue(TimeEntryDfa.isMeridiemEntered(MINUTES_12, type(MINUTES_12, "1259a")));
+        assertTrue(TimeEntryDfa.isMeridiemEntered(MINUTES_12, type(MINUTES_12, "957p")));
+        assertIllegal(MINUTES_12, "13p");
+        assertIllegal(MINUTES_12, "1260");
+        assertIllegal(MINUTES_12, "0");
+        assertIllegal(MINUTES_12, "1pa");
+    }
+
+    @Test
+    public void seconds() {
+        assertLegal(SECONDS_24, "235959");
+        assertLegal(SECONDS_24, "80000");
+        assertIllegal(SECONDS_24, "235960");
+        assertIllegal(SECONDS_24, "2359590");
+
+        String longest = "125959p";
+        assertEquals(TimeEntryDfa.MAX_LENGTH, longest.length());
+        assertTrue(TimeEntryDfa.isMeridiemEntered(SECONDS_12, type(SECONDS_12, longest)));
+        assertTrue(TimeEntryDfa.isMeridiemEntered(SECONDS_12, type(SECONDS_12, "10805a")));
+        assertIllegal(SECONDS_12, "125960");
+    }
+
+    @Test
+    public void invalidInputIsRejected() {
+        assertEquals(REJECT, TimeEntryDfa.next(MINUTES_24, REJECT, 1));
+        assertEquals(REJECT, TimeEntryDfa.next(MINUTES_24, START, -1));
+        assertEquals(REJECT, TimeEntryDfa.next(MINUTES_24, START, 12));
+        assertEquals(REJECT, TimeEntryDfa.next(MINUTES_24, START, SYMBOL_AM));
+    }
+}
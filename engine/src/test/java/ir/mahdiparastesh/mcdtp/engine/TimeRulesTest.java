@@ -0,0 +1,325 @@
+package ir.mahdiparastesh.mcdtp.engine;
+
+import static ir.mahdiparastesh.mcdtp.engine.TimeRules.ANY;
+import static ir.mahdiparastesh.mcdtp.engine.TimeRules.HOUR;
+import static ir.mahdiparastesh.mcdtp.engine.TimeRules.MINUTE;
+import static ir.mahdiparastesh.mcdtp.engine.TimeRules.SECOND;
+import static ir.mahdiparastesh.mcdtp.engine.TimeRules.SECONDS_IN_DAY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+public class TimeRulesTest {
+
+    private static int time(int hour, int minute, int second) {
+        return hour * 3600 + minute * 60 + second;
+    }
+
+    @Test
+    public void minAndMax() {
+        TimeRules rules = new TimeRules();
+        rules.setMin(time(8, 15, 30));
+        rules.setMax(time(20, 30, 0));
+
+        assertTrue(rules.isOutOfRange(time(7, 59, 0), HOUR, SECOND));
+        assertFalse(rules.isOutOfRange(time(8, 0, 0), HOUR, SECOND));
+        assertFalse(rules.isOutOfRange(time(20, 0, 0), HOUR, SECOND));
+        assertTrue(rules.isOutOfRange(time(21, 0, 0), HOUR, SECOND));
+
+        // The minute of the minimum is selectable, since some of its seconds are.
+        assertTrue(rules.isOutOfRange(time(8, 14, 59), MINUTE, SECOND));
+        assertFalse(rules.isOutOfRange(time(8, 15, 0), MINUTE, SECOND));
+        assertFalse(rules.isOutOfRange(time(20, 30, 59), MINUTE, SECOND));
+        assertTrue(rules.isOutOfRange(time(20, 31, 0), MINUTE, SECOND));
+
+        assertTrue(rules.isOutOfRange(time(8, 15, 29)));
+        assertFalse(rules.isOutOfRange(time(8, 15, 30)));
+
+        assertEquals(time(8, 15, 30), rules.roundToNearest(time(7, 0, 0), ANY, SECOND));
+        assertEquals(time(20, 30, 0), rules.roundToNearest(time(23, 0, 0), HOUR, SECOND));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void minAfterMaxIsRejected() {
+        TimeRules rules = new TimeRules();
+        rules.setMax(time(10, 0, 0));
+        rules.setMin(time(11, 0, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxBeforeMinIsRejected() {
+        TimeRules rules = new TimeRules();
+        rules.setMin(time(11, 0, 0));
+        rules.setMax(time(10, 0, 0));
+    }
+
+    @Test
+    public void selectableTimes() {
+        TimeRules rules = new TimeRules();
+        rules.addSelectable(new int[]{time(10, 0, 0), time(9, 0, 0), time(9, 30, 0)});
+
+        assertFalse(rules.isOutOfRange(time(9, 0, 0), HOUR, MINUTE));
+        assertTrue(rules.isOutOfRange(time(11, 0, 0), HOUR, MINUTE));
+        assertFalse(rules.isOutOfRange(time(9, 30, 0), MINUTE, MINUTE));
+        assertTrue(rules.isOutOfRange(time(9, 31, 0), MINUTE, MINUTE));
+
+        assertEquals(time(9, 30, 0), rules.roundToNearest(time(9, 20, 0), ANY, MINUTE));
+        assertEquals(time(9, 0, 0), rules.roundToNearest(time(9, 14, 0), ANY, MINUTE));
+        // Ties go to the later time.
+        assertEquals(time(9, 30, 0), rules.roundToNearest(time(9, 15, 0), ANY, MINUTE));
+        // The hour must not change.
+        assertEquals(time(9, 30, 0), rules.roundToNearest(time(9, 50, 0), HOUR, MINUTE));
+        assertEquals(time(11, 0, 0), rules.roundToNearest(time(11, 0, 0), HOUR, MINUTE));
+        assertEquals(time(10, 0, 0), rules.roundToNearest(time(23, 0, 0), ANY, MINUTE));
+
+        // A disabled time is no longer selectable.
+        rules.addDisabled(new int[]{time(10, 0, 0)});
+        assertTrue(rules.isOutOfRange(time(10, 0, 0), HOUR, MINUTE));
+        assertTrue(rules.isPmDisabled());
+    }
+
+    @Test
+    public void disabledTimesDependOnResolution() {
+        TimeRules rules = new TimeRules();
+        rules.addDisabled(new int[]{time(10, 30, 0)});
+
+        assertTrue(rules.isOutOfRange(time(10, 0, 0), HOUR, HOUR));
+        assertFalse(rules.isOutOfRange(time(10, 0, 0), HOUR, MINUTE));
+        assertTrue(rules.isOutOfRange(time(10, 30, 15), MINUTE, MINUTE));
+        assertFalse(rules.isOutOfRange(time(10, 30, 15), MINUTE, SECOND));
+        assertTrue(rules.isOutOfRange(time(10, 30, 0)));
+        assertFalse(rules.isOutOfRange(time(10, 30, 1)));
+
+        assertEquals(time(10, 30, 1), rules.roundToNearest(time(10, 30, 0), ANY, SECOND));
+        assertEquals(time(10, 31, 0), rules.roundToNearest(time(10, 30, 0), ANY, MINUTE));
+        assertEquals(time(11, 30, 0), rules.roundToNearest(time(10, 30, 0), ANY, HOUR));
+        // The unit being picked cannot change.
+        assertEquals(time(10, 30, 20), rules.roundToNearest(time(10, 30, 20), MINUTE, MINUTE));
+    }
+
+    @Test
+    public void allDisabledReturnsInput() {
+        TimeRules rules = new TimeRules();
+        int[] hours = new int[24];
+        for (int hour = 0; hour < 24; hour++) hours[hour] = time(hour, 0, 0);
+        rules.addDisabled(hours);
+        assertEquals(time(5, 0, 0), rules.roundToNearest(time(5, 0, 0), ANY, HOUR));
+        assertEquals(time(5, 0, 0), rules.roundToNearest(time(5, 0, 0), MINUTE, HOUR));
+    }
+
+    @Test
+    public void amAndPm() {
+        TimeRules rules = new TimeRules();
+        assertFalse(rules.isAmDisabled());
+        assertFalse(rules.isPmDisabled());
+        rules.setMin(time(12, 0, 0));
+        assertTrue(rules.isAmDisabled());
+
+        rules = new TimeRules();
+        rules.addSelectable(new int[]{time(3, 0, 0), time(11, 59, 59)});
+        assertFalse(rules.isAmDisabled());
+        assertTrue(rules.isPmDisabled());
+    }
+
+    @Test
+    public void matchesLegacyLimiter() {
+        Random random = new Random(42);
+        int[] types = {ANY, HOUR, MINUTE, SECOND};
+        for (int trial = 0; trial < 300; trial++) {
+            TimeRules rules = new TimeRules();
+            LegacyTimeLimiter legacy = new LegacyTimeLimiter();
+            if (random.nextInt(3) == 0) {
+                int min = random.nextInt(SECONDS_IN_DAY / 2);
+                rules.setMin(min);
+                legacy.mMin = min;
+            }
+            if (random.nextInt(3) == 0) {
+                int max = SECONDS_IN_DAY / 2 + random.nextInt(SECONDS_IN_DAY / 2);
+                rules.setMax(max);
+                legacy.mMax = max;
+            }
+            if (random.nextInt(3) == 0) {
+                int[] times = randomTimes(random);
+                rules.addSelectable(times);
+                for (int t : times) legacy.mSelectable.add(t);
+            }
+            if (random.nextBoolean()) {
+                int[] times = randomTimes(random);
+                rules.addDisabled(times);
+                for (int t : times) legacy.mDisabled.add(t);
+            }
+            legacy.mExclusive.addAll(legacy.mSelectable);
+            legacy.mExclusive.removeAll(legacy.mDisabled);
+
+            assertEquals(legacy.isAmDisabled(), rules.isAmDisabled());
+            assertEquals(legacy.isPmDisabled(), rules.isPmDisabled());
+            for (int query = 0; query < 50; query++) {
+                int seconds = random.nextInt(SECONDS_IN_DAY);
+                int index = random.nextInt(3), resolution = random.nextInt(3);
+                int type = types[random.nextInt(types.length)];
+                String message = "trial " + trial + ", time " + seconds + ", index " + index
+                        + ", type " + type + ", resolution " + resolution;
+                assertEquals(message, legacy.isOutOfRange(seconds, index, resolution),
+                        rules.isOutOfRange(seconds, index, resolution));
+                assertEquals(message, legacy.roundToNearest(seconds, type, resolution),
+                        rules.roundToNearest(seconds, type, resolution));
+            }
+        }
+    }
+
+    /** Scattered times, or a run of them, which makes the searches longer. */
+    private static int[] randomTimes(Random random) {
+        int[] times = new int[1 + random.nextInt(3000)];
+        boolean run = random.nextBoolean();
+        int start = random.nextInt(SECONDS_IN_DAY);
+        for (int i = 0; i < times.length; i++)
+            times[i] = run ? (start + i) % SECONDS_IN_DAY : random.nextInt(SECONDS_IN_DAY);
+        return times;
+    }
+
+    /**
+     * DefaultTimepointLimiter before it used TimeRules, with seconds of the day in place of
+     * Timepoints and -1 in place of null.
+     */
+    private static class LegacyTimeLimiter {
+        final TreeSet<Integer> mSelectable = new TreeSet<>();
+        final TreeSet<Integer> mDisabled = new TreeSet<>();
+        final TreeSet<Integer> mExclusive = new TreeSet<>();
+        int mMin = -1;
+        int mMax = -1;
+
+        boolean isOutOfRange(int current, int index, int resolution) {
+            if (index == HOUR) {
+                if (mMin >= 0 && mMin / 3600 > current / 3600) return true;
+                if (mMax >= 0 && mMax / 3600 + 1 <= current / 3600) return true;
+                if (!mExclusive.isEmpty()) {
+                    Integer ceil = mExclusive.ceiling(current), floor = mExclusive.floor(current);
+                    return !(same(current, ceil, HOUR) || same(current, floor, HOUR));
+                }
+                if (!mDisabled.isEmpty() && resolution == HOUR) {
+                    Integer ceil = mDisabled.ceiling(current), floor = mDisabled.floor(current);
+                    return same(current, ceil, HOUR) || same(current, floor, HOUR);
+                }
+                return false;
+            } else if (index == MINUTE) {
+                if (mMin >= 0 && mMin / 60 * 60 > current) return true;
+                if (mMax >= 0 && mMax / 60 * 60 + 59 < current) return true;
+                if (!mExclusive.isEmpty()) {
+                    Integer ceil = mExclusive.ceiling(current), floor = mExclusive.floor(current);
+                    return !(same(current, ceil, MINUTE) || same(current, floor, MINUTE));
+                }
+                if (!mDisabled.isEmpty() && resolution == MINUTE) {
+                    Integer ceil = mDisabled.ceiling(current), floor = mDisabled.floor(current);
+                    return same(current, ceil, MINUTE) || same(current, floor, MINUTE);
+                }
+                return false;
+            }
+            if (mMin >= 0 && mMin > current) return true;
+            if (mMax >= 0 && mMax < current) return true;
+            if (!mExclusive.isEmpty()) return !mExclusive.contains(current);
+            return mDisabled.contains(current);
+        }
+
+        boolean isAmDisabled() {
+            if (mMin >= 12 * 3600) return true;
+            return !mExclusive.isEmpty() && mExclusive.first() >= 12 * 3600;
+        }
+
+        boolean isPmDisabled() {
+            if (mMax >= 0 && mMax < 12 * 3600) return true;
+            return !mExclusive.isEmpty() && mExclusive.last() < 12 * 3600;
+        }
+
+        int roundToNearest(int time, int type, int resolution) {
+            if (mMin >= 0 && mMin > time) return mMin;
+            if (mMax >= 0 && mMax < time) return mMax;
+            if (type == SECOND) return time;
+
+            if (!mExclusive.isEmpty()) {
+                Integer floor = mExclusive.floor(time), ceil = mExclusive.ceiling(time);
+                if (floor == null || ceil == null) {
+                    int t = floor == null ? ceil : floor;
+                    if (type == ANY) return t;
+                    if (get(t, HOUR) != get(time, HOUR)) return time;
+                    if (type == MINUTE && get(t, MINUTE) != get(time, MINUTE)) return time;
+                    return t;
+                }
+                int h = get(time, HOUR), m = get(time, MINUTE);
+                int fh = get(floor, HOUR), ch = get(ceil, HOUR);
+                int fm = get(floor, MINUTE), cm = get(ceil, MINUTE);
+                if (type == HOUR) {
+                    if (fh != h && ch == h) return ceil;
+                    if (fh == h && ch != h) return floor;
+                    if (fh != h) return time;
+                }
+                if (type == MINUTE) {
+                    if (fh != h && ch != h) return time;
+                    if (fh != h) return cm == m ? ceil : time;
+                    if (ch != h) return fm == m ? floor : time;
+                    if (fm != m && cm == m) return ceil;
+                    if (fm == m && cm != m) return floor;
+                    if (fm != m) return time;
+                }
+                return Math.abs(time - floor) < Math.abs(time - ceil) ? floor : ceil;
+            }
+
+            if (!mDisabled.isEmpty()) {
+                if (type == resolution) return time;
+                if (resolution == SECOND) {
+                    if (!mDisabled.contains(time)) return time;
+                    return search(time, type, resolution);
+                }
+                Integer ceil = mDisabled.ceiling(time), floor = mDisabled.floor(time);
+                if (same(time, ceil, resolution) || same(time, floor, resolution))
+                    return search(time, type, resolution);
+                return time;
+            }
+            return time;
+        }
+
+        private int search(int time, int type, int resolution) {
+            int step = resolution == HOUR ? 3600 : resolution == MINUTE ? 60 : 1;
+            int forward = time, backward = time;
+            for (int iteration = 0; iteration < SECONDS_IN_DAY / step; iteration++) {
+                forward = Math.floorMod(forward + step, SECONDS_IN_DAY);
+                backward = Math.floorMod(backward - step, SECONDS_IN_DAY);
+                if (type == ANY || get(forward, type) == get(time, type)) {
+                    if (!same(forward, mDisabled.ceiling(forward), resolution)
+                            && !same(forward, mDisabled.floor(forward), resolution))
+                        return forward;
+                }
+                if (type == ANY || get(backward, type) == get(time, type)) {
+                    if (!same(backward, mDisabled.ceiling(backward), resolution)
+                            && !same(backward, mDisabled.floor(backward), resolution))
+                        return backward;
+                }
+                if (type != ANY && get(backward, type) != get(time, type)
+                        && get(forward, type) != get(time, type))
+                    break;
+            }
+            return time;
+        }
+
+        /** Timepoint.equals(Timepoint, TYPE) */
+        private static boolean same(int time, Integer other, int resolution) {
+            if (other == null) return false;
+            boolean output = true;
+            if (resolution == SECOND) output = get(other, SECOND) == get(time, SECOND);
+            if (resolution != HOUR) output = output && get(other, MINUTE) == get(time, MINUTE);
+            return output && get(other, HOUR) == get(time, HOUR);
+        }
+
+        private static int get(int time, int type) {
+            return switch (type) {
+                case HOUR -> time / 3600;
+                case MINUTE -> time / 60 % 60;
+                default -> time % 60;
+            };
+        }
+    }
+}
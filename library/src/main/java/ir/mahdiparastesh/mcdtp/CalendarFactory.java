@@ -0,0 +1,136 @@
+package ir.mahdiparastesh.mcdtp;
+
+import android.icu.util.BuddhistCalendar;
+import android.icu.util.Calendar;
+import android.icu.util.ChineseCalendar;
+import android.icu.util.CopticCalendar;
+import android.icu.util.DangiCalendar;
+import android.icu.util.EthiopicCalendar;
+import android.icu.util.GregorianCalendar;
+import android.icu.util.HebrewCalendar;
+import android.icu.util.IndianCalendar;
+import android.icu.util.IslamicCalendar;
+import android.icu.util.JapaneseCalendar;
+import android.icu.util.TaiwanCalendar;
+import android.icu.util.TimeZone;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Registry of the calendar types which the pickers can instantiate. Every type is created through
+ * a {@link Supplier} and is known by a stable id, which is what the dialogs put in their saved
+ * state.
+ * <p>
+ * The calendars of ICU are registered by default; other calendars (e.g. a PersianCalendar) should
+ * be registered once, before a picker is shown:
+ * <pre>{@code
+ * CalendarFactory.register("persian", PersianCalendar.class, PersianCalendar::new);
+ * }</pre>
+ * A type which is not registered is instantiated once by reflection and then cloned.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class CalendarFactory {
+    private static final ConcurrentHashMap<Class<? extends Calendar>, Supplier<? extends Calendar>>
+            sSuppliers = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Class<? extends Calendar>, String> sIds =
+            new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Class<? extends Calendar>> sTypes =
+            new ConcurrentHashMap<>();
+
+    static {
+        register("gregorian", GregorianCalendar.class, GregorianCalendar::new);
+        register("buddhist", BuddhistCalendar.class, BuddhistCalendar::new);
+        register("chinese", ChineseCalendar.class, ChineseCalendar::new);
+        register("coptic", CopticCalendar.class, CopticCalendar::new);
+        register("dangi", DangiCalendar.class, DangiCalendar::new);
+        register("ethiopic", EthiopicCalendar.class, EthiopicCalendar::new);
+        register("hebrew", HebrewCalendar.class, HebrewCalendar::new);
+        register("indian", IndianCalendar.class, IndianCalendar::new);
+        register("islamic", IslamicCalendar.class, IslamicCalendar::new);
+        register("japanese", JapaneseCalendar.class, JapaneseCalendar::new);
+        register("roc", TaiwanCalendar.class, TaiwanCalendar::new);
+    }
+
+    private CalendarFactory() {
+    }
+
+    /**
+     * @param id       a stable name of the calendar type, which must never change across versions
+     *                 of the app, because it is stored in the saved state of the pickers
+     * @param type     the calendar class
+     * @param supplier creates a new calendar set to the current time
+     */
+    public static <CAL extends Calendar> void register(
+            @NonNull String id, @NonNull Class<CAL> type, @NonNull Supplier<CAL> supplier) {
+        Class<? extends Calendar> existing = sTypes.get(id);
+        if (existing != null && existing != type)
+            throw new IllegalArgumentException("The id " + id + " is already used by " + existing.getName());
+        sSuppliers.put(type, supplier);
+        sIds.put(type, id);
+        sTypes.put(id, type);
+    }
+
+    @NonNull
+    public static <CAL extends Calendar> CAL create(@NonNull Class<CAL> type, @Nullable TimeZone tz) {
+        Supplier<? extends Calendar> supplier = sSuppliers.get(type);
+        if (!sIds.containsKey(type))
+            McdtpMetrics.cacheLookup(PickerMetrics.Cache.PROTOTYPE, supplier != null);
+        if (supplier == null) supplier = prototypeSupplier(type);
+        //noinspection unchecked
+        CAL ins = (CAL) supplier.get();
+        McdtpMetrics.calendarCreated();
+        if (tz != null) ins.setTimeZone(tz);
+        return ins;
+    }
+
+    /**
+     * @return the registered id of the type, or its class name if it is not registered
+     */
+    @NonNull
+    public static String idOf(@NonNull Class<? extends Calendar> type) {
+        String id = sIds.get(type);
+        return id != null ? id : type.getName();
+    }
+
+    /**
+     * @return the type with the specified id; class names are accepted for types which are not
+     * registered. Falls back to GregorianCalendar if the type cannot be found.
+     */
+    @NonNull
+    public static Class<? extends Calendar> typeOf(@Nullable String id) {
+        if (id == null) return GregorianCalendar.class;
+        Class<? extends Calendar> type = sTypes.get(id);
+        if (type != null) return type;
+        try {
+            return Class.forName(id).asSubclass(Calendar.class);
+        } catch (ClassNotFoundException | ClassCastException e) {
+            return GregorianCalendar.class;
+        }
+    }
+
+    /**
+     * Instantiates an unregistered type once and keeps the instance as a prototype to be cloned,
+     * so that reflection isn't repeated for every calendar.
+     */
+    @NonNull
+    private static Supplier<? extends Calendar> prototypeSupplier(@NonNull Class<? extends Calendar> type) {
+        Supplier<? extends Calendar> supplier;
+        try {
+            Calendar prototype = type.getDeclaredConstructor().newInstance();
+            supplier = () -> {
+                Calendar ins = (Calendar) prototype.clone();
+                ins.setTimeZone(TimeZone.getDefault());
+                ins.setTimeInMillis(System.currentTimeMillis());
+                return ins;
+            };
+        } catch (ReflectiveOperationException e) {
+            supplier = GregorianCalendar::new;
+        }
+        Supplier<? extends Calendar> previous = sSuppliers.putIfAbsent(type, supplier);
+        return previous != null ? previous : supplier;
+    }
+}
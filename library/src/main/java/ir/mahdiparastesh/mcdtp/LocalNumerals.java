@@ -0,0 +1,53 @@
+package ir.mahdiparastesh.mcdtp;
+
+import androidx.annotation.IntRange;
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The numerals 0 to 59 in the native digits of a locale, both plain and zero-padded.
+ * The tables are formatted once per locale and shared by all pickers, so labels and headers reuse
+ * the same strings instead of running a formatter on every change.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class LocalNumerals {
+    private static final int SIZE = 60;
+    private static final ConcurrentHashMap<Locale, LocalNumerals> sInstances =
+            new ConcurrentHashMap<>();
+
+    private final String[] mPlain = new String[SIZE];
+    private final String[] mPadded = new String[SIZE];
+
+    private LocalNumerals(Locale locale) {
+        for (int i = 0; i < SIZE; i++) {
+            mPlain[i] = String.format(locale, "%d", i);
+            mPadded[i] = String.format(locale, "%02d", i);
+        }
+    }
+
+    @NonNull
+    public static LocalNumerals of(@NonNull Locale locale) {
+        LocalNumerals numerals = sInstances.get(locale);
+        McdtpMetrics.cacheLookup(PickerMetrics.Cache.NUMERALS, numerals != null);
+        if (numerals == null) {
+            numerals = new LocalNumerals(locale);
+            LocalNumerals previous = sInstances.putIfAbsent(locale, numerals);
+            if (previous != null) numerals = previous;
+        }
+        return numerals;
+    }
+
+    /** e.g. "5" */
+    @NonNull
+    public String plain(@IntRange(from = 0, to = SIZE - 1) int value) {
+        return mPlain[value];
+    }
+
+    /** e.g. "05" */
+    @NonNull
+    public String padded(@IntRange(from = 0, to = SIZE - 1) int value) {
+        return mPadded[value];
+    }
+}
@@ -0,0 +1,81 @@
+package ir.mahdiparastesh.mcdtp;
+
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Holds the {@link PickerMetrics} which all pickers report to, unless a dialog has its own.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class McdtpMetrics {
+    private static volatile PickerMetrics sGlobal;
+
+    private McdtpMetrics() {
+    }
+
+    public static void setGlobal(@Nullable PickerMetrics metrics) {
+        sGlobal = metrics;
+    }
+
+    @Nullable
+    public static PickerMetrics getGlobal() {
+        return sGlobal;
+    }
+
+    /**
+     * @return the listener of a dialog if it has one, otherwise the global one
+     */
+    @Nullable
+    public static PickerMetrics of(@Nullable PickerMetrics local) {
+        return local != null ? local : sGlobal;
+    }
+
+    /**
+     * Reports {@link PickerMetrics#onFirstFrame} right before the view is drawn for the first time.
+     *
+     * @param since the value of System.nanoTime() when the dialog was created
+     */
+    public static void reportFirstFrame(
+            @NonNull View view, @NonNull PickerMetrics metrics, @NonNull PickerMetrics.Picker picker,
+            long since) {
+        view.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                view.getViewTreeObserver().removeOnPreDrawListener(this);
+                metrics.onFirstFrame(picker, System.nanoTime() - since);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Starts timing a call, so that measuring costs nothing when no listener is set and the call
+     * isn't wrapped in a lambda, which would allocate on every query of a frame.
+     *
+     * @return the value of System.nanoTime(), or 0 if there is no listener
+     */
+    public static long start(@Nullable PickerMetrics metrics) {
+        return metrics != null ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Reports {@link PickerMetrics#onLimiterQuery} for a query timed since {@link #start}.
+     */
+    public static void limiterQuery(
+            @Nullable PickerMetrics metrics, @NonNull PickerMetrics.Picker picker, long start) {
+        if (metrics != null) metrics.onLimiterQuery(picker, System.nanoTime() - start);
+    }
+
+    static void calendarCreated() {
+        PickerMetrics metrics = sGlobal;
+        if (metrics != null) metrics.onCalendarCreated();
+    }
+
+    static void cacheLookup(@NonNull PickerMetrics.Cache cache, boolean hit) {
+        PickerMetrics metrics = sGlobal;
+        if (metrics != null) metrics.onCacheLookup(cache, hit);
+    }
+}
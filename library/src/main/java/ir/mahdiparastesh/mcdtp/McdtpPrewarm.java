@@ -0,0 +1,179 @@
+package ir.mahdiparastesh.mcdtp;
+
+import android.content.Context;
+import android.icu.text.DateFormat;
+import android.icu.util.Calendar;
+import android.icu.util.GregorianCalendar;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.FontRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.text.DateFormatSymbols;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads what the first picker would otherwise load while it's being shown: the ICU calendars and
+ * their data, the date format symbols, the numerals of the locale and the custom fonts.
+ * Only the parts which are safe off the main thread are done here, so layouts are still inflated
+ * by the pickers themselves.
+ * <pre>{@code
+ * McdtpPrewarm.prewarm(context, new McdtpPrewarm.Config()
+ *         .setCalendarTypes(PersianCalendar.class)
+ *         .setBoldFont(R.font.bold), null);
+ * }</pre>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class McdtpPrewarm {
+    private static final String TAG = "McdtpPrewarm";
+    private static final String TRACE_SECTION = "mcdtp:McdtpPrewarm.prewarm";
+    private static final AtomicInteger sTraceCookie = new AtomicInteger();
+    private static ExecutorService sExecutor;
+
+    private McdtpPrewarm() {
+    }
+
+    /**
+     * Starts prewarming on a background thread; it is best called when the app is idle, e.g.
+     * after the first frame of the launcher activity.
+     *
+     * @param listener called on the main thread once everything has been loaded, or has failed
+     *                 to load; failures are only logged, since the pickers load the same things
+     *                 themselves
+     */
+    public static void prewarm(
+            @NonNull Context context, @NonNull Config config, @Nullable OnPrewarmListener listener) {
+        Context app = context.getApplicationContext();
+        Config snapshot = new Config(config);
+        // Spans the time in the queue as well, so that it shows when the picker was opened too soon.
+        int cookie = sTraceCookie.getAndIncrement();
+        boolean traced = McdtpTrace.beginAsync(TRACE_SECTION, cookie);
+        executor().execute(() -> {
+            try {
+                prewarmNow(app, snapshot);
+            } finally {
+                McdtpTrace.endAsync(traced, TRACE_SECTION, cookie);
+                if (listener != null)
+                    new Handler(Looper.getMainLooper()).post(listener::onPrewarmed);
+            }
+        });
+    }
+
+    /** The background thread of the library, which also loads fonts */
+    static synchronized ExecutorService executor() {
+        if (sExecutor == null) sExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "mcdtp-prewarm");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        return sExecutor;
+    }
+
+    private static void prewarmNow(@NonNull Context c, @NonNull Config config) {
+        Locale locale = config.mLocale != null ? config.mLocale : Locale.getDefault();
+        boolean traced = McdtpTrace.begin("mcdtp:McdtpPrewarm.calendars");
+        try {
+            for (Class<? extends Calendar> type : config.mCalendarTypes)
+                tryPrewarm(type.getSimpleName(), () -> {
+                    CalendarFactory.create(type, null).get(Calendar.YEAR);
+                    McdtpUtils.sharedSymbols(c, type, locale);
+                });
+            tryPrewarm("date pattern", () -> DateFormat.getBestDateTimePattern(locale, "EEEMMMdd"));
+            tryPrewarm("AM/PM", () -> new DateFormatSymbols(locale).getAmPmStrings());
+            tryPrewarm("numerals", () -> LocalNumerals.of(locale));
+        } finally {
+            McdtpTrace.end(traced);
+        }
+        traced = McdtpTrace.begin("mcdtp:McdtpPrewarm.fonts");
+        try {
+            Integer bold = config.getBoldFont(), normal = config.getNormalFont();
+            if (bold != null) tryPrewarm("bold font", () -> McdtpUtils.loadFontNow(c, bold));
+            if (normal != null)
+                tryPrewarm("normal font", () -> McdtpUtils.loadFontNow(c, normal));
+        } finally {
+            McdtpTrace.end(traced);
+        }
+    }
+
+    /** An exception would kill the app from this thread, so it's only logged. */
+    private static void tryPrewarm(@NonNull String item, @NonNull Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Couldn't prewarm " + item, e);
+        }
+    }
+
+    public interface OnPrewarmListener {
+        void onPrewarmed();
+    }
+
+    /**
+     * What the pickers of the app are going to use.
+     */
+    public static class Config implements FontCustomiser {
+        private final List<Class<? extends Calendar>> mCalendarTypes = new ArrayList<>();
+        private Locale mLocale;
+        @FontRes
+        private Integer mBoldFont;
+        @FontRes
+        private Integer mNormalFont;
+
+        public Config() {
+            mCalendarTypes.add(GregorianCalendar.class);
+        }
+
+        private Config(@NonNull Config other) {
+            mCalendarTypes.addAll(other.mCalendarTypes);
+            mLocale = other.mLocale;
+            mBoldFont = other.mBoldFont;
+            mNormalFont = other.mNormalFont;
+        }
+
+        /** Replaces the default, which is only GregorianCalendar. */
+        @SafeVarargs
+        public final Config setCalendarTypes(@NonNull Class<? extends Calendar>... types) {
+            mCalendarTypes.clear();
+            Collections.addAll(mCalendarTypes, types);
+            return this;
+        }
+
+        /** Defaults to Locale.getDefault() at the time of prewarming. */
+        public Config setLocale(@Nullable Locale locale) {
+            mLocale = locale;
+            return this;
+        }
+
+        /** The same font which is passed to setBoldFont() of the pickers. */
+        public Config setBoldFont(@FontRes int fontRes) {
+            mBoldFont = fontRes;
+            return this;
+        }
+
+        /** The same font which is passed to setNormalFont() of the pickers. */
+        public Config setNormalFont(@FontRes int fontRes) {
+            mNormalFont = fontRes;
+            return this;
+        }
+
+        @Override
+        public Integer getBoldFont() {
+            return mBoldFont;
+        }
+
+        @Override
+        public Integer getNormalFont() {
+            return mNormalFont;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ir.mahdiparastesh.mcdtp;
+
+import androidx.annotation.NonNull;
+import androidx.tracing.Trace;
+
+/**
+ * Trace sections around the hot paths of the pickers, so that they show up in system traces
+ * (Perfetto, Android Studio profiler) instead of a single Choreographer#doFrame.
+ * They are disabled by default; enable them with {@link #setEnabled} before taking a trace.
+ * <pre>{@code
+ * boolean traced = McdtpTrace.begin("mcdtp:section");
+ * try {
+ *     ...
+ * } finally {
+ *     McdtpTrace.end(traced);
+ * }
+ * }</pre>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class McdtpTrace {
+    private static volatile boolean sEnabled = false;
+
+    private McdtpTrace() {
+    }
+
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * @return whether a section was begun, which must be passed to {@link #end}; so that toggling
+     * in the middle of a section won't unbalance the trace
+     */
+    public static boolean begin(@NonNull String name) {
+        if (!sEnabled) return false;
+        Trace.beginSection(name);
+        return true;
+    }
+
+    public static void end(boolean begun) {
+        if (begun) Trace.endSection();
+    }
+
+    /**
+     * Begins a section which may end on another thread.
+     *
+     * @param cookie distinguishes concurrent sections of the same name
+     */
+    public static boolean beginAsync(@NonNull String name, int cookie) {
+        if (!sEnabled) return false;
+        Trace.beginAsyncSection(name, cookie);
+        return true;
+    }
+
+    public static void endAsync(boolean begun, @NonNull String name, int cookie) {
+        if (begun) Trace.endAsyncSection(name, cookie);
+    }
+}
@@ -9,10 +9,11 @@ import android.content.res.Resources;
 import android.graphics.Typeface;
 import android.icu.text.DateFormatSymbols;
 import android.icu.util.Calendar;
-import android.icu.util.GregorianCalendar;
 import android.icu.util.TimeZone;
 import android.media.AudioManager;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.SystemClock;
 import android.os.VibrationEffect;
 import android.os.Vibrator;
@@ -22,11 +23,17 @@ import android.view.View;
 
 import androidx.annotation.AttrRes;
 import androidx.annotation.ColorInt;
+import androidx.annotation.FontRes;
+import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.core.content.res.ResourcesCompat;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 @SuppressWarnings("WeakerAccess")
 public class McdtpUtils {
@@ -39,6 +46,15 @@ public class McdtpUtils {
     public static final int FULL_ALPHA = 255;
 
     private static long mLastVibrate;
+    private static final ConcurrentHashMap<SymbolsKey, DateFormatSymbols> sSymbols =
+            new ConcurrentHashMap<>();
+
+    private static final Typeface FALLBACK_BOLD_FONT = Typeface.create("sans-serif", Typeface.BOLD);
+    private static final Typeface FALLBACK_NORMAL_FONT = Typeface.SANS_SERIF;
+    // Custom fonts which have been loaded, by their resource IDs
+    private static final ConcurrentHashMap<Integer, Typeface> sFonts = new ConcurrentHashMap<>();
+    // Listeners of the fonts which are being loaded; only used on the main thread
+    private static final HashMap<Integer, ArrayList<Runnable>> sPendingFonts = new HashMap<>();
 
     /** Try to speak the specified text, for accessibility. Only available on JB or later. */
     public static void tryAccessibilityAnnounce(View view, CharSequence text) {
@@ -85,14 +101,106 @@ public class McdtpUtils {
         return calendar;
     }
 
+    /**
+     * @return the custom bold font if it has been loaded, otherwise the system's; never blocks.
+     * @see #loadFonts(Context, FontCustomiser, Runnable)
+     */
     public static Typeface boldFont(Context c, FontCustomiser cus) {
-        return cus.getBoldFont() != null ? ResourcesCompat.getFont(c, cus.getBoldFont())
-                : Typeface.create("sans-serif", Typeface.BOLD);
+        Typeface font = cus.getBoldFont() != null ? sFonts.get(cus.getBoldFont()) : null;
+        return font != null ? font : FALLBACK_BOLD_FONT;
     }
 
+    /**
+     * @return the custom normal font if it has been loaded, otherwise the system's; never blocks.
+     * @see #loadFonts(Context, FontCustomiser, Runnable)
+     */
     public static Typeface normalFont(Context c, FontCustomiser cus) {
-        return cus.getNormalFont() != null ? ResourcesCompat.getFont(c, cus.getNormalFont())
-                : Typeface.SANS_SERIF;
+        Typeface font = cus.getNormalFont() != null ? sFonts.get(cus.getNormalFont()) : null;
+        return font != null ? font : FALLBACK_NORMAL_FONT;
+    }
+
+    /**
+     * Starts loading the custom fonts which haven't been loaded yet: font files are read on a
+     * background thread and downloadable fonts are requested from their provider. Meanwhile
+     * {@link #boldFont} and {@link #normalFont} return the system fonts.
+     *
+     * @param onLoaded called once on the main thread, when all of the fonts have been loaded or
+     *                 have failed, so that they can be applied at once
+     * @return true if there's nothing to load, in which case onLoaded won't be called
+     */
+    @MainThread
+    public static boolean loadFonts(
+            @NonNull Context c, @NonNull FontCustomiser cus, @NonNull Runnable onLoaded) {
+        Integer bold = cus.getBoldFont(), normal = cus.getNormalFont();
+        boolean loadBold = bold != null && !sFonts.containsKey(bold);
+        boolean loadNormal = normal != null && !normal.equals(bold) && !sFonts.containsKey(normal);
+        if (!loadBold && !loadNormal) return true;
+
+        int[] remaining = {(loadBold ? 1 : 0) + (loadNormal ? 1 : 0)};
+        Runnable countDown = () -> {
+            if (--remaining[0] == 0) onLoaded.run();
+        };
+        Context app = c.getApplicationContext();
+        if (loadBold) requestFont(app, bold, countDown);
+        if (loadNormal) requestFont(app, normal, countDown);
+        return false;
+    }
+
+    private static void requestFont(@NonNull Context c, @FontRes int fontRes,
+                                    @NonNull Runnable listener) {
+        ArrayList<Runnable> listeners = sPendingFonts.get(fontRes);
+        if (listeners != null) {
+            listeners.add(listener);
+            return;
+        }
+        listeners = new ArrayList<>();
+        listeners.add(listener);
+        sPendingFonts.put(fontRes, listeners);
+
+        Handler handler = new Handler(Looper.getMainLooper());
+        long start = System.nanoTime();
+        ResourcesCompat.FontCallback callback = new ResourcesCompat.FontCallback() {
+            @Override
+            public void onFontRetrieved(@NonNull Typeface typeface) {
+                onFontRequestFinished(fontRes, typeface, start);
+            }
+
+            @Override
+            public void onFontRetrievalFailed(int reason) {
+                onFontRequestFinished(fontRes, null, start);
+            }
+        };
+        McdtpPrewarm.executor().execute(() -> {
+            try {
+                ResourcesCompat.getFont(c, fontRes, callback, handler);
+            } catch (Resources.NotFoundException e) {
+                handler.post(() -> onFontRequestFinished(fontRes, null, start));
+            }
+        });
+    }
+
+    private static void onFontRequestFinished(
+            @FontRes int fontRes, @Nullable Typeface typeface, long start) {
+        if (typeface != null) {
+            sFonts.put(fontRes, typeface);
+            PickerMetrics metrics = McdtpMetrics.getGlobal();
+            if (metrics != null) metrics.onFontLoaded(System.nanoTime() - start);
+        }
+        ArrayList<Runnable> listeners = sPendingFonts.remove(fontRes);
+        if (listeners != null) for (Runnable listener : listeners) listener.run();
+    }
+
+    /**
+     * Loads a custom font into the cache on the current thread, which must not be the main one.
+     */
+    static void loadFontNow(@NonNull Context c, @FontRes int fontRes) {
+        if (sFonts.containsKey(fontRes)) return;
+        PickerMetrics metrics = McdtpMetrics.getGlobal();
+        long start = metrics != null ? System.nanoTime() : 0L;
+        Typeface font = ResourcesCompat.getFont(c, fontRes);
+        if (font == null) return;
+        sFonts.put(fontRes, font);
+        if (metrics != null) metrics.onFontLoaded(System.nanoTime() - start);
     }
 
     public static boolean night(Context c) {
@@ -100,26 +208,14 @@ public class McdtpUtils {
                 == Configuration.UI_MODE_NIGHT_YES;
     }
 
-    @SuppressWarnings("unchecked")
     public static Class<? extends Calendar> createCalendarType(String name) {
-        try {
-            return (Class<? extends Calendar>) Class.forName(name);
-        } catch (ClassNotFoundException e) {
-            return GregorianCalendar.class;
-        }
+        return CalendarFactory.typeOf(name);
     }
 
     @NonNull
     public static <CAL extends Calendar> CAL createCalendar(
             Class<CAL> type, @Nullable TimeZone tz) {
-        try {
-            CAL ins = type.newInstance();
-            if (tz != null) ins.setTimeZone(tz);
-            return ins;
-        } catch (IllegalAccessException | InstantiationException e) {
-            //noinspection unchecked
-            return (CAL) new GregorianCalendar();
-        }
+        return CalendarFactory.create(type, tz);
     }
 
     public static <CAL extends Calendar> CAL createCalendar(
@@ -127,20 +223,47 @@ public class McdtpUtils {
         return createCalendar(type, null);
     }
 
+    /**
+     * @return a copy of the date format symbols which the caller may modify
+     */
     public static DateFormatSymbols localSymbols(
             Context c, Class<? extends Calendar> calendarType, Locale locale) {
-        DateFormatSymbols symbols = DateFormatSymbols.getInstance(locale);
+        return (DateFormatSymbols) sharedSymbols(c, calendarType, locale).clone();
+    }
+
+    /**
+     * The date format symbols of a calendar type in a locale, which are loaded only once.
+     * The returned instance is shared and must not be modified; use
+     * {@link #localSymbols(Context, Class, Locale)} for a private copy.
+     */
+    @NonNull
+    public static DateFormatSymbols sharedSymbols(
+            Context c, Class<? extends Calendar> calendarType, Locale locale) {
+        Resources res = c.getResources();
+        SymbolsKey key = new SymbolsKey(
+                calendarType, locale, res.getConfiguration().getLocales().get(0));
+        DateFormatSymbols symbols = sSymbols.get(key);
+        McdtpMetrics.cacheLookup(PickerMetrics.Cache.SYMBOLS, symbols != null);
+        if (symbols != null) return symbols;
+
+        symbols = DateFormatSymbols.getInstance(locale);
         switch (calendarType.getSimpleName()) {
             case "PersianCalendar", "HumanistIranianCalendar", "ImperialIranianCalendar" -> {
-                symbols.setMonths(c.getResources().getStringArray(R.array.persianMonths));
-                symbols.setShortMonths(c.getResources().getStringArray(R.array.shortPersianMonths));
+                symbols.setMonths(res.getStringArray(R.array.persianMonths));
+                symbols.setShortMonths(res.getStringArray(R.array.shortPersianMonths));
             }
             case "IndianCalendar" -> {
-                symbols.setMonths(c.getResources().getStringArray(R.array.indianMonths));
-                symbols.setShortMonths(c.getResources().getStringArray(R.array.shortIndianMonths));
+                symbols.setMonths(res.getStringArray(R.array.indianMonths));
+                symbols.setShortMonths(res.getStringArray(R.array.shortIndianMonths));
             }
         }
-        return symbols;
+        DateFormatSymbols previous = sSymbols.putIfAbsent(key, symbols);
+        return previous != null ? previous : symbols;
+    }
+
+    /** Forgets the loaded date format symbols, e.g. after the configuration has changed. */
+    public static void clearSymbolsCache() {
+        sSymbols.clear();
     }
 
     public static DateFormatSymbols localSymbols(
@@ -150,7 +273,7 @@ public class McdtpUtils {
 
     public static <CAL extends Calendar> String accessibilityDate(Context c, CAL calendar) {
         return calendar.get(Calendar.DAY_OF_MONTH) + " " +
-                McdtpUtils.localSymbols(c, calendar.getClass())
+                sharedSymbols(c, calendar.getClass(), Locale.getDefault())
                         .getMonths()[calendar.get(Calendar.MONTH)]
                 + " " + calendar.get(Calendar.YEAR);
     }
@@ -174,4 +297,28 @@ public class McdtpUtils {
         else vib.vibrate(mDur);
         mLastVibrate = now;
     }
+
+    private static final class SymbolsKey {
+        private final Class<? extends Calendar> mCalendarType;
+        private final Locale mLocale;
+        private final Locale mResourcesLocale;
+
+        SymbolsKey(Class<? extends Calendar> calendarType, Locale locale, Locale resourcesLocale) {
+            mCalendarType = calendarType;
+            mLocale = locale;
+            mResourcesLocale = resourcesLocale;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SymbolsKey other)) return false;
+            return mCalendarType == other.mCalendarType && mLocale.equals(other.mLocale)
+                    && Objects.equals(mResourcesLocale, other.mResourcesLocale);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mCalendarType, mLocale, mResourcesLocale);
+        }
+    }
 }
@@ -0,0 +1,119 @@
+package ir.mahdiparastesh.mcdtp;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.media.AudioManager;
+import android.os.Build;
+import android.os.SystemClock;
+import android.os.VibrationEffect;
+import android.os.Vibrator;
+import android.os.VibratorManager;
+import android.view.HapticFeedbackConstants;
+import android.view.View;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+/**
+ * The ticks of a picker, created once per picker. The vibrator and the effect are looked up when
+ * it's created and the ringer mode is followed by a receiver between {@link #start()} and
+ * {@link #stop()}, so a tick while dragging only checks a few fields before the vibrator is
+ * called, which doesn't wait for the vibration. Everything is called on the main thread.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+@MainThread
+public final class PickerHaptics {
+    private static final long DURATION = 50L;
+    /** Ticks of the same gesture closer than this are skipped */
+    private static final long MIN_TICK_INTERVAL = 125L;
+
+    private final Context mContext;
+    @Nullable
+    private final Vibrator mVibrator;
+    @Nullable
+    private final VibrationEffect mEffect;
+    @Nullable
+    private View mFeedbackView;
+
+    private BroadcastReceiver mRingerReceiver;
+    private boolean mSilent = false;
+    private boolean mTicked = false;
+    private long mLastTick;
+
+    public PickerHaptics(@NonNull Context c) {
+        mContext = c.getApplicationContext();
+        Vibrator vib;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S)
+            vib = ((VibratorManager) c.getSystemService(Context.VIBRATOR_MANAGER_SERVICE))
+                    .getDefaultVibrator();
+        else vib = (Vibrator) c.getSystemService(Context.VIBRATOR_SERVICE);
+        mVibrator = vib != null && vib.hasVibrator() ? vib : null;
+        mEffect = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                ? VibrationEffect.createOneShot(DURATION, VibrationEffect.DEFAULT_AMPLITUDE)
+                : null;
+    }
+
+    /**
+     * Performs the ticks as the haptic feedback of the given view, which follows the touch
+     * feedback setting of the system instead of the ringer mode, or vibrates if it's null.
+     * The view is forgotten in {@link #stop()}.
+     */
+    public void useSystemFeedback(@Nullable View view) {
+        mFeedbackView = view;
+    }
+
+    /** Starts following the ringer mode; must be balanced with {@link #stop()}. */
+    public void start() {
+        if (mRingerReceiver != null) return;
+        mRingerReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                mSilent = intent.getIntExtra(AudioManager.EXTRA_RINGER_MODE, -1)
+                        == AudioManager.RINGER_MODE_SILENT;
+            }
+        };
+        // The broadcast is sticky, so its latest value is returned at once.
+        Intent sticky = ContextCompat.registerReceiver(mContext, mRingerReceiver,
+                new IntentFilter(AudioManager.RINGER_MODE_CHANGED_ACTION),
+                ContextCompat.RECEIVER_NOT_EXPORTED);
+        if (sticky != null) mRingerReceiver.onReceive(mContext, sticky);
+        else mSilent = ((AudioManager) mContext.getSystemService(Context.AUDIO_SERVICE))
+                .getRingerMode() == AudioManager.RINGER_MODE_SILENT;
+    }
+
+    public void stop() {
+        mFeedbackView = null;
+        if (mRingerReceiver == null) return;
+        mContext.unregisterReceiver(mRingerReceiver);
+        mRingerReceiver = null;
+    }
+
+    /** The next tick won't be skipped because of the ticks of the previous gesture. */
+    public void startGesture() {
+        mTicked = false;
+    }
+
+    public void tick() {
+        long now = SystemClock.uptimeMillis();
+        if (mTicked && now - mLastTick < MIN_TICK_INTERVAL) return;
+
+        if (mFeedbackView != null) {
+            mFeedbackView.performHapticFeedback(HapticFeedbackConstants.CLOCK_TICK);
+        } else {
+            if (mSilent || mVibrator == null) return;
+            vibrate();
+        }
+        mTicked = true;
+        mLastTick = now;
+    }
+
+    @SuppressWarnings("DataFlowIssue")
+    private void vibrate() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) mVibrator.vibrate(mEffect);
+        else mVibrator.vibrate(DURATION);
+    }
+}
@@ -0,0 +1,57 @@
+package ir.mahdiparastesh.mcdtp;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Receives timings of the pickers, e.g. to forward them to a monitoring service. Set it for a
+ * single dialog with setPickerMetrics(), or for all pickers with {@link McdtpMetrics#setGlobal}.
+ * <p>
+ * Everything is called on the main thread, except for cache lookups which may happen on the
+ * prewarming thread; the callbacks should only record the values. Durations are in nanoseconds.
+ * When no listener is installed, the pickers don't measure anything.
+ */
+@SuppressWarnings("unused")
+public interface PickerMetrics {
+
+    enum Picker {DATE, TIME}
+
+    enum Cache {
+        /** The instance of a calendar type which isn't registered, cloned by CalendarFactory */
+        PROTOTYPE,
+        /** Date format symbols of a calendar type and locale */
+        SYMBOLS,
+        /** LocalNumerals of a locale */
+        NUMERALS
+    }
+
+    /** From the creation of the dialog until its first frame is about to be drawn */
+    default void onFirstFrame(@NonNull Picker picker, long durationNanos) {
+    }
+
+    default void onCreateView(@NonNull Picker picker, long durationNanos) {
+    }
+
+    /** Binding a month of the day picker to its view */
+    default void onMonthBound(long durationNanos) {
+    }
+
+    /** A single question to the DateRangeLimiter or the TimepointLimiter */
+    default void onLimiterQuery(@NonNull Picker picker, long durationNanos) {
+    }
+
+    /** Loading a custom font; like caches, only reported to the global listener. */
+    default void onFontLoaded(long durationNanos) {
+    }
+
+    /** A calendar made by CalendarFactory; like caches, only reported to the global listener. */
+    default void onCalendarCreated() {
+    }
+
+    /** Caches are shared by the whole process, so they're only reported to the global listener. */
+    default void onCacheLookup(@NonNull Cache cache, boolean hit) {
+    }
+
+    /** From a move of the finger on the dial until the selection has been updated */
+    default void onDragUpdate(long latencyNanos) {
+    }
+}
@@ -0,0 +1,183 @@
+package ir.mahdiparastesh.mcdtp;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Typeface;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+import androidx.annotation.StringRes;
+import androidx.core.content.ContextCompat;
+
+/**
+ * The colours, dimensions, radius multipliers and fonts of a picker, resolved from its theme and
+ * resources once when the picker is created, so that creating its views (e.g. every MonthView
+ * while scrolling) only copies fields. It's resolved again when the configuration changes.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class PickerTheme implements Cloneable {
+    public final boolean night;
+
+    // Colours of the Material theme
+    @ColorInt
+    public final int colorOnSurface;
+    @ColorInt
+    public final int colorPrimary;
+    @ColorInt
+    public final int colorPrimaryContainer;
+    @ColorInt
+    public final int colorOnPrimaryContainer;
+    @ColorInt
+    public final int colorPrimaryVariant;
+
+    // Colours of the library
+    @ColorInt
+    public final int disabledTextColor;
+    @ColorInt
+    public final int highlightedTextColor;
+    /** The face of the clock */
+    @ColorInt
+    public final int circleColor;
+    @ColorInt
+    public final int amPmUnselectedColor;
+    /** The numbers of the clock */
+    @ColorInt
+    public final int numbersTextColor;
+    @ColorInt
+    public final int selectedNumberTextColor;
+    public final int selectedAlpha;
+
+    // Dimensions of the date picker, in pixels
+    public final int dayNumberSize;
+    public final int monthLabelSize;
+    public final int monthDayLabelTextSize;
+    public final int monthHeaderSize;
+    public final int monthHeaderSizeV2;
+    public final int daySelectedCircleRadius;
+    public final int daySelectedCircleRadiusV2;
+    public final int dayHighlightCircleRadius;
+    public final int dayHighlightCircleMargin;
+    public final int dateAnimatorHeight;
+    public final int dateAnimatorHeightV2;
+    public final int dateAnimatorPaddingV2;
+    public final int yearLabelHeight;
+
+    // Multipliers of the radius of the clock
+    public final float circleRadiusMultiplier;
+    public final float circleRadiusMultiplier24HourMode;
+    public final float amPmCircleRadiusMultiplier;
+    public final float numbersRadiusMultiplierNormal;
+    public final float numbersRadiusMultiplierInner;
+    public final float numbersRadiusMultiplierOuter;
+    public final float textSizeMultiplierNormal;
+    public final float textSizeMultiplierInner;
+    public final float textSizeMultiplierOuter;
+    public final float textSizeMultiplierInnerV2;
+    public final float textSizeMultiplierOuterV2;
+    public final float selectionRadiusMultiplier;
+
+    // Only replaced in copies made by withFonts()
+    private Typeface mBoldFont;
+    private Typeface mNormalFont;
+
+    /**
+     * @param c a context with the theme of the picker
+     */
+    public PickerTheme(@NonNull Context c, @NonNull FontCustomiser cus) {
+        Resources res = c.getResources();
+        night = McdtpUtils.night(c);
+
+        colorOnSurface = McdtpUtils.themeColor(c,
+                com.google.android.material.R.attr.colorOnSurface);
+        colorPrimary = McdtpUtils.themeColor(c,
+                com.google.android.material.R.attr.colorPrimary);
+        colorPrimaryContainer = McdtpUtils.themeColor(c,
+                com.google.android.material.R.attr.colorPrimaryContainer);
+        colorOnPrimaryContainer = McdtpUtils.themeColor(c,
+                com.google.android.material.R.attr.colorOnPrimaryContainer);
+        colorPrimaryVariant = McdtpUtils.themeColor(c,
+                com.google.android.material.R.attr.colorPrimaryVariant);
+
+        disabledTextColor = ContextCompat.getColor(c, R.color.date_picker_text_disabled);
+        highlightedTextColor = ContextCompat.getColor(c, R.color.date_picker_text_highlighted);
+        circleColor = ContextCompat.getColor(c,
+                night ? R.color.circle_background_dark_theme : R.color.circle_color);
+        amPmUnselectedColor = ContextCompat.getColor(c,
+                night ? R.color.circle_background_dark_theme : android.R.color.white);
+        numbersTextColor = ContextCompat.getColor(c,
+                night ? android.R.color.white : R.color.numbers_text_color);
+        selectedNumberTextColor = ContextCompat.getColor(c, android.R.color.white);
+        selectedAlpha = night ? McdtpUtils.SELECTED_ALPHA_THEME_DARK : McdtpUtils.SELECTED_ALPHA;
+
+        dayNumberSize = res.getDimensionPixelSize(R.dimen.day_number_size);
+        monthLabelSize = res.getDimensionPixelSize(R.dimen.month_label_size);
+        monthDayLabelTextSize = res.getDimensionPixelSize(R.dimen.month_day_label_text_size);
+        monthHeaderSize = res.getDimensionPixelOffset(R.dimen.month_list_item_header_height);
+        monthHeaderSizeV2 = res.getDimensionPixelOffset(R.dimen.month_list_item_header_height_v2);
+        daySelectedCircleRadius =
+                res.getDimensionPixelSize(R.dimen.day_number_select_circle_radius);
+        daySelectedCircleRadiusV2 =
+                res.getDimensionPixelSize(R.dimen.day_number_select_circle_radius_v2);
+        dayHighlightCircleRadius = res.getDimensionPixelSize(R.dimen.day_highlight_circle_radius);
+        dayHighlightCircleMargin = res.getDimensionPixelSize(R.dimen.day_highlight_circle_margin);
+        dateAnimatorHeight =
+                res.getDimensionPixelOffset(R.dimen.date_picker_view_animator_height);
+        dateAnimatorHeightV2 =
+                res.getDimensionPixelOffset(R.dimen.date_picker_view_animator_height_v2);
+        dateAnimatorPaddingV2 =
+                res.getDimensionPixelSize(R.dimen.date_picker_view_animator_padding_v2);
+        yearLabelHeight = res.getDimensionPixelOffset(R.dimen.year_label_height);
+
+        circleRadiusMultiplier = multiplier(res, R.string.circle_radius_multiplier);
+        circleRadiusMultiplier24HourMode =
+                multiplier(res, R.string.circle_radius_multiplier_24HourMode);
+        amPmCircleRadiusMultiplier = multiplier(res, R.string.ampm_circle_radius_multiplier);
+        numbersRadiusMultiplierNormal =
+                multiplier(res, R.string.numbers_radius_multiplier_normal);
+        numbersRadiusMultiplierInner = multiplier(res, R.string.numbers_radius_multiplier_inner);
+        numbersRadiusMultiplierOuter = multiplier(res, R.string.numbers_radius_multiplier_outer);
+        textSizeMultiplierNormal = multiplier(res, R.string.text_size_multiplier_normal);
+        textSizeMultiplierInner = multiplier(res, R.string.text_size_multiplier_inner);
+        textSizeMultiplierOuter = multiplier(res, R.string.text_size_multiplier_outer);
+        textSizeMultiplierInnerV2 = multiplier(res, R.string.text_size_multiplier_inner_v2);
+        textSizeMultiplierOuterV2 = multiplier(res, R.string.text_size_multiplier_outer_v2);
+        selectionRadiusMultiplier = multiplier(res, R.string.selection_radius_multiplier);
+
+        mBoldFont = McdtpUtils.boldFont(c, cus);
+        mNormalFont = McdtpUtils.normalFont(c, cus);
+    }
+
+    private static float multiplier(@NonNull Resources res, @StringRes int id) {
+        return Float.parseFloat(res.getString(id));
+    }
+
+    @NonNull
+    public Typeface getBoldFont() {
+        return mBoldFont;
+    }
+
+    @NonNull
+    public Typeface getNormalFont() {
+        return mNormalFont;
+    }
+
+    /**
+     * @return a copy of this theme with the fonts which have been loaded since it was resolved,
+     * or this theme itself if they haven't changed.
+     * @see McdtpUtils#loadFonts(Context, FontCustomiser, Runnable)
+     */
+    @NonNull
+    public PickerTheme withFonts(@NonNull Context c, @NonNull FontCustomiser cus) {
+        Typeface bold = McdtpUtils.boldFont(c, cus), normal = McdtpUtils.normalFont(c, cus);
+        if (bold == mBoldFont && normal == mNormalFont) return this;
+        PickerTheme theme;
+        try {
+            theme = (PickerTheme) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+        theme.mBoldFont = bold;
+        theme.mNormalFont = normal;
+        return theme;
+    }
+}
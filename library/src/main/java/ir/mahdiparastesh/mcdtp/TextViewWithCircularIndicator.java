@@ -8,6 +8,7 @@ import android.graphics.Paint.Align;
 import android.graphics.Paint.Style;
 import android.util.AttributeSet;
 
+import androidx.annotation.ColorInt;
 import androidx.annotation.NonNull;
 import androidx.appcompat.widget.AppCompatTextView;
 
@@ -30,10 +31,13 @@ public class TextViewWithCircularIndicator extends AppCompatTextView {
     private void init() {
         mCirclePaint.setFakeBoldText(true);
         mCirclePaint.setAntiAlias(true);
-        mCirclePaint.setColor(McdtpUtils.themeColor(getContext(),
-                com.google.android.material.R.attr.colorPrimaryContainer));
         mCirclePaint.setTextAlign(Align.CENTER);
         mCirclePaint.setStyle(Style.FILL);
+    }
+
+    /** Usually {@link PickerTheme#colorPrimaryContainer} */
+    public void setIndicatorColor(@ColorInt int color) {
+        mCirclePaint.setColor(color);
         mCirclePaint.setAlpha(SELECTED_CIRCLE_ALPHA);
     }
 
@@ -3,9 +3,15 @@ package ir.mahdiparastesh.mcdtp.date;
 import android.icu.util.Calendar;
 import android.icu.util.TimeZone;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
 import java.util.Locale;
 
 import ir.mahdiparastesh.mcdtp.FontCustomiser;
+import ir.mahdiparastesh.mcdtp.McdtpMetrics;
+import ir.mahdiparastesh.mcdtp.PickerMetrics;
+import ir.mahdiparastesh.mcdtp.PickerTheme;
 
 public interface DatePickerController<CAL extends Calendar> extends FontCustomiser {
 
@@ -45,4 +51,18 @@ public interface DatePickerController<CAL extends Calendar> extends FontCustomis
     DatePickerDialog.ScrollOrientation getScrollOrientation();
 
     Class<CAL> getCalendarType();
+
+    /** Available once the views of the picker are being created */
+    @NonNull
+    PickerTheme getPickerTheme();
+
+    @Nullable
+    default PickerMetrics getPickerMetrics() {
+        return McdtpMetrics.getGlobal();
+    }
+
+    @Nullable
+    default ScrollJankReporter getScrollJankReporter() {
+        return null;
+    }
 }
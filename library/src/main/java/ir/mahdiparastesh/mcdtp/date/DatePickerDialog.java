@@ -23,10 +23,12 @@ import android.view.animation.AlphaAnimation;
 import android.view.animation.Animation;
 import android.widget.Button;
 import android.widget.LinearLayout;
+import android.widget.Space;
 import android.widget.TextView;
 
 import androidx.annotation.FontRes;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatDialogFragment;
 import androidx.core.content.ContextCompat;
 
@@ -35,7 +37,13 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Locale;
 
+import ir.mahdiparastesh.mcdtp.CalendarFactory;
+import ir.mahdiparastesh.mcdtp.McdtpMetrics;
+import ir.mahdiparastesh.mcdtp.McdtpTrace;
 import ir.mahdiparastesh.mcdtp.McdtpUtils;
+import ir.mahdiparastesh.mcdtp.PickerHaptics;
+import ir.mahdiparastesh.mcdtp.PickerMetrics;
+import ir.mahdiparastesh.mcdtp.PickerTheme;
 import ir.mahdiparastesh.mcdtp.R;
 
 @SuppressWarnings("unchecked")
@@ -59,6 +67,7 @@ public class DatePickerDialog<CAL extends Calendar> extends AppCompatDialogFragm
     private static final String KEY_LIST_POSITION_OFFSET = "list_position_offset";
     private static final String KEY_HIGHLIGHTED_DAYS = "highlighted_days";
     private static final String KEY_VIBRATE = "vibrate";
+    private static final String KEY_SYSTEM_HAPTICS = "system_haptics";
     private static final String KEY_DISMISS = "dismiss";
     private static final String KEY_AUTO_DISMISS = "auto_dismiss";
     private static final String KEY_DEFAULT_VIEW = "default_view";
@@ -97,6 +106,7 @@ public class DatePickerDialog<CAL extends Calendar> extends AppCompatDialogFragm
     private TextView mSelectedDayTextView;
     private TextView mYearView;
     private DayPickerGroup<CAL> mDayPickerView;
+    // Created on the first switch to the years, see getYearPickerView()
     private YearPickerView<CAL> mYearPickerView;
 
     private int mCurrentView = UNINITIALIZED;
@@ -105,6 +115,7 @@ public class DatePickerDialog<CAL extends Calendar> extends AppCompatDialogFragm
     private String mTitle;
     private HashSet<CAL> highlightedDays = new HashSet<>();
     private boolean mVibrate = true;
+    private boolean mSystemHaptics = false;
     private boolean mDismissOnPause = false;
     private boolean mAutoDismiss = false;
     private int mDefaultView = MONTH_AND_DAY_VIEW;
@@ -112,6 +123,12 @@ public class DatePickerDialog<CAL extends Calendar> extends AppCompatDialogFragm
     private ScrollOrientation mScrollOrientation;
     private DefaultDateRangeLimiter<CAL> mDefaultLimiter;
     private DateRangeLimiter<CAL> mDateRangeLimiter;
+    private PickerMetrics mMetrics;
+    private ScrollJankReporter mJankReporter;
+    private PickerTheme mTheme;
+    private PickerHaptics mHaptics;
+    // When the dialog was created, until its first frame has been reported
+    private long mCreatedAt = 0L;
     @FontRes
     private Integer mBoldFontRes = null;
     @FontRes
@@ -182,14 +199,16 @@ public class DatePickerDialog<CAL extends Calendar> extends AppCompatDialogFragm
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        if (getPickerMetrics() != null) mCreatedAt = System.nanoTime();
         final Activity activity = requireActivity();
         activity.getWindow().setSoftInputMode(
                 WindowManager.LayoutParams.SOFT_INPUT_STATE_ALWAYS_HIDDEN);
         setStyle(AppCompatDialogFragment.STYLE_NO_TITLE, 0);
         mCurrentView = UNINITIALIZED;
+        mHaptics = new PickerHaptics(activity);
 
         if (savedInstanceState != null) {
-            mCalendarType = McdtpUtils.createCalendarType(savedInstanceState.getString(KEY_CALENDAR_TYPE));
+            mCalendarType = CalendarFactory.typeOf(savedInstanceState.getString(KEY_CALENDAR_TYPE));
             mCalendar = (CAL) McdtpUtils.createCalendar(mCalendarType);
             mCalendar.set(Calendar.YEAR, savedInstanceState.getInt(KEY_SELECTED_YEAR));
             mCalendar.set(Calendar.MONTH, savedInstanceState.getInt(KEY_SELECTED_MONTH));
@@ -210,7 +229,7 @@ public class DatePickerDialog<CAL extends Calendar> extends AppCompatDialogFragm
     @Override
     public void onSaveInstanceState(@NonNull Bundle outState) {
         super.onSaveInstanceState(outState);
-        outState.putString(KEY_CALENDAR_TYPE, mCalendarType.getName());
+        outState.putString(KEY_CALENDAR_TYPE, CalendarFactory.idOf(mCalendarType));
         outState.putInt(KEY_SELECTED_YEAR, mCalendar.get(Calendar.YEAR));
         outState.putInt(KEY_SELECTED_MONTH, mCalendar.get(Calendar.MONTH));
         outState.putInt(KEY_SELECTED_DAY, mCalendar.get(Calendar.DAY_OF_MONTH));
@@ -226,6 +245,7 @@ public class DatePickerDialog<CAL extends Calendar> extends AppCompatDialogFragm
         outState.putInt(KEY_LIST_POSITION, listPosition);
         outState.putSerializable(KEY_HIGHLIGHTED_DAYS, highlightedDays);
         outState.putBoolean(KEY_VIBRATE, mVibrate);
+        outState.putBoolean(KEY_SYSTEM_HAPTICS, mSystemHaptics);
         outState.putBoolean(KEY_DISMISS, mDismissOnPause);
         outState.putBoolean(KEY_AUTO_DISMISS, mAutoDismiss);
         outState.putInt(KEY_DEFAULT_VIEW, mDefaultView);
@@ -242,6 +262,18 @@ public class DatePickerDialog<CAL extends Calendar> extends AppCompatDialogFragm
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container,
                              Bundle savedInstanceState) {
+        boolean traced = McdtpTrace.begin("mcdtp:DatePickerDialog.onCreateView");
+        try {
+            return createView(inflater, container, savedInstanceState);
+        } finally {
+            McdtpTrace.end(traced);
+        }
+    }
+
+    private View createView(@NonNull LayoutInflater inflater, ViewGroup container,
+                            Bundle savedInstanceState) {
+        PickerMetrics metrics = getPickerMetrics();
+        long start = McdtpMetrics.start(metrics);
         final Activity activity = requireActivity();
         int listPosition = -1;
         int listPositionOffset = 0;
@@ -257,6 +289,7 @@ public class DatePickerDialog<CAL extends Calendar> extends AppCompatDialogFragm
             listPositionOffset = savedInstanceState.getInt(KEY_LIST_POSITION_OFFSET);
             highlightedDays = (HashSet<CAL>) savedInstanceState.getSerializable(KEY_HIGHLIGHTED_DAYS);
             mVibrate = savedInstanceState.getBoolean(KEY_VIBRATE);
+            mSystemHaptics = savedInstanceState.getBoolean(KEY_SYSTEM_HAPTICS);
             mDismissOnPause = savedInstanceState.getBoolean(KEY_DISMISS);
             mAutoDismiss = savedInstanceState.getBoolean(KEY_AUTO_DISMISS);
             mTitle = savedInstanceState.getString(KEY_TITLE);
@@ -274,12 +307,13 @@ public class DatePickerDialog<CAL extends Calendar> extends AppCompatDialogFragm
         }
 
         mDefaultLimiter.setController(this);
+        mTheme = new PickerTheme(activity, this);
 
         int viewRes = mVersion == Version.VERSION_1
                 ? R.layout.date_picker_dialog : R.layout.date_picker_dialog_v2;
         View view = inflater.inflate(viewRes, container, false);
         // All options have been set at this point: round the initial selection if necessary
-        mCalendar = mDateRangeLimiter.setToNearestDate(mCalendar);
+        mCalendar = setToNearestDate(mCalendar);
 
         mDatePickerHeaderView = view.findViewById(R.id.date_picker_header);
         mMonthAndDayView = view.findViewById(R.id.date_picker_month_and_day);
@@ -290,7 +324,7 @@ public class DatePickerDialog<CAL extends Calendar> extends AppCompatDialogFragm
         mYearView.setOnClickListener(this);
 
         mDayPickerView = new DayPickerGroup<>(activity, this);
-        mYearPickerView = new YearPickerView<>(activity, this);
+        mYearPickerView = null;
 
         Resources res = getResources();
         mDayPickerDescription = res.getString(R.string.day_picker_description);
@@ -298,20 +332,15 @@ public class DatePickerDialog<CAL extends Calendar> extends AppCompatDialogFragm
         mYearPickerDescription = res.getString(R.string.year_picker_description);
         mSelectYear = res.getString(R.string.select_year);
 
-        Typeface normalFont = McdtpUtils.normalFont(activity, this);
-        Typeface boldFont = McdtpUtils.boldFont(activity, this);
-        if (mDatePickerHeaderView != null) mDatePickerHeaderView.setTypeface(normalFont);
-        if (mSelectedMonthTextView != null) mSelectedMonthTextView.setTypeface(boldFont);
-        mSelectedDayTextView.setTypeface(boldFont);
-        mYearView.setTypeface(mVersion == Version.VERSION_1 ? boldFont : normalFont);
-
         int bgColorResource = R.color.date_picker_view_animator;
         int bgColor = ContextCompat.getColor(activity, bgColorResource);
         view.setBackgroundColor(bgColor);
 
         mAnimator = view.findViewById(R.id.animator);
         mAnimator.addView(mDayPickerView);
-        mAnimator.addView(mYearPickerView);
+        mAnimator.addView(new Space(activity), new ViewGroup.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, mVersion == Version.VERSION_1
+                ? mTheme.dateAnimatorHeight : mTheme.dateAnimatorHeightV2));
         mAnimator.setCalendar(mCalendar);
         Animation animation = new AlphaAnimation(0.0f, 1.0f);
         animation.setDuration(ANIMATION_DURATION);
@@ -326,16 +355,18 @@ public class DatePickerDialog<CAL extends Calendar> extends AppCompatDialogFragm
             notifyOnDateListener();
             dismiss();
         });
-        okButton.setTypeface(boldFont);
 
         Button cancelButton = view.findViewById(R.id.cancel);
         cancelButton.setOnClickListener(v -> {
             tryVibrate();
             if (getDialog() != null) getDialog().cancel();
         });
-        cancelButton.setTypeface(boldFont);
         cancelButton.setVisibility(isCancelable() ? View.VISIBLE : View.GONE);
 
+        // The system fonts are shown until the custom ones have been loaded.
+        applyFonts(view);
+        McdtpUtils.loadFonts(activity, this, this::onFontsLoaded);
+
         if (getDialog() == null)
             view.findViewById(R.id.done_background).setVisibility(View.GONE);
 
@@ -346,15 +377,61 @@ public class DatePickerDialog<CAL extends Calendar> extends AppCompatDialogFragm
             if (currentView == MONTH_AND_DAY_VIEW)
                 mDayPickerView.postSetSelection(listPosition);
             else if (currentView == YEAR_VIEW)
-                mYearPickerView.postSetSelectionFromTop(listPosition, listPositionOffset);
+                getYearPickerView().postSetSelectionFromTop(listPosition, listPositionOffset);
         }
 
+        if (metrics != null) {
+            metrics.onCreateView(PickerMetrics.Picker.DATE, System.nanoTime() - start);
+            if (mCreatedAt != 0L) {
+                McdtpMetrics.reportFirstFrame(
+                        view, metrics, PickerMetrics.Picker.DATE, mCreatedAt);
+                mCreatedAt = 0L;
+            }
+        }
         return view;
     }
 
+    private void applyFonts(@NonNull View view) {
+        Typeface normalFont = mTheme.getNormalFont();
+        Typeface boldFont = mTheme.getBoldFont();
+        if (mDatePickerHeaderView != null) mDatePickerHeaderView.setTypeface(normalFont);
+        if (mSelectedMonthTextView != null) mSelectedMonthTextView.setTypeface(boldFont);
+        mSelectedDayTextView.setTypeface(boldFont);
+        mYearView.setTypeface(mVersion == Version.VERSION_1 ? boldFont : normalFont);
+        ((Button) view.findViewById(R.id.ok)).setTypeface(boldFont);
+        ((Button) view.findViewById(R.id.cancel)).setTypeface(boldFont);
+    }
+
+    /**
+     * Swaps all the views to the custom fonts within the same frame.
+     */
+    private void onFontsLoaded() {
+        View view = getView();
+        if (view == null) return;
+        mTheme = mTheme.withFonts(view.getContext(), this);
+        applyFonts(view);
+        mDayPickerView.onFontsLoaded();
+        if (mYearPickerView != null) mYearPickerView.onFontsLoaded();
+    }
+
+    /**
+     * Creates the year list on its first use, in place of the placeholder which keeps its size in
+     * the animator, since most pickers are closed without it.
+     */
+    @NonNull
+    private YearPickerView<CAL> getYearPickerView() {
+        if (mYearPickerView == null) {
+            mYearPickerView = new YearPickerView<>(requireActivity(), this);
+            mAnimator.removeViewAt(YEAR_VIEW);
+            mAnimator.addView(mYearPickerView, YEAR_VIEW);
+        }
+        return mYearPickerView;
+    }
+
     @Override
     public void onConfigurationChanged(@NonNull final Configuration newConfig) {
         super.onConfigurationChanged(newConfig);
+        McdtpUtils.clearSymbolsCache();
         ViewGroup viewGroup = (ViewGroup) getView();
         if (viewGroup != null) {
             viewGroup.removeAllViewsInLayout();
@@ -364,12 +441,25 @@ public class DatePickerDialog<CAL extends Calendar> extends AppCompatDialogFragm
         }
     }
 
+    @Override
+    public void onStart() {
+        super.onStart();
+        mHaptics.start();
+        mHaptics.useSystemFeedback(mSystemHaptics ? getView() : null);
+    }
+
     @Override
     public void onPause() {
         super.onPause();
         if (mDismissOnPause) dismiss();
     }
 
+    @Override
+    public void onStop() {
+        super.onStop();
+        mHaptics.stop();
+    }
+
     @Override
     public void onCancel(@NonNull DialogInterface dialog) {
         super.onCancel(dialog);
@@ -423,7 +513,7 @@ public class DatePickerDialog<CAL extends Calendar> extends AppCompatDialogFragm
                         pulseAnimator.setStartDelay(ANIMATION_DELAY);
                         mDelayAnimation = false;
                     }
-                    mYearPickerView.onDateChanged();
+                    getYearPickerView().onDateChanged();
                     if (mCurrentView != viewIndex) {
                         mMonthAndDayView.setSelected(false);
                         mYearView.setSelected(true);
@@ -432,7 +522,7 @@ public class DatePickerDialog<CAL extends Calendar> extends AppCompatDialogFragm
                     }
                     pulseAnimator.start();
                 } else {
-                    mYearPickerView.onDateChanged();
+                    getYearPickerView().onDateChanged();
                     if (mCurrentView != viewIndex) {
                         mMonthAndDayView.setSelected(false);
                         mYearView.setSelected(true);
@@ -479,6 +569,15 @@ public class DatePickerDialog<CAL extends Calendar> extends AppCompatDialogFragm
         mVibrate = vibrate;
     }
 
+    /**
+     * Ticks with the haptic feedback of the system, which follows its touch feedback setting,
+     * instead of vibrating unless the phone is silent.
+     */
+    @SuppressWarnings("unused")
+    public void useSystemHapticFeedback(boolean systemHaptics) {
+        mSystemHaptics = systemHaptics;
+    }
+
     @SuppressWarnings("unused")
     public void dismissOnPause(boolean dismissOnPause) {
         mDismissOnPause = dismissOnPause;
@@ -602,6 +701,41 @@ public class DatePickerDialog<CAL extends Calendar> extends AppCompatDialogFragm
         return (Class<CAL>) mCalendarType;
     }
 
+    /**
+     * Reports the timings of this dialog to the given listener instead of the global one.
+     */
+    @SuppressWarnings("unused")
+    public void setPickerMetrics(@Nullable PickerMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    @Nullable
+    @Override
+    public PickerMetrics getPickerMetrics() {
+        return McdtpMetrics.of(mMetrics);
+    }
+
+    @NonNull
+    @Override
+    public PickerTheme getPickerTheme() {
+        return mTheme;
+    }
+
+    /**
+     * Collects the frame durations of scrolling the months and the years; it must be set before
+     * the picker is shown.
+     */
+    @SuppressWarnings("unused")
+    public void setScrollJankReporter(@Nullable ScrollJankReporter reporter) {
+        mJankReporter = reporter;
+    }
+
+    @Nullable
+    @Override
+    public ScrollJankReporter getScrollJankReporter() {
+        return mJankReporter;
+    }
+
     @SuppressWarnings("unused")
     @Override
     public Integer getBoldFont() {
@@ -689,7 +823,15 @@ public class DatePickerDialog<CAL extends Calendar> extends AppCompatDialogFragm
         int daysInMonth = calendar.getActualMaximum(Calendar.DAY_OF_MONTH);
         if (day > daysInMonth)
             calendar.set(Calendar.DAY_OF_MONTH, daysInMonth);
-        return mDateRangeLimiter.setToNearestDate(calendar);
+        return setToNearestDate(calendar);
+    }
+
+    private CAL setToNearestDate(CAL calendar) {
+        PickerMetrics metrics = getPickerMetrics();
+        long start = McdtpMetrics.start(metrics);
+        CAL nearest = mDateRangeLimiter.setToNearestDate(calendar);
+        McdtpMetrics.limiterQuery(metrics, PickerMetrics.Picker.DATE, start);
+        return nearest;
     }
 
     @Override
@@ -755,7 +897,11 @@ public class DatePickerDialog<CAL extends Calendar> extends AppCompatDialogFragm
 
     @Override
     public boolean isOutOfRange(int year, int month, int day) {
-        return mDateRangeLimiter.isOutOfRange(year, month, day);
+        PickerMetrics metrics = getPickerMetrics();
+        long start = McdtpMetrics.start(metrics);
+        boolean outOfRange = mDateRangeLimiter.isOutOfRange(year, month, day);
+        McdtpMetrics.limiterQuery(metrics, PickerMetrics.Picker.DATE, start);
+        return outOfRange;
     }
 
     @Override
@@ -776,7 +922,7 @@ public class DatePickerDialog<CAL extends Calendar> extends AppCompatDialogFragm
 
     @Override
     public void tryVibrate() {
-        if (mVibrate) McdtpUtils.shake(requireActivity(), null);
+        if (mVibrate) mHaptics.tick();
     }
 
     @Override
@@ -0,0 +1,409 @@
+package ir.mahdiparastesh.mcdtp.date;
+
+import android.content.Context;
+import android.icu.util.Calendar;
+import android.icu.util.TimeZone;
+import android.os.Build;
+import android.util.AttributeSet;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import androidx.annotation.FontRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import java.time.temporal.WeekFields;
+import java.util.HashSet;
+import java.util.Locale;
+
+import ir.mahdiparastesh.mcdtp.McdtpMetrics;
+import ir.mahdiparastesh.mcdtp.McdtpUtils;
+import ir.mahdiparastesh.mcdtp.PickerHaptics;
+import ir.mahdiparastesh.mcdtp.PickerMetrics;
+import ir.mahdiparastesh.mcdtp.PickerTheme;
+import ir.mahdiparastesh.mcdtp.R;
+
+/**
+ * The month and year pickers of DatePickerDialog as a plain view, for showing them inline in
+ * layouts or list rows without a dialog or a fragment.
+ * <p>
+ * Call {@link #initialize(OnDateSelectedListener, Calendar)} first; the version and the scroll
+ * orientation must be set before it, the limits and highlighted days can be changed afterwards.
+ * Calling it again (e.g. when a list row is rebound) only changes the selected date.
+ */
+@SuppressWarnings({"unchecked", "unused", "WeakerAccess"})
+public class DatePickerView<CAL extends Calendar> extends FrameLayout
+        implements DatePickerController<CAL> {
+    private Class<CAL> mCalendarType;
+    private CAL mCalendar;
+    private CAL mScratch;
+    private TimeZone mTimezone;
+    private Locale mLocale = Locale.getDefault();
+    private OnDateSelectedListener mCallBack;
+    private final HashSet<DatePickerDialog.OnDateChangedListener> mListeners = new HashSet<>();
+
+    private DayPickerGroup<CAL> mDayPickerView;
+    private YearPickerView<CAL> mYearPickerView;
+
+    private int mWeekStart;
+    private final HashSet<CAL> highlightedDays = new HashSet<>();
+    private boolean mVibrate = true;
+    private boolean mSystemHaptics = false;
+    private DatePickerDialog.Version mVersion = DatePickerDialog.Version.VERSION_2;
+    private DatePickerDialog.ScrollOrientation mScrollOrientation;
+    private DefaultDateRangeLimiter<CAL> mDefaultLimiter;
+    private DateRangeLimiter<CAL> mDateRangeLimiter;
+    private ScrollJankReporter mJankReporter;
+    private PickerTheme mTheme;
+    private final PickerHaptics mHaptics;
+    @FontRes
+    private Integer mBoldFontRes = null;
+    @FontRes
+    private Integer mNormalFontRes = null;
+
+    public interface OnDateSelectedListener {
+        void onDateSelected(DatePickerView<?> view, int year, int monthOfYear, int dayOfMonth);
+    }
+
+    public DatePickerView(Context context) {
+        this(context, null);
+    }
+
+    public DatePickerView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        mHaptics = new PickerHaptics(context);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mHaptics.start();
+        mHaptics.useSystemFeedback(mSystemHaptics ? this : null);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        mHaptics.stop();
+        super.onDetachedFromWindow();
+    }
+
+    public void initialize(@Nullable OnDateSelectedListener callBack, @NonNull CAL initialSelection) {
+        mCallBack = callBack;
+        if (mDayPickerView != null) {
+            setSelectedDate(initialSelection);
+            return;
+        }
+        mCalendarType = (Class<CAL>) initialSelection.getClass();
+        mCalendar = McdtpUtils.trimToMidnight((CAL) initialSelection.clone());
+        mTimezone = mCalendar.getTimeZone();
+        if (mWeekStart == 0) mWeekStart = mCalendar.getFirstDayOfWeek();
+        if (mScrollOrientation == null)
+            mScrollOrientation = mVersion == DatePickerDialog.Version.VERSION_1
+                    ? DatePickerDialog.ScrollOrientation.VERTICAL
+                    : DatePickerDialog.ScrollOrientation.HORIZONTAL;
+        mDefaultLimiter = new DefaultDateRangeLimiter<>(mCalendarType);
+        mDefaultLimiter.setController(this);
+        if (mDateRangeLimiter == null) mDateRangeLimiter = mDefaultLimiter;
+        mCalendar = setToNearestDate(mCalendar);
+
+        Context context = getContext();
+        mTheme = new PickerTheme(context, this);
+        setBackgroundColor(ContextCompat.getColor(context, R.color.date_picker_view_animator));
+        mDayPickerView = new DayPickerGroup<>(context, this);
+        addView(mDayPickerView);
+        McdtpUtils.loadFonts(context, this, this::onFontsLoaded);
+    }
+
+    private void onFontsLoaded() {
+        mTheme = mTheme.withFonts(getContext(), this);
+        mDayPickerView.onFontsLoaded();
+        if (mYearPickerView != null) mYearPickerView.onFontsLoaded();
+    }
+
+    public void setSelectedDate(@NonNull CAL date) {
+        mCalendar = McdtpUtils.trimToMidnight((CAL) date.clone());
+        mCalendar.setTimeZone(getTimeZone());
+        if (mDayPickerView == null) return;
+        mCalendar = setToNearestDate(mCalendar);
+        updatePickers();
+    }
+
+    public CAL getSelectedDate() {
+        return (CAL) mCalendar.clone();
+    }
+
+    /** Switches between the years and the days of the months. */
+    public void showYearPicker(boolean yearPicker) {
+        if (mDayPickerView == null) return;
+        if (yearPicker) {
+            // Created on the first switch, since most rows are never switched to the years.
+            if (mYearPickerView == null) {
+                mYearPickerView = new YearPickerView<>(getContext(), this);
+                addView(mYearPickerView);
+            }
+            mYearPickerView.onDateChanged();
+        } else mDayPickerView.onDateChanged();
+        if (mYearPickerView != null)
+            mYearPickerView.setVisibility(yearPicker ? View.VISIBLE : View.GONE);
+        mDayPickerView.setVisibility(yearPicker ? View.GONE : View.VISIBLE);
+    }
+
+    public boolean isShowingYearPicker() {
+        return mYearPickerView != null && mYearPickerView.getVisibility() == View.VISIBLE;
+    }
+
+    public void doVibrate(boolean vibrate) {
+        mVibrate = vibrate;
+    }
+
+    /**
+     * Ticks with the haptic feedback of the system, which follows its touch feedback setting,
+     * instead of vibrating unless the phone is silent.
+     */
+    public void useSystemHapticFeedback(boolean systemHaptics) {
+        mSystemHaptics = systemHaptics;
+        if (isAttachedToWindow()) mHaptics.useSystemFeedback(systemHaptics ? this : null);
+    }
+
+    public void setFirstDayOfWeek(int startOfWeek) {
+        if (startOfWeek < Calendar.SUNDAY || startOfWeek > Calendar.SATURDAY) {
+            throw new IllegalArgumentException("Value must be between Calendar.SUNDAY and " +
+                    "Calendar.SATURDAY");
+        }
+        mWeekStart = startOfWeek;
+        if (mDayPickerView != null) mDayPickerView.onChange();
+    }
+
+    public void setYearRange(int startYear, int endYear) {
+        requireLimiter().setYearRange(startYear, endYear);
+        mDayPickerView.onChange();
+    }
+
+    public void setMinDate(CAL calendar) {
+        requireLimiter().setMinDate(calendar);
+        mDayPickerView.onChange();
+    }
+
+    public void setMaxDate(CAL calendar) {
+        requireLimiter().setMaxDate(calendar);
+        mDayPickerView.onChange();
+    }
+
+    public void setSelectableDays(CAL[] selectableDays) {
+        requireLimiter().setSelectableDays(selectableDays);
+        mDayPickerView.onChange();
+    }
+
+    public void setDisabledDays(CAL[] disabledDays) {
+        requireLimiter().setDisabledDays(disabledDays);
+        mDayPickerView.onChange();
+    }
+
+    public void setDateRangeLimiter(DateRangeLimiter<CAL> dateRangeLimiter) {
+        mDateRangeLimiter = dateRangeLimiter;
+        if (mDayPickerView != null) mDayPickerView.onChange();
+    }
+
+    public void setHighlightedDays(CAL[] highlightedDays) {
+        for (CAL highlightedDay : highlightedDays)
+            this.highlightedDays.add(McdtpUtils.trimToMidnight((CAL) highlightedDay.clone()));
+        if (mDayPickerView != null) mDayPickerView.onChange();
+    }
+
+    private DefaultDateRangeLimiter<CAL> requireLimiter() {
+        if (mDefaultLimiter == null)
+            throw new IllegalStateException("DatePickerView must be initialized first");
+        return mDefaultLimiter;
+    }
+
+    public void setVersion(DatePickerDialog.Version version) {
+        mVersion = version;
+    }
+
+    public void setScrollOrientation(DatePickerDialog.ScrollOrientation orientation) {
+        mScrollOrientation = orientation;
+    }
+
+    public void setLocale(Locale locale) {
+        mLocale = locale;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O)
+            mWeekStart = WeekFields.of(mLocale).getFirstDayOfWeek().getValue();
+    }
+
+    public void setBoldFont(@FontRes int fontRes) {
+        mBoldFontRes = fontRes;
+    }
+
+    public void setNormalFont(@FontRes int fontRes) {
+        mNormalFontRes = fontRes;
+    }
+
+    @Override
+    public Integer getBoldFont() {
+        return mBoldFontRes;
+    }
+
+    @Override
+    public Integer getNormalFont() {
+        return mNormalFontRes;
+    }
+
+    // If the newly selected year does not contain the currently selected day number,
+    // change the selected day number to the last day of the selected month.
+    private CAL adjustDayInMonthIfNeeded(CAL calendar) {
+        int day = calendar.get(Calendar.DAY_OF_MONTH);
+        int daysInMonth = calendar.getActualMaximum(Calendar.DAY_OF_MONTH);
+        if (day > daysInMonth)
+            calendar.set(Calendar.DAY_OF_MONTH, daysInMonth);
+        return setToNearestDate(calendar);
+    }
+
+    private CAL setToNearestDate(CAL calendar) {
+        PickerMetrics metrics = getPickerMetrics();
+        long start = McdtpMetrics.start(metrics);
+        CAL nearest = mDateRangeLimiter.setToNearestDate(calendar);
+        McdtpMetrics.limiterQuery(metrics, PickerMetrics.Picker.DATE, start);
+        return nearest;
+    }
+
+    @Override
+    public void onYearSelected(int year) {
+        mCalendar.set(Calendar.YEAR, year);
+        mCalendar = adjustDayInMonthIfNeeded(mCalendar);
+        updatePickers();
+        showYearPicker(false);
+        notifyOnDateListener();
+    }
+
+    @Override
+    public void onDayOfMonthSelected(int year, int month, int day) {
+        mCalendar.set(Calendar.YEAR, year);
+        mCalendar.set(Calendar.MONTH, month);
+        mCalendar.set(Calendar.DAY_OF_MONTH, day);
+        updatePickers();
+        notifyOnDateListener();
+    }
+
+    private void updatePickers() {
+        for (DatePickerDialog.OnDateChangedListener listener : mListeners)
+            listener.onDateChanged();
+    }
+
+    private void notifyOnDateListener() {
+        if (mCallBack != null)
+            mCallBack.onDateSelected(this, mCalendar.get(Calendar.YEAR),
+                    mCalendar.get(Calendar.MONTH), mCalendar.get(Calendar.DAY_OF_MONTH));
+    }
+
+    @Override
+    public void registerOnDateChangedListener(DatePickerDialog.OnDateChangedListener listener) {
+        mListeners.add(listener);
+    }
+
+    @Override
+    public void unregisterOnDateChangedListener(DatePickerDialog.OnDateChangedListener listener) {
+        mListeners.remove(listener);
+    }
+
+    @Override
+    public MonthAdapter.CalendarDay<CAL> getSelectedDay() {
+        return new MonthAdapter.CalendarDay<>(mCalendar, getTimeZone(), getCalendarType());
+    }
+
+    @Override
+    public boolean isHighlighted(int year, int month, int day) {
+        if (highlightedDays.isEmpty()) return false;
+        if (mScratch == null) mScratch = McdtpUtils.createCalendar(mCalendarType, getTimeZone());
+        mScratch.set(Calendar.YEAR, year);
+        mScratch.set(Calendar.MONTH, month);
+        mScratch.set(Calendar.DAY_OF_MONTH, day);
+        McdtpUtils.trimToMidnight(mScratch);
+        return highlightedDays.contains(mScratch);
+    }
+
+    @Override
+    public int getFirstDayOfWeek() {
+        return mWeekStart;
+    }
+
+    @Override
+    public int getMinYear() {
+        return mDateRangeLimiter.getMinYear();
+    }
+
+    @Override
+    public int getMaxYear() {
+        return mDateRangeLimiter.getMaxYear();
+    }
+
+    @Override
+    public CAL getStartDate() {
+        return mDateRangeLimiter.getStartDate();
+    }
+
+    @Override
+    public CAL getEndDate() {
+        return mDateRangeLimiter.getEndDate();
+    }
+
+    @Override
+    public boolean isOutOfRange(int year, int month, int day) {
+        PickerMetrics metrics = getPickerMetrics();
+        long start = McdtpMetrics.start(metrics);
+        boolean outOfRange = mDateRangeLimiter.isOutOfRange(year, month, day);
+        McdtpMetrics.limiterQuery(metrics, PickerMetrics.Picker.DATE, start);
+        return outOfRange;
+    }
+
+    @Override
+    public void tryVibrate() {
+        if (mVibrate) mHaptics.tick();
+    }
+
+    @Override
+    public TimeZone getTimeZone() {
+        return mTimezone == null ? TimeZone.getDefault() : mTimezone;
+    }
+
+    @Override
+    public Locale getLocale() {
+        return mLocale;
+    }
+
+    @Override
+    public DatePickerDialog.Version getVersion() {
+        return mVersion;
+    }
+
+    @Override
+    public DatePickerDialog.ScrollOrientation getScrollOrientation() {
+        return mScrollOrientation;
+    }
+
+    @Override
+    public Class<CAL> getCalendarType() {
+        return mCalendarType;
+    }
+
+    /**
+     * Collects the frame durations of scrolling the months and the years; it must be set before
+     * the picker is initialised.
+     */
+    @SuppressWarnings("unused")
+    public void setScrollJankReporter(@Nullable ScrollJankReporter reporter) {
+        mJankReporter = reporter;
+    }
+
+    @Nullable
+    @Override
+    public ScrollJankReporter getScrollJankReporter() {
+        return mJankReporter;
+    }
+
+    @NonNull
+    @Override
+    public PickerTheme getPickerTheme() {
+        return mTheme;
+    }
+}
@@ -86,6 +86,10 @@ public class DayPickerGroup<CAL extends Calendar> extends ViewGroup
         dayPickerView.onChange();
     }
 
+    void onFontsLoaded() {
+        dayPickerView.onFontsLoaded();
+    }
+
     public void onDateChanged() {
         dayPickerView.onDateChanged();
     }
@@ -128,7 +132,7 @@ public class DayPickerGroup<CAL extends Calendar> extends ViewGroup
 
         final int topMargin = controller.getVersion() == DatePickerDialog.Version.VERSION_1
                 ? 0
-                : getContext().getResources().getDimensionPixelSize(R.dimen.date_picker_view_animator_padding_v2);
+                : controller.getPickerTheme().dateAnimatorPaddingV2;
         final int width = right - left;
         final int height = bottom - top;
         dayPickerView.layout(0, topMargin, width, height);
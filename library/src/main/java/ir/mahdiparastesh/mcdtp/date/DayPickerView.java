@@ -1,6 +1,7 @@
 package ir.mahdiparastesh.mcdtp.date;
 
 import android.content.Context;
+import android.graphics.Canvas;
 import android.icu.util.Calendar;
 import android.util.AttributeSet;
 import android.view.Gravity;
@@ -22,6 +23,7 @@ import ir.mahdiparastesh.mcdtp.date.DatePickerDialog.OnDateChangedListener;
 @SuppressWarnings("unchecked")
 public abstract class DayPickerView<CAL extends Calendar> extends RecyclerView
         implements OnDateChangedListener {
+    private static final Object FONTS_PAYLOAD = new Object();
 
     protected Context mContext;
 
@@ -33,6 +35,7 @@ public abstract class DayPickerView<CAL extends Calendar> extends RecyclerView
 
     private OnPageListener pageListener;
     private DatePickerController<CAL> mController;
+    private ScrollJankReporter.Tracker mJankTracker;
 
     public interface OnPageListener {
         void onPageChanged(int position);
@@ -59,6 +62,18 @@ public abstract class DayPickerView<CAL extends Calendar> extends RecyclerView
         mTempDay = new MonthAdapter.CalendarDay<>(
                 mController.getTimeZone(), mController.getCalendarType());
         refreshAdapter();
+
+        ScrollJankReporter jankReporter = mController.getScrollJankReporter();
+        if (jankReporter != null && mJankTracker == null) {
+            mJankTracker = jankReporter.tracker(ScrollJankReporter.Source.MONTHS);
+            addOnScrollListener(new OnScrollListener() {
+                @Override
+                public void onScrollStateChanged(@NonNull RecyclerView view, int newState) {
+                    if (newState == SCROLL_STATE_IDLE) mJankTracker.onScrollStopped();
+                    else mJankTracker.onScrollStarted(view);
+                }
+            });
+        }
     }
 
     public void init(Context context, DatePickerDialog.ScrollOrientation scrollOrientation) {
@@ -95,11 +110,41 @@ public abstract class DayPickerView<CAL extends Calendar> extends RecyclerView
         refreshAdapter();
     }
 
+    /**
+     * Rebinds the months, including the ones which are cached off the screen, so that they switch
+     * to the fonts which have just been loaded.
+     */
+    void onFontsLoaded() {
+        if (mAdapter == null) return;
+        // With a payload, the item animator updates the views in place instead of cross-fading.
+        mAdapter.notifyItemRangeChanged(0, mAdapter.getItemCount(), FONTS_PAYLOAD);
+    }
+
     @Override
     protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        boolean measured = mJankTracker != null && mJankTracker.isScrolling();
+        long start = measured ? System.nanoTime() : 0L;
         super.onLayout(changed, l, t, r, b);
         final MonthAdapter.CalendarDay<CAL> focusedDay = findAccessibilityFocus();
         restoreAccessibilityFocus(focusedDay);
+        if (measured) mJankTracker.onLayout(System.nanoTime() - start);
+    }
+
+    @Override
+    protected void dispatchDraw(@NonNull Canvas canvas) {
+        if (mJankTracker == null || !mJankTracker.isScrolling()) {
+            super.dispatchDraw(canvas);
+            return;
+        }
+        long start = System.nanoTime();
+        super.dispatchDraw(canvas);
+        mJankTracker.onDraw(System.nanoTime() - start);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (mJankTracker != null) mJankTracker.onScrollStopped();
     }
 
     protected void refreshAdapter() {
@@ -8,23 +8,35 @@ import android.os.Parcelable;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.TreeSet;
 
+import ir.mahdiparastesh.mcdtp.McdtpTrace;
 import ir.mahdiparastesh.mcdtp.McdtpUtils;
+import ir.mahdiparastesh.mcdtp.engine.DayRules;
 
 @SuppressWarnings("unchecked")
 class DefaultDateRangeLimiter<CAL extends Calendar> implements DateRangeLimiter<CAL> {
     private static final int YEAR_RANGE_RADIUS = 100;
 
     private Class<CAL> mCalendarType;
-    private transient DatePickerController<CAL> mController;
+    private DatePickerController<CAL> mController;
     private int mMinYear;
     private int mMaxYear;
     private CAL mMinDate;
     private CAL mMaxDate;
     private TreeSet<CAL> selectableDays = new TreeSet<>();
     private HashSet<CAL> disabledDays = new HashSet<>();
+    /** Reused by isOutOfRange(int, int, int), which is called for every day being drawn */
+    private CAL mScratch;
+    /** The restrictions on Julian days, rebuilt whenever they change */
+    private DayRules mRules;
+    /**
+     * The month of the last isOutOfRange(int, int, int) and the Julian day before its first day,
+     * so that drawing a month computes the calendar fields once rather than for every day.
+     */
+    private int mQueryYear, mQueryMonth = -1, mQueryJulianDay;
 
     DefaultDateRangeLimiter(Class<CAL> calendarType) {
         mCalendarType = calendarType;
@@ -71,25 +83,31 @@ class DefaultDateRangeLimiter<CAL extends Calendar> implements DateRangeLimiter<
     };
 
     void setSelectableDays(@NonNull CAL[] days) {
+        mRules = null;
         for (CAL selectableDay : days)
             this.selectableDays.add(McdtpUtils.trimToMidnight((CAL) selectableDay.clone()));
     }
 
     void setDisabledDays(@NonNull CAL[] days) {
+        mRules = null;
         for (CAL disabledDay : days)
             this.disabledDays.add(McdtpUtils.trimToMidnight((CAL) disabledDay.clone()));
     }
 
     void setMinDate(@NonNull CAL calendar) {
+        mRules = null;
         mMinDate = McdtpUtils.trimToMidnight((CAL) calendar.clone());
     }
 
     void setMaxDate(@NonNull CAL calendar) {
+        mRules = null;
         mMaxDate = McdtpUtils.trimToMidnight((CAL) calendar.clone());
     }
 
     void setController(@NonNull DatePickerController<CAL> controller) {
         mController = controller;
+        // The type isn't parcelled.
+        if (mCalendarType == null) mCalendarType = controller.getCalendarType();
     }
 
     void setYearRange(int startYear, int endYear) {
@@ -98,6 +116,7 @@ class DefaultDateRangeLimiter<CAL extends Calendar> implements DateRangeLimiter<
 
         mMinYear = startYear;
         mMaxYear = endYear;
+        mRules = null;
     }
 
     @Nullable
@@ -170,90 +189,71 @@ class DefaultDateRangeLimiter<CAL extends Calendar> implements DateRangeLimiter<
      */
     @Override
     public boolean isOutOfRange(int year, int month, int day) {
-        TimeZone timezone = mController == null ? TimeZone.getDefault() : mController.getTimeZone();
-        CAL date = McdtpUtils.createCalendar(mCalendarType, timezone);
-        date.set(Calendar.YEAR, year);
-        date.set(Calendar.MONTH, month);
-        date.set(Calendar.DAY_OF_MONTH, day);
-        return isOutOfRange(date);
-    }
-
-    private boolean isOutOfRange(@NonNull CAL calendar) {
-        McdtpUtils.trimToMidnight(calendar);
-        return isDisabled(calendar) || !isSelectable(calendar);
-    }
-
-    private boolean isDisabled(@NonNull CAL c) {
-        return disabledDays.contains(McdtpUtils.trimToMidnight(c)) || isBeforeMin(c) || isAfterMax(c);
-    }
-
-    private boolean isSelectable(@NonNull CAL c) {
-        return selectableDays.isEmpty() || selectableDays.contains(McdtpUtils.trimToMidnight(c));
-    }
-
-    private boolean isBeforeMin(@NonNull CAL calendar) {
-        return mMinDate != null && calendar.before(mMinDate) || calendar.get(Calendar.YEAR) < mMinYear;
-    }
-
-    private boolean isAfterMax(@NonNull CAL calendar) {
-        return mMaxDate != null && calendar.after(mMaxDate) || calendar.get(Calendar.YEAR) > mMaxYear;
+        if (year != mQueryYear || month != mQueryMonth) {
+            CAL date = scratch();
+            date.set(Calendar.YEAR, year);
+            date.set(Calendar.MONTH, month);
+            date.set(Calendar.DAY_OF_MONTH, 1);
+            // Before rules(), which may rebuild them on the same calendar
+            mQueryJulianDay = date.get(Calendar.JULIAN_DAY) - 1;
+            mQueryYear = year;
+            mQueryMonth = month;
+        }
+        return rules().isOutOfRange(mQueryJulianDay + day);
     }
 
     @Override
     public @NonNull
     CAL setToNearestDate(@NonNull CAL calendar) {
-        if (!selectableDays.isEmpty()) {
-            CAL newCalendar = null;
-            CAL higher = selectableDays.ceiling(calendar);
-            CAL lower = selectableDays.lower(calendar);
-
-            if (higher == null && lower != null) newCalendar = lower;
-            else if (lower == null && higher != null) newCalendar = higher;
-
-            if (newCalendar != null || higher == null) {
-                newCalendar = newCalendar == null ? calendar : newCalendar;
-                TimeZone timeZone = mController == null ? TimeZone.getDefault() : mController.getTimeZone();
-                newCalendar.setTimeZone(timeZone);
-                return (CAL) newCalendar.clone();
-            }
-
-            long highDistance = Math.abs(higher.getTimeInMillis() - calendar.getTimeInMillis());
-            long lowDistance = Math.abs(calendar.getTimeInMillis() - lower.getTimeInMillis());
-
-            if (lowDistance < highDistance) return (CAL) lower.clone();
-            else return (CAL) higher.clone();
-        }
-
-        if (!disabledDays.isEmpty()) {
-            CAL forwardDate = isBeforeMin(calendar) ? getStartDate() : (CAL) calendar.clone();
-            CAL backwardDate = isAfterMax(calendar) ? getEndDate() : (CAL) calendar.clone();
-            while (isDisabled(forwardDate) && isDisabled(backwardDate)) {
-                forwardDate.add(Calendar.DAY_OF_MONTH, 1);
-                backwardDate.add(Calendar.DAY_OF_MONTH, -1);
-            }
-            if (!isDisabled(backwardDate)) return backwardDate;
-            if (!isDisabled(forwardDate)) return forwardDate;
+        boolean traced = McdtpTrace.begin("mcdtp:DefaultDateRangeLimiter.setToNearestDate");
+        try {
+            int day = calendar.get(Calendar.JULIAN_DAY);
+            int nearest = rules().nearest(day);
+            if (nearest == day) return calendar;
+            CAL output = (CAL) calendar.clone();
+            output.set(Calendar.JULIAN_DAY, nearest);
+            return McdtpUtils.trimToMidnight(output);
+        } finally {
+            McdtpTrace.end(traced);
         }
+    }
 
+    @NonNull
+    private CAL scratch() {
         TimeZone timezone = mController == null ? TimeZone.getDefault() : mController.getTimeZone();
-        if (isBeforeMin(calendar)) {
-            if (mMinDate != null) return (CAL) mMinDate.clone();
-            CAL output = McdtpUtils.createCalendar(mCalendarType, timezone);
-            output.set(Calendar.YEAR, mMinYear);
-            output.set(Calendar.MONTH, Calendar.JANUARY);
-            output.set(Calendar.DAY_OF_MONTH, 1);
-            return McdtpUtils.trimToMidnight(output);
-        }
+        if (mScratch == null) mScratch = McdtpUtils.createCalendar(mCalendarType, timezone);
+        else mScratch.setTimeZone(timezone);
+        return mScratch;
+    }
 
-        if (isAfterMax(calendar)) {
-            if (mMaxDate != null) return (CAL) mMaxDate.clone();
-            CAL output = McdtpUtils.createCalendar(mCalendarType, timezone);
-            output.set(Calendar.YEAR, mMaxYear);
-            output.set(Calendar.MONTH, Calendar.DECEMBER);
-            output.set(Calendar.DAY_OF_MONTH, 31);
-            return McdtpUtils.trimToMidnight(output);
-        }
+    /**
+     * Converts the restrictions to Julian days, which DayRules can search without calendar
+     * arithmetic.
+     */
+    @NonNull
+    private DayRules rules() {
+        if (mRules != null) return mRules;
+        DayRules rules = new DayRules();
+        CAL c = scratch();
+        c.set(Calendar.YEAR, mMinYear);
+        c.set(Calendar.DAY_OF_YEAR, 1);
+        int minDay = c.get(Calendar.JULIAN_DAY);
+        c.set(Calendar.YEAR, mMaxYear + 1);
+        c.set(Calendar.DAY_OF_YEAR, 1);
+        int maxDay = c.get(Calendar.JULIAN_DAY) - 1;
+        if (mMinDate != null) minDay = Math.max(minDay, mMinDate.get(Calendar.JULIAN_DAY));
+        if (mMaxDate != null) maxDay = Math.min(maxDay, mMaxDate.get(Calendar.JULIAN_DAY));
+        rules.setRange(minDay, maxDay);
+        rules.setSelectable(julianDays(selectableDays));
+        rules.setDisabled(julianDays(disabledDays));
+        return mRules = rules;
+    }
 
-        return calendar;
+    @NonNull
+    private static int[] julianDays(@NonNull Collection<? extends Calendar> days) {
+        int[] output = new int[days.size()];
+        int i = 0;
+        for (Calendar day : days) output[i++] = day.get(Calendar.JULIAN_DAY);
+        return output;
     }
 }
\ No newline at end of file
@@ -12,6 +12,7 @@ public class LocalDateFormat extends SimpleDateFormat {
     public LocalDateFormat(Context c, Class<? extends Calendar> calendarType, String pattern, Locale loc) {
         super(pattern, loc);
         calendar = McdtpUtils.createCalendar(calendarType);
-        setDateFormatSymbols(McdtpUtils.localSymbols(c, calendarType, loc));
+        // SimpleDateFormat keeps its own copy of the symbols, so the shared ones can be passed.
+        setDateFormatSymbols(McdtpUtils.sharedSymbols(c, calendarType, loc));
     }
 }
@@ -10,7 +10,9 @@ import android.widget.AbsListView.LayoutParams;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
+import ir.mahdiparastesh.mcdtp.McdtpTrace;
 import ir.mahdiparastesh.mcdtp.McdtpUtils;
+import ir.mahdiparastesh.mcdtp.PickerMetrics;
 import ir.mahdiparastesh.mcdtp.date.MonthView.OnDayClickListener;
 
 public abstract class MonthAdapter<CAL extends Calendar>
@@ -20,6 +22,11 @@ public abstract class MonthAdapter<CAL extends Calendar>
     protected final DatePickerController<CAL> mController;
 
     private CalendarDay<CAL> mSelectedDay;
+    // The range of the controller in months, see updateRange()
+    private int mMinYear;
+    private int mFirstMonth;
+    private int mMonthsInYear;
+    private int mItemCount;
 
     public static class CalendarDay<CAL extends Calendar> {
         private Class<CAL> mCalendarType;
@@ -105,9 +112,28 @@ public abstract class MonthAdapter<CAL extends Calendar>
     @SuppressLint("NotifyDataSetChanged")
     public void setSelectedDay(CalendarDay<CAL> day) {
         mSelectedDay = day;
+        updateRange();
         notifyDataSetChanged();
     }
 
+    /**
+     * Reads the range of the controller, whose start and end dates are new calendars, once rather
+     * than for every bound month and every getItemCount() while scrolling. The range only changes
+     * through DayPickerView.onChange(), which calls setSelectedDay().
+     */
+    private void updateRange() {
+        CAL startDate = mController.getStartDate();
+        CAL endDate = mController.getEndDate();
+        mMinYear = mController.getMinYear();
+        mFirstMonth = startDate.get(Calendar.MONTH);
+        mMonthsInYear = startDate.getActualMaximum(Calendar.MONTH) + 1;
+        int endMonth = endDate.get(Calendar.YEAR)
+                * (endDate.getActualMaximum(Calendar.MONTH) + 1)
+                + endDate.get(Calendar.MONTH);
+        int startMonth = startDate.get(Calendar.YEAR) * mMonthsInYear + mFirstMonth;
+        mItemCount = endMonth - startMonth + 1;
+    }
+
     @SuppressWarnings("unused")
     public CalendarDay<CAL> getSelectedDay() {
         return mSelectedDay;
@@ -134,7 +160,24 @@ public abstract class MonthAdapter<CAL extends Calendar>
 
     @Override
     public void onBindViewHolder(@NonNull MonthViewHolder<CAL> holder, int position) {
-        holder.bind(position, mController, mSelectedDay);
+        boolean traced = McdtpTrace.begin("mcdtp:MonthAdapter.onBindViewHolder");
+        try {
+            PickerMetrics metrics = mController.getPickerMetrics();
+            ScrollJankReporter jankReporter = mController.getScrollJankReporter();
+            boolean measured = metrics != null || jankReporter != null;
+            long start = measured ? System.nanoTime() : 0L;
+            int month = (position + mFirstMonth) % mMonthsInYear;
+            int year = (position + mFirstMonth) / mMonthsInYear + mMinYear;
+            holder.bind(year, month, mController, mSelectedDay);
+            if (measured) {
+                long duration = System.nanoTime() - start;
+                if (metrics != null) metrics.onMonthBound(duration);
+                if (jankReporter != null)
+                    jankReporter.tracker(ScrollJankReporter.Source.MONTHS).onBind(duration);
+            }
+        } finally {
+            McdtpTrace.end(traced);
+        }
     }
 
     @Override
@@ -144,15 +187,7 @@ public abstract class MonthAdapter<CAL extends Calendar>
 
     @Override
     public int getItemCount() {
-        CAL endDate = mController.getEndDate();
-        CAL startDate = mController.getStartDate();
-        int endMonth = endDate.get(Calendar.YEAR)
-                * (endDate.getActualMaximum(Calendar.MONTH) + 1)
-                + endDate.get(Calendar.MONTH);
-        int startMonth = startDate.get(Calendar.YEAR)
-                * (startDate.getActualMaximum(Calendar.MONTH) + 1)
-                + startDate.get(Calendar.MONTH);
-        return endMonth - startMonth + 1;
+        return mItemCount;
     }
 
     public abstract MonthView<CAL> createMonthView(Context context);
@@ -175,14 +210,8 @@ public abstract class MonthAdapter<CAL extends Calendar>
             super(itemView);
         }
 
-        void bind(int position, DatePickerController<CAL> mController,
+        void bind(int year, int month, DatePickerController<CAL> mController,
                   CalendarDay<CAL> selectedCalendarDay) {
-            final int month = (position + mController.getStartDate().get(Calendar.MONTH))
-                    % (mController.getStartDate().getActualMaximum(Calendar.MONTH) + 1);
-            final int year = (position + mController.getStartDate().get(Calendar.MONTH))
-                    / (mController.getStartDate().getActualMaximum(Calendar.MONTH) + 1)
-                    + mController.getMinYear();
-
             int selectedDay = -1;
             if (isSelectedDayInMonth(selectedCalendarDay, year, month))
                 selectedDay = selectedCalendarDay.day;
@@ -1,12 +1,12 @@
 package ir.mahdiparastesh.mcdtp.date;
 
 import android.content.Context;
-import android.content.res.Resources;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.Paint.Align;
 import android.graphics.Paint.Style;
 import android.graphics.Rect;
+import android.graphics.Typeface;
 import android.icu.util.Calendar;
 import android.os.Bundle;
 import android.text.format.DateFormat;
@@ -17,7 +17,6 @@ import android.view.accessibility.AccessibilityEvent;
 import android.view.accessibility.AccessibilityNodeInfo;
 
 import androidx.annotation.NonNull;
-import androidx.core.content.ContextCompat;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.accessibility.AccessibilityNodeInfoCompat;
 import androidx.customview.widget.ExploreByTouchHelper;
@@ -27,8 +26,10 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 
+import ir.mahdiparastesh.mcdtp.LocalNumerals;
+import ir.mahdiparastesh.mcdtp.McdtpTrace;
 import ir.mahdiparastesh.mcdtp.McdtpUtils;
-import ir.mahdiparastesh.mcdtp.R;
+import ir.mahdiparastesh.mcdtp.PickerTheme;
 import ir.mahdiparastesh.mcdtp.date.MonthAdapter.CalendarDay;
 
 public abstract class MonthView<CAL extends Calendar> extends View {
@@ -59,8 +60,10 @@ public abstract class MonthView<CAL extends Calendar> extends View {
     protected Paint mMonthTitlePaint;
     protected Paint mSelectedCirclePaint;
     protected Paint mMonthDayLabelPaint;
-
-    private final StringBuilder mStringBuilder;
+    // Resolved when the month is bound, so that drawing the days doesn't look them up
+    protected Typeface mBoldFont;
+    protected Typeface mNormalFont;
+    protected final LocalNumerals mNumerals;
 
     protected int mMonth;
     protected int mYear;
@@ -75,6 +78,8 @@ public abstract class MonthView<CAL extends Calendar> extends View {
 
     private final CAL mCalendar;
     protected final CAL mDayLabelCalendar;
+    /** Reused by setMonthParams() to find today, rather than a new calendar for every month */
+    private final CAL mTodayCalendar;
     private final MonthViewTouchHelper mTouchHelper;
     protected int mNumRows = DEFAULT_NUM_ROWS;
     protected OnDayClickListener<CAL> mOnDayClickListener;
@@ -88,6 +93,11 @@ public abstract class MonthView<CAL extends Calendar> extends View {
     protected final int mDisabledDayTextColor;
 
     private LocalDateFormat weekDayLabelFormatter;
+    /** Indexed by the day of the week, formatted when first drawn */
+    private final String[] mWeekDayLabels = new String[DEFAULT_NUM_DAYS + 1];
+    private LocalDateFormat mMonthTitleFormatter;
+    /** Formatted when first drawn after setMonthParams() */
+    private String mMonthTitle;
 
     public MonthView(Context context) {
         this(context, null, null);
@@ -96,50 +106,47 @@ public abstract class MonthView<CAL extends Calendar> extends View {
     public MonthView(Context context, AttributeSet attr, DatePickerController<CAL> controller) {
         super(context, attr);
         mController = controller;
-        Resources res = context.getResources();
+        PickerTheme theme = mController.getPickerTheme();
 
         mDayLabelCalendar = McdtpUtils.createCalendar(
                 mController.getCalendarType(), mController.getTimeZone());
         mCalendar = McdtpUtils.createCalendar(
                 mController.getCalendarType(), mController.getTimeZone());
+        mTodayCalendar = McdtpUtils.createCalendar(
+                mController.getCalendarType(), mController.getTimeZone());
 
-        mDayTextColor = McdtpUtils.themeColor(context,
-                com.google.android.material.R.attr.colorOnSurface);
-        mMonthDayTextColor = McdtpUtils.themeColor(context,
-                com.google.android.material.R.attr.colorOnSurface);
-        mDisabledDayTextColor = ContextCompat.getColor(context, R.color.date_picker_text_disabled);
-        mHighlightedDayTextColor = ContextCompat.getColor(context, R.color.date_picker_text_highlighted);
-        mSelectedDayTextColor = McdtpUtils.themeColor(context,
-                com.google.android.material.R.attr.colorOnPrimaryContainer);
-        mTodayNumberColor = McdtpUtils.themeColor(context,
-                com.google.android.material.R.attr.colorPrimaryContainer);
-
-        mStringBuilder = new StringBuilder(50);
-
-        MINI_DAY_NUMBER_TEXT_SIZE = res.getDimensionPixelSize(R.dimen.day_number_size);
-        MONTH_LABEL_TEXT_SIZE = res.getDimensionPixelSize(R.dimen.month_label_size);
-        MONTH_DAY_LABEL_TEXT_SIZE = res.getDimensionPixelSize(R.dimen.month_day_label_text_size);
-        MONTH_HEADER_SIZE = res.getDimensionPixelOffset(R.dimen.month_list_item_header_height);
-        MONTH_HEADER_SIZE_V2 = res.getDimensionPixelOffset(R.dimen.month_list_item_header_height_v2);
+        mDayTextColor = theme.colorOnSurface;
+        mMonthDayTextColor = theme.colorOnSurface;
+        mDisabledDayTextColor = theme.disabledTextColor;
+        mHighlightedDayTextColor = theme.highlightedTextColor;
+        mSelectedDayTextColor = theme.colorOnPrimaryContainer;
+        mTodayNumberColor = theme.colorPrimaryContainer;
+
+        mBoldFont = theme.getBoldFont();
+        mNormalFont = theme.getNormalFont();
+        mNumerals = LocalNumerals.of(mController.getLocale());
+
+        MINI_DAY_NUMBER_TEXT_SIZE = theme.dayNumberSize;
+        MONTH_LABEL_TEXT_SIZE = theme.monthLabelSize;
+        MONTH_DAY_LABEL_TEXT_SIZE = theme.monthDayLabelTextSize;
+        MONTH_HEADER_SIZE = theme.monthHeaderSize;
+        MONTH_HEADER_SIZE_V2 = theme.monthHeaderSizeV2;
         DAY_SELECTED_CIRCLE_SIZE = mController.getVersion() == DatePickerDialog.Version.VERSION_1
-                ? res.getDimensionPixelSize(R.dimen.day_number_select_circle_radius)
-                : res.getDimensionPixelSize(R.dimen.day_number_select_circle_radius_v2);
-        DAY_HIGHLIGHT_CIRCLE_SIZE = res
-                .getDimensionPixelSize(R.dimen.day_highlight_circle_radius);
-        DAY_HIGHLIGHT_CIRCLE_MARGIN = res
-                .getDimensionPixelSize(R.dimen.day_highlight_circle_margin);
+                ? theme.daySelectedCircleRadius
+                : theme.daySelectedCircleRadiusV2;
+        DAY_HIGHLIGHT_CIRCLE_SIZE = theme.dayHighlightCircleRadius;
+        DAY_HIGHLIGHT_CIRCLE_MARGIN = theme.dayHighlightCircleMargin;
 
         if (mController.getVersion() == DatePickerDialog.Version.VERSION_1) {
-            mRowHeight = (res.getDimensionPixelOffset(R.dimen.date_picker_view_animator_height)
-                    - getMonthHeaderSize()) / MAX_NUM_ROWS;
+            mRowHeight = (theme.dateAnimatorHeight - getMonthHeaderSize()) / MAX_NUM_ROWS;
         } else {
-            mRowHeight = (res.getDimensionPixelOffset(R.dimen.date_picker_view_animator_height_v2)
+            mRowHeight = (theme.dateAnimatorHeightV2
                     - getMonthHeaderSize() - MONTH_DAY_LABEL_TEXT_SIZE * 2) / MAX_NUM_ROWS;
         }
 
         mEdgePadding = mController.getVersion() == DatePickerDialog.Version.VERSION_1
                 ? 0
-                : context.getResources().getDimensionPixelSize(R.dimen.date_picker_view_animator_padding_v2);
+                : theme.dateAnimatorPaddingV2;
 
         // Set up accessibility components.
         mTouchHelper = getMonthViewTouchHelper();
@@ -192,7 +199,7 @@ public abstract class MonthView<CAL extends Calendar> extends View {
             mMonthTitlePaint.setFakeBoldText(true);
         mMonthTitlePaint.setAntiAlias(true);
         mMonthTitlePaint.setTextSize(MONTH_LABEL_TEXT_SIZE);
-        mMonthTitlePaint.setTypeface(McdtpUtils.boldFont(getContext(), mController));
+        mMonthTitlePaint.setTypeface(mBoldFont);
         mMonthTitlePaint.setColor(mDayTextColor);
         mMonthTitlePaint.setTextAlign(Align.CENTER);
         mMonthTitlePaint.setStyle(Style.FILL);
@@ -209,8 +216,7 @@ public abstract class MonthView<CAL extends Calendar> extends View {
         mMonthDayLabelPaint.setAntiAlias(true);
         mMonthDayLabelPaint.setTextSize(MONTH_DAY_LABEL_TEXT_SIZE);
         mMonthDayLabelPaint.setColor(mMonthDayTextColor);
-        mMonthDayLabelPaint.setTypeface(McdtpUtils.normalFont(
-                getContext(), mController));
+        mMonthDayLabelPaint.setTypeface(mNormalFont);
         mMonthDayLabelPaint.setStyle(Style.FILL);
         mMonthDayLabelPaint.setTextAlign(Align.CENTER);
         mMonthDayLabelPaint.setFakeBoldText(true);
@@ -225,9 +231,14 @@ public abstract class MonthView<CAL extends Calendar> extends View {
 
     @Override
     protected void onDraw(Canvas canvas) {
-        drawMonthTitle(canvas);
-        drawMonthDayLabels(canvas);
-        drawMonthNums(canvas);
+        boolean traced = McdtpTrace.begin("mcdtp:MonthView.onDraw");
+        try {
+            drawMonthTitle(canvas);
+            drawMonthDayLabels(canvas);
+            drawMonthNums(canvas);
+        } finally {
+            McdtpTrace.end(traced);
+        }
     }
 
     private int mDayOfWeekStart = 0;
@@ -239,41 +250,47 @@ public abstract class MonthView<CAL extends Calendar> extends View {
      * which will always default to no focus month if no value is passed in.
      */
     public void setMonthParams(int selectedDay, int year, int month, int weekStart) {
-        if (month == -1 && year == -1)
-            throw new InvalidParameterException("You must specify month and year for this view");
-
-        mSelectedDay = selectedDay;
-
-        // Allocate space for caching the day numbers and focus values
-        mMonth = month;
-        mYear = year;
-
-        // Figure out what day today is
-        final CAL today = McdtpUtils.createCalendar(
-                mController.getCalendarType(), mController.getTimeZone());
-        mHasToday = false;
-        mToday = -1;
-
-        mCalendar.set(Calendar.MONTH, mMonth);
-        mCalendar.set(Calendar.YEAR, mYear);
-        mCalendar.set(Calendar.DAY_OF_MONTH, 1);
-        mDayOfWeekStart = mCalendar.get(Calendar.DAY_OF_WEEK);
-
-        if (weekStart != -1) mWeekStart = weekStart;
-        else mWeekStart = mCalendar.getFirstDayOfWeek();
-
-        mNumCells = mCalendar.getActualMaximum(Calendar.DAY_OF_MONTH);
-        for (int i = 0; i < mNumCells; i++) {
-            final int day = i + 1;
-            if (sameDay(day, today)) {
+        boolean traced = McdtpTrace.begin("mcdtp:MonthView.setMonthParams");
+        try {
+            if (month == -1 && year == -1)
+                throw new InvalidParameterException(
+                        "You must specify month and year for this view");
+
+            mSelectedDay = selectedDay;
+
+            // Allocate space for caching the day numbers and focus values
+            mMonth = month;
+            mYear = year;
+            mMonthTitle = null;
+
+            // Figure out what day today is
+            final CAL today = mTodayCalendar;
+            today.setTimeZone(mController.getTimeZone());
+            today.setTimeInMillis(System.currentTimeMillis());
+            mHasToday = false;
+            mToday = -1;
+
+            mCalendar.set(Calendar.MONTH, mMonth);
+            mCalendar.set(Calendar.YEAR, mYear);
+            mCalendar.set(Calendar.DAY_OF_MONTH, 1);
+            mDayOfWeekStart = mCalendar.get(Calendar.DAY_OF_WEEK);
+
+            if (weekStart != -1) mWeekStart = weekStart;
+            else mWeekStart = mCalendar.getFirstDayOfWeek();
+
+            mNumCells = mCalendar.getActualMaximum(Calendar.DAY_OF_MONTH);
+            if (mYear == today.get(Calendar.YEAR) && mMonth == today.get(Calendar.MONTH)) {
                 mHasToday = true;
-                mToday = day;
+                mToday = today.get(Calendar.DAY_OF_MONTH);
             }
-        }
-        mNumRows = calculateNumRows();
+            mNumRows = calculateNumRows();
+            updateFonts();
 
-        // Invalidate cached accessibility information.
-        mTouchHelper.invalidateRoot();
+            // Invalidate cached accessibility information.
+            mTouchHelper.invalidateRoot();
+        } finally {
+            McdtpTrace.end(traced);
+        }
     }
 
     @SuppressWarnings("unused")
@@ -288,18 +305,26 @@ public abstract class MonthView<CAL extends Calendar> extends View {
         return (dividend + (remainder > 0 ? 1 : 0));
     }
 
-    private boolean sameDay(int day, CAL today) {
-        return mYear == today.get(Calendar.YEAR) &&
-                mMonth == today.get(Calendar.MONTH) &&
-                day == today.get(Calendar.DAY_OF_MONTH);
-    }
-
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         setMeasuredDimension(MeasureSpec.getSize(widthMeasureSpec),
                 mRowHeight * mNumRows + getMonthHeaderSize());
     }
 
+    /**
+     * Switches to the custom fonts once they have been loaded in the background.
+     */
+    private void updateFonts() {
+        PickerTheme theme = mController.getPickerTheme();
+        Typeface bold = theme.getBoldFont();
+        Typeface normal = theme.getNormalFont();
+        if (bold == mBoldFont && normal == mNormalFont) return;
+        mBoldFont = bold;
+        mNormalFont = normal;
+        mMonthTitlePaint.setTypeface(bold);
+        mMonthDayLabelPaint.setTypeface(normal);
+    }
+
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         mWidth = w;
@@ -337,11 +362,13 @@ public abstract class MonthView<CAL extends Calendar> extends View {
 
     @NonNull
     private String getMonthAndYearString() {
-        LocalDateFormat formatter = new LocalDateFormat(getContext(),
-                mController.getCalendarType(), "MMMM yyyy", mController.getLocale());
-        formatter.setTimeZone(mController.getTimeZone());
-        mStringBuilder.setLength(0);
-        return formatter.format(mCalendar);
+        if (mMonthTitle != null) return mMonthTitle;
+        if (mMonthTitleFormatter == null) {
+            mMonthTitleFormatter = new LocalDateFormat(getContext(),
+                    mController.getCalendarType(), "MMMM yyyy", mController.getLocale());
+            mMonthTitleFormatter.setTimeZone(mController.getTimeZone());
+        }
+        return mMonthTitle = mMonthTitleFormatter.format(mCalendar);
     }
 
     protected void drawMonthTitle(Canvas canvas) {
@@ -360,9 +387,7 @@ public abstract class MonthView<CAL extends Calendar> extends View {
             int x = (2 * i + 1) * dayWidthHalf + mEdgePadding;
 
             int calendarDay = (i + mWeekStart) % mNumDays;
-            mDayLabelCalendar.set(Calendar.DAY_OF_WEEK, calendarDay);
-            String weekString = getWeekDayLabel(mDayLabelCalendar);
-            canvas.drawText(weekString, x, y, mMonthDayLabelPaint);
+            canvas.drawText(getWeekDayLabel(calendarDay), x, y, mMonthDayLabelPaint);
         }
     }
 
@@ -428,12 +453,15 @@ public abstract class MonthView<CAL extends Calendar> extends View {
         return mController.isHighlighted(year, month, day);
     }
 
-    private String getWeekDayLabel(CAL day) {
+    private String getWeekDayLabel(int dayOfWeek) {
+        String label = mWeekDayLabels[dayOfWeek];
+        if (label != null) return label;
         Locale locale = mController.getLocale();
         if (weekDayLabelFormatter == null)
             weekDayLabelFormatter = new LocalDateFormat(
                     getContext(), mController.getCalendarType(), "EEEEE", locale);
-        return weekDayLabelFormatter.format(day);
+        mDayLabelCalendar.set(Calendar.DAY_OF_WEEK, dayOfWeek);
+        return mWeekDayLabels[dayOfWeek] = weekDayLabelFormatter.format(mDayLabelCalendar);
     }
 
     public CalendarDay<CAL> getAccessibilityFocus() {
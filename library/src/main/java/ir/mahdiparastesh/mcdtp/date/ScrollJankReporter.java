@@ -0,0 +1,228 @@
+package ir.mahdiparastesh.mcdtp.date;
+
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Collects the durations of the frames drawn while the months or the years are being scrolled,
+ * flung or snapped, and tells which part of the slow frames took the longest. Nothing is measured
+ * unless a reporter is passed to setScrollJankReporter() of the picker.
+ * <p>
+ * A frame is measured on the main thread, from its vsync until the list has been drawn, and is
+ * slow if it takes longer than the refresh period of the display. The same reporter may be kept
+ * across pickers, e.g. one for each calendar type or version, and compared with {@link #getSummary}.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class ScrollJankReporter {
+    public enum Source {MONTHS, YEARS}
+
+    /** The part of a slow frame which took the longest. */
+    public enum Phase {
+        /** Binding months in MonthAdapter or years in YearPickerView */
+        BIND,
+        LAYOUT,
+        DRAW,
+        /** None of the above took a third of the frame, e.g. input handling or a GC pause. */
+        OTHER
+    }
+
+    private static final int DEFAULT_CAPACITY = 2048;
+
+    private final Tracker mMonths;
+    private final Tracker mYears;
+
+    public ScrollJankReporter() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity how many of the latest frames are kept for each source
+     */
+    public ScrollJankReporter(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be positive");
+        mMonths = new Tracker(capacity);
+        mYears = new Tracker(capacity);
+    }
+
+    @NonNull
+    public Summary getSummary(@NonNull Source source) {
+        return tracker(source).summarise();
+    }
+
+    public void reset() {
+        mMonths.reset();
+        mYears.reset();
+    }
+
+    @NonNull
+    Tracker tracker(@NonNull Source source) {
+        return source == Source.MONTHS ? mMonths : mYears;
+    }
+
+    /**
+     * Counts of the frames of a source since it was reset, and percentiles of the durations of the
+     * latest frames which have been kept, in nanoseconds.
+     */
+    public static final class Summary {
+        public final int frameCount;
+        public final int slowFrameCount;
+        public final long p50Nanos;
+        public final long p90Nanos;
+        public final long p95Nanos;
+        public final long p99Nanos;
+        public final long maxNanos;
+        private final int[] mSlowFramesByPhase;
+
+        Summary(@NonNull long[] sortedFrames, int frameCount, int slowFrameCount,
+                @NonNull int[] slowFramesByPhase) {
+            this.frameCount = frameCount;
+            this.slowFrameCount = slowFrameCount;
+            p50Nanos = percentile(sortedFrames, 50);
+            p90Nanos = percentile(sortedFrames, 90);
+            p95Nanos = percentile(sortedFrames, 95);
+            p99Nanos = percentile(sortedFrames, 99);
+            maxNanos = sortedFrames.length > 0 ? sortedFrames[sortedFrames.length - 1] : 0L;
+            mSlowFramesByPhase = slowFramesByPhase;
+        }
+
+        /** How many of the slow frames were mostly spent in the given phase */
+        public int getSlowFrameCount(@NonNull Phase phase) {
+            return mSlowFramesByPhase[phase.ordinal()];
+        }
+
+        private static long percentile(@NonNull long[] sorted, int percent) {
+            if (sorted.length == 0) return 0L;
+            int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+            return sorted[Math.max(rank, 1) - 1];
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%d frames, %d slow (bind %d, layout %d, draw %d, other %d); " +
+                            "p50 %.1fms, p90 %.1fms, p95 %.1fms, p99 %.1fms, max %.1fms",
+                    frameCount, slowFrameCount, getSlowFrameCount(Phase.BIND),
+                    getSlowFrameCount(Phase.LAYOUT), getSlowFrameCount(Phase.DRAW),
+                    getSlowFrameCount(Phase.OTHER), p50Nanos / 1e6, p90Nanos / 1e6,
+                    p95Nanos / 1e6, p99Nanos / 1e6, maxNanos / 1e6);
+        }
+    }
+
+    /**
+     * Follows the scrolls of one list; everything is called on the main thread.
+     */
+    static final class Tracker implements Choreographer.FrameCallback {
+        private static final long DEFAULT_FRAME_NANOS = 1_000_000_000L / 60;
+
+        // Taken on the first scroll, since a reporter may be made off the main thread
+        private Choreographer mChoreographer;
+        // Ring buffer of the latest frame durations
+        private final long[] mFrames;
+        private int mNextFrame = 0;
+        private int mKeptFrames = 0;
+        private int mFrameCount = 0;
+        private int mSlowFrameCount = 0;
+        private final int[] mSlowFramesByPhase = new int[Phase.values().length];
+
+        private boolean mScrolling = false;
+        private long mFrameBudget = DEFAULT_FRAME_NANOS;
+        // Vsync of the current frame, or 0 if it's unknown
+        private long mFrameStart = 0L;
+        private long mBind = 0L, mLayout = 0L, mDraw = 0L;
+
+        Tracker(int capacity) {
+            mFrames = new long[capacity];
+        }
+
+        void onScrollStarted(@NonNull View list) {
+            if (mScrolling) return;
+            mScrolling = true;
+            Display display = list.getDisplay();
+            mFrameBudget = display != null && display.getRefreshRate() > 0f
+                    ? (long) (1_000_000_000L / display.getRefreshRate())
+                    : DEFAULT_FRAME_NANOS;
+            mBind = mLayout = mDraw = 0L;
+            if (mChoreographer == null) mChoreographer = Choreographer.getInstance();
+            mChoreographer.postFrameCallback(this);
+        }
+
+        void onScrollStopped() {
+            if (!mScrolling) return;
+            mScrolling = false;
+            mChoreographer.removeFrameCallback(this);
+            mFrameStart = 0L;
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!mScrolling) return;
+            // The last frame wasn't drawn, so what it spent mustn't count for this one.
+            if (mFrameStart != 0L) mBind = mLayout = mDraw = 0L;
+            mFrameStart = frameTimeNanos;
+            mChoreographer.postFrameCallback(this);
+        }
+
+        boolean isScrolling() {
+            return mScrolling;
+        }
+
+        void onBind(long durationNanos) {
+            if (mScrolling) mBind += durationNanos;
+        }
+
+        void onLayout(long durationNanos) {
+            if (mScrolling) mLayout += durationNanos;
+        }
+
+        /**
+         * Called after the list has been drawn, which ends the frame.
+         */
+        void onDraw(long durationNanos) {
+            if (!mScrolling) return;
+            mDraw += durationNanos;
+            if (mFrameStart != 0L) record(System.nanoTime() - mFrameStart);
+            mFrameStart = 0L;
+            mBind = mLayout = mDraw = 0L;
+        }
+
+        private void record(long duration) {
+            mFrames[mNextFrame] = duration;
+            mNextFrame = (mNextFrame + 1) % mFrames.length;
+            if (mKeptFrames < mFrames.length) mKeptFrames++;
+            mFrameCount++;
+            if (duration <= mFrameBudget) return;
+
+            mSlowFrameCount++;
+            Phase phase;
+            long longest = Math.max(mBind, Math.max(mLayout, mDraw));
+            if (longest * 3 < duration) phase = Phase.OTHER;
+            else if (longest == mBind) phase = Phase.BIND;
+            else if (longest == mLayout) phase = Phase.LAYOUT;
+            else phase = Phase.DRAW;
+            mSlowFramesByPhase[phase.ordinal()]++;
+        }
+
+        @NonNull
+        Summary summarise() {
+            long[] frames = Arrays.copyOf(mFrames, mKeptFrames);
+            Arrays.sort(frames);
+            return new Summary(frames, mFrameCount, mSlowFrameCount, mSlowFramesByPhase.clone());
+        }
+
+        void reset() {
+            mNextFrame = 0;
+            mKeptFrames = 0;
+            mFrameCount = 0;
+            mSlowFrameCount = 0;
+            Arrays.fill(mSlowFramesByPhase, 0);
+        }
+    }
+}
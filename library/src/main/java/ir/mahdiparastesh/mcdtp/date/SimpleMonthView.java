@@ -6,8 +6,6 @@ import android.graphics.Canvas;
 import android.icu.util.Calendar;
 import android.util.AttributeSet;
 
-import ir.mahdiparastesh.mcdtp.McdtpUtils;
-
 @SuppressLint("ViewConstructor")
 public class SimpleMonthView<CAL extends Calendar> extends MonthView<CAL> {
 
@@ -17,29 +15,29 @@ public class SimpleMonthView<CAL extends Calendar> extends MonthView<CAL> {
 
     @Override
     public void drawMonthDay(Canvas canvas, int year, int month, int day, int x, int y) {
+        boolean highlighted = isHighlighted(year, month, day);
         if (mSelectedDay == day)
             canvas.drawCircle(x, y - (MINI_DAY_NUMBER_TEXT_SIZE / 3f), DAY_SELECTED_CIRCLE_SIZE,
                     mSelectedCirclePaint);
 
-        if (isHighlighted(year, month, day) && mSelectedDay != day) {
+        if (highlighted && mSelectedDay != day) {
             canvas.drawCircle(x, y + MINI_DAY_NUMBER_TEXT_SIZE - DAY_HIGHLIGHT_CIRCLE_MARGIN,
                     DAY_HIGHLIGHT_CIRCLE_SIZE, mSelectedCirclePaint);
-            mMonthNumPaint.setTypeface(McdtpUtils.boldFont(getContext(), mController));
+            mMonthNumPaint.setTypeface(mBoldFont);
         } else
-            mMonthNumPaint.setTypeface(McdtpUtils.normalFont(getContext(), mController));
+            mMonthNumPaint.setTypeface(mNormalFont);
 
         if (mController.isOutOfRange(year, month, day)) {
             mMonthNumPaint.setColor(mDisabledDayTextColor);
         } else if (mSelectedDay == day) {
-            mMonthNumPaint.setTypeface(McdtpUtils.boldFont(getContext(), mController));
+            mMonthNumPaint.setTypeface(mBoldFont);
             mMonthNumPaint.setColor(mSelectedDayTextColor);
         } else if (mHasToday && mToday == day) {
             mMonthNumPaint.setColor(mTodayNumberColor);
         } else {
-            mMonthNumPaint.setColor(isHighlighted(year, month, day)
-                    ? mHighlightedDayTextColor : mDayTextColor);
+            mMonthNumPaint.setColor(highlighted ? mHighlightedDayTextColor : mDayTextColor);
         }
 
-        canvas.drawText(String.format(mController.getLocale(), "%d", day), x, y, mMonthNumPaint);
+        canvas.drawText(mNumerals.plain(day), x, y, mMonthNumPaint);
     }
 }
@@ -2,20 +2,22 @@ package ir.mahdiparastesh.mcdtp.date;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
-import android.content.res.Resources;
+import android.graphics.Canvas;
 import android.graphics.drawable.StateListDrawable;
 import android.icu.util.Calendar;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.accessibility.AccessibilityEvent;
+import android.widget.AbsListView;
 import android.widget.AdapterView;
 import android.widget.AdapterView.OnItemClickListener;
 import android.widget.BaseAdapter;
 import android.widget.ListView;
 import android.widget.TextView;
 
-import ir.mahdiparastesh.mcdtp.McdtpUtils;
+import ir.mahdiparastesh.mcdtp.McdtpTrace;
+import ir.mahdiparastesh.mcdtp.PickerTheme;
 import ir.mahdiparastesh.mcdtp.R;
 import ir.mahdiparastesh.mcdtp.TextViewWithCircularIndicator;
 import ir.mahdiparastesh.mcdtp.date.DatePickerDialog.OnDateChangedListener;
@@ -28,6 +30,7 @@ public class YearPickerView<CAL extends Calendar> extends ListView
     private final int mViewSize;
     private final int mChildSize;
     private TextViewWithCircularIndicator mSelectedView;
+    private ScrollJankReporter.Tracker mJankTracker;
 
     public YearPickerView(Context context, DatePickerController<CAL> controller) {
         super(context);
@@ -36,11 +39,11 @@ public class YearPickerView<CAL extends Calendar> extends ListView
         ViewGroup.LayoutParams frame = new ViewGroup.LayoutParams(LayoutParams.MATCH_PARENT,
                 LayoutParams.WRAP_CONTENT);
         setLayoutParams(frame);
-        Resources res = context.getResources();
+        PickerTheme theme = mController.getPickerTheme();
         mViewSize = mController.getVersion() == DatePickerDialog.Version.VERSION_1
-                ? res.getDimensionPixelOffset(R.dimen.date_picker_view_animator_height)
-                : res.getDimensionPixelOffset(R.dimen.date_picker_view_animator_height_v2);
-        mChildSize = res.getDimensionPixelOffset(R.dimen.year_label_height);
+                ? theme.dateAnimatorHeight
+                : theme.dateAnimatorHeightV2;
+        mChildSize = theme.yearLabelHeight;
         setVerticalFadingEdgeEnabled(true);
         setFadingEdgeLength(mChildSize / 3);
         init();
@@ -48,6 +51,23 @@ public class YearPickerView<CAL extends Calendar> extends ListView
         setSelector(new StateListDrawable());
         setDividerHeight(0);
         onDateChanged();
+
+        ScrollJankReporter jankReporter = mController.getScrollJankReporter();
+        if (jankReporter != null) {
+            mJankTracker = jankReporter.tracker(ScrollJankReporter.Source.YEARS);
+            setOnScrollListener(new OnScrollListener() {
+                @Override
+                public void onScrollStateChanged(AbsListView view, int scrollState) {
+                    if (scrollState == SCROLL_STATE_IDLE) mJankTracker.onScrollStopped();
+                    else mJankTracker.onScrollStarted(view);
+                }
+
+                @Override
+                public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount,
+                                     int totalItemCount) {
+                }
+            });
+        }
     }
 
     private void init() {
@@ -81,6 +101,8 @@ public class YearPickerView<CAL extends Calendar> extends ListView
     private final class YearAdapter extends BaseAdapter {
         private final int mMinYear;
         private final int mMaxYear;
+        /** The label of every year, formatted when it's bound for the first time */
+        private final String[] mLabels;
 
         YearAdapter(int minYear, int maxYear) {
             if (minYear > maxYear) {
@@ -88,6 +110,7 @@ public class YearPickerView<CAL extends Calendar> extends ListView
             }
             mMinYear = minYear;
             mMaxYear = maxYear;
+            mLabels = new String[maxYear - minYear + 1];
         }
 
         @Override
@@ -107,21 +130,34 @@ public class YearPickerView<CAL extends Calendar> extends ListView
 
         @Override
         public View getView(int position, View convertView, ViewGroup parent) {
-            TextViewWithCircularIndicator v;
-            if (convertView != null)
-                v = (TextViewWithCircularIndicator) convertView;
-            else {
-                v = (TextViewWithCircularIndicator) LayoutInflater.from(parent.getContext())
-                        .inflate(R.layout.year_label_text_view, parent, false);
-                v.setTypeface(McdtpUtils.normalFont(parent.getContext(), mController));
+            boolean traced = McdtpTrace.begin("mcdtp:YearPickerView.getView");
+            long start = mJankTracker != null && mJankTracker.isScrolling()
+                    ? System.nanoTime() : 0L;
+            try {
+                PickerTheme theme = mController.getPickerTheme();
+                TextViewWithCircularIndicator v;
+                if (convertView != null)
+                    v = (TextViewWithCircularIndicator) convertView;
+                else {
+                    v = (TextViewWithCircularIndicator) LayoutInflater.from(parent.getContext())
+                            .inflate(R.layout.year_label_text_view, parent, false);
+                    v.setIndicatorColor(theme.colorPrimaryContainer);
+                }
+                // Set on recycled views too, in case the custom font has been loaded since.
+                v.setTypeface(theme.getNormalFont());
+                int year = mMinYear + position;
+                boolean selected = mController.getSelectedDay().year == year;
+                if (mLabels[position] == null)
+                    mLabels[position] = String.format(mController.getLocale(), "%d", year);
+                v.setText(mLabels[position]);
+                v.drawIndicator(selected);
+                v.requestLayout();
+                if (selected) mSelectedView = v;
+                return v;
+            } finally {
+                if (start != 0L) mJankTracker.onBind(System.nanoTime() - start);
+                McdtpTrace.end(traced);
             }
-            int year = mMinYear + position;
-            boolean selected = mController.getSelectedDay().year == year;
-            v.setText(String.format(mController.getLocale(), "%d", year));
-            v.drawIndicator(selected);
-            v.requestLayout();
-            if (selected) mSelectedView = v;
-            return v;
         }
     }
 
@@ -142,6 +178,38 @@ public class YearPickerView<CAL extends Calendar> extends ListView
         return firstChild.getTop();
     }
 
+    @Override
+    protected void layoutChildren() {
+        if (mJankTracker == null || !mJankTracker.isScrolling()) {
+            super.layoutChildren();
+            return;
+        }
+        long start = System.nanoTime();
+        super.layoutChildren();
+        mJankTracker.onLayout(System.nanoTime() - start);
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        if (mJankTracker == null || !mJankTracker.isScrolling()) {
+            super.dispatchDraw(canvas);
+            return;
+        }
+        long start = System.nanoTime();
+        super.dispatchDraw(canvas);
+        mJankTracker.onDraw(System.nanoTime() - start);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (mJankTracker != null) mJankTracker.onScrollStopped();
+    }
+
+    void onFontsLoaded() {
+        mAdapter.notifyDataSetChanged();
+    }
+
     @Override
     public void onDateChanged() {
         mAdapter.notifyDataSetChanged();
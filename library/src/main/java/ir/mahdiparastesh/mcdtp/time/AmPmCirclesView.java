@@ -4,23 +4,17 @@ import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.Paint.Align;
+import android.graphics.Typeface;
 import android.view.View;
 
-import androidx.core.content.ContextCompat;
-
 import java.text.DateFormatSymbols;
 import java.util.Locale;
 
-import ir.mahdiparastesh.mcdtp.McdtpUtils;
-import ir.mahdiparastesh.mcdtp.R;
+import ir.mahdiparastesh.mcdtp.PickerTheme;
 
 /** Draw the two smaller AM and PM circles next to where the larger circle will be. */
 public class AmPmCirclesView extends View {
 
-    // Alpha level for selected circle.
-    private static final int SELECTED_ALPHA = McdtpUtils.SELECTED_ALPHA;
-    private static final int SELECTED_ALPHA_THEME_DARK = McdtpUtils.SELECTED_ALPHA_THEME_DARK;
-
     private final Paint mPaint = new Paint();
     private int mSelectedAlpha;
     private int mTouchedColor;
@@ -56,32 +50,22 @@ public class AmPmCirclesView extends View {
     public void initialize(Context context, Locale locale, TimePickerController controller, int amOrPm) {
         if (mIsInitialized) return;
 
-        mAmPmDisabledTextColor = ContextCompat.getColor(context, R.color.date_picker_text_disabled);
-        mAmPmTextColor = McdtpUtils.themeColor(context,
-                com.google.android.material.R.attr.colorOnSurface);
-        if (McdtpUtils.night(context)) {
-            mUnselectedColor = ContextCompat.getColor(context, R.color.circle_background_dark_theme);
-            mSelectedAlpha = SELECTED_ALPHA_THEME_DARK;
-        } else {
-            mUnselectedColor = ContextCompat.getColor(context, android.R.color.white);
-            mSelectedAlpha = SELECTED_ALPHA;
-        }
+        PickerTheme theme = controller.getPickerTheme();
+        mAmPmDisabledTextColor = theme.disabledTextColor;
+        mAmPmTextColor = theme.colorOnSurface;
+        mUnselectedColor = theme.amPmUnselectedColor;
+        mSelectedAlpha = theme.selectedAlpha;
 
-        mSelectedColor = McdtpUtils.themeColor(context,
-                com.google.android.material.R.attr.colorPrimaryContainer);
-        mTouchedColor = McdtpUtils.themeColor(context,
-                com.google.android.material.R.attr.colorPrimaryVariant);
-        mAmPmSelectedTextColor = McdtpUtils.themeColor(context,
-                com.google.android.material.R.attr.colorOnPrimaryContainer);
+        mSelectedColor = theme.colorPrimaryContainer;
+        mTouchedColor = theme.colorPrimaryVariant;
+        mAmPmSelectedTextColor = theme.colorOnPrimaryContainer;
 
-        mPaint.setTypeface(McdtpUtils.normalFont(context, controller));
+        mPaint.setTypeface(theme.getNormalFont());
         mPaint.setAntiAlias(true);
         mPaint.setTextAlign(Align.CENTER);
 
-        mCircleRadiusMultiplier =
-                Float.parseFloat(context.getString(R.string.circle_radius_multiplier));
-        mAmPmCircleRadiusMultiplier =
-                Float.parseFloat(context.getString(R.string.ampm_circle_radius_multiplier));
+        mCircleRadiusMultiplier = theme.circleRadiusMultiplier;
+        mAmPmCircleRadiusMultiplier = theme.amPmCircleRadiusMultiplier;
         String[] amPmTexts = new DateFormatSymbols(locale).getAmPmStrings();
         mAmText = amPmTexts[0];
         mPmText = amPmTexts[1];
@@ -126,6 +110,12 @@ public class AmPmCirclesView extends View {
         return -1;
     }
 
+    void setTypeface(Typeface typeface) {
+        if (!mIsInitialized || mPaint.getTypeface() == typeface) return;
+        mPaint.setTypeface(typeface);
+        invalidate();
+    }
+
     @Override
     public void onDraw(Canvas canvas) {
         int viewWidth = getWidth();
@@ -1,15 +1,11 @@
 package ir.mahdiparastesh.mcdtp.time;
 
 import android.content.Context;
-import android.content.res.Resources;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.view.View;
 
-import androidx.core.content.ContextCompat;
-
-import ir.mahdiparastesh.mcdtp.McdtpUtils;
-import ir.mahdiparastesh.mcdtp.R;
+import ir.mahdiparastesh.mcdtp.PickerTheme;
 
 /** Draws a simple white circle on which the numbers will be drawn. */
 public class CircleView extends View {
@@ -36,23 +32,18 @@ public class CircleView extends View {
     public void initialize(Context context, TimePickerController controller) {
         if (mIsInitialized) return;
 
-        Resources res = context.getResources();
+        PickerTheme theme = controller.getPickerTheme();
 
-        int colorRes = McdtpUtils.night(context) ? R.color.circle_background_dark_theme : R.color.circle_color;
-        mCircleColor = ContextCompat.getColor(context, colorRes);
-        mDotColor = McdtpUtils.themeColor(context,
-                com.google.android.material.R.attr.colorPrimary);
+        mCircleColor = theme.circleColor;
+        mDotColor = theme.colorPrimary;
         mPaint.setAntiAlias(true);
 
         mIs24HourMode = controller.is24HourMode();
         if (mIs24HourMode || controller.getVersion() != TimePickerDialog.Version.VERSION_1) {
-            mCircleRadiusMultiplier = Float.parseFloat(
-                    res.getString(R.string.circle_radius_multiplier_24HourMode));
+            mCircleRadiusMultiplier = theme.circleRadiusMultiplier24HourMode;
         } else {
-            mCircleRadiusMultiplier = Float.parseFloat(
-                    res.getString(R.string.circle_radius_multiplier));
-            mAmPmCircleRadiusMultiplier =
-                    Float.parseFloat(res.getString(R.string.ampm_circle_radius_multiplier));
+            mCircleRadiusMultiplier = theme.circleRadiusMultiplier;
+            mAmPmCircleRadiusMultiplier = theme.amPmCircleRadiusMultiplier;
         }
 
         mIsInitialized = true;
@@ -1,25 +1,21 @@
 package ir.mahdiparastesh.mcdtp.time;
 
-import static ir.mahdiparastesh.mcdtp.time.TimePickerDialog.HOUR_INDEX;
-import static ir.mahdiparastesh.mcdtp.time.TimePickerDialog.MINUTE_INDEX;
-
+import android.os.BadParcelableException;
 import android.os.Parcel;
 import android.os.Parcelable;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import java.util.Arrays;
-import java.util.TreeSet;
+import ir.mahdiparastesh.mcdtp.McdtpTrace;
+import ir.mahdiparastesh.mcdtp.engine.TimeRules;
 
 /**
  * An implementation of TimepointLimiter which implements the most common ways to restrict Timepoints
- * in a TimePickerDialog
+ * in a TimePickerDialog; the rules themselves are applied by {@link TimeRules} on seconds of the day.
  */
 class DefaultTimepointLimiter implements TimepointLimiter {
-    private final TreeSet<Timepoint> mSelectableTimes = new TreeSet<>();
-    private final TreeSet<Timepoint> mDisabledTimes = new TreeSet<>();
-    private TreeSet<Timepoint> exclusiveSelectableTimes = new TreeSet<>();
+    private final TimeRules mRules = new TimeRules();
     private Timepoint mMinTime;
     private Timepoint mMaxTime;
 
@@ -30,17 +26,22 @@ class DefaultTimepointLimiter implements TimepointLimiter {
     public DefaultTimepointLimiter(Parcel in) {
         mMinTime = in.readParcelable(Timepoint.class.getClassLoader());
         mMaxTime = in.readParcelable(Timepoint.class.getClassLoader());
-        mSelectableTimes.addAll(Arrays.asList(in.createTypedArray(Timepoint.CREATOR)));
-        mDisabledTimes.addAll(Arrays.asList(in.createTypedArray(Timepoint.CREATOR)));
-        exclusiveSelectableTimes = getExclusiveSelectableTimes(mSelectableTimes, mDisabledTimes);
+        try {
+            mRules.addSelectable(SecondsCodec.decode(in.createByteArray()));
+            mRules.addDisabled(SecondsCodec.decode(in.createByteArray()));
+        } catch (IllegalArgumentException e) {
+            throw new BadParcelableException(e);
+        }
+        if (mMinTime != null) mRules.setMin(mMinTime.toSeconds());
+        if (mMaxTime != null) mRules.setMax(mMaxTime.toSeconds());
     }
 
     @Override
     public void writeToParcel(Parcel out, int flags) {
         out.writeParcelable(mMinTime, flags);
         out.writeParcelable(mMaxTime, flags);
-        out.writeTypedArray(mSelectableTimes.toArray(new Timepoint[0]), flags);
-        out.writeTypedArray(mDisabledTimes.toArray(new Timepoint[0]), flags);
+        out.writeByteArray(SecondsCodec.encode(mRules.getSelectable()));
+        out.writeByteArray(SecondsCodec.encode(mRules.getDisabled()));
     }
 
     @Override
@@ -61,25 +62,21 @@ class DefaultTimepointLimiter implements TimepointLimiter {
     };
 
     void setMinTime(@NonNull Timepoint minTime) {
-        if (mMaxTime != null && minTime.compareTo(mMaxTime) > 0)
-            throw new IllegalArgumentException("Minimum time must be smaller than the maximum time");
+        mRules.setMin(minTime.toSeconds());
         mMinTime = minTime;
     }
 
     void setMaxTime(@NonNull Timepoint maxTime) {
-        if (mMinTime != null && maxTime.compareTo(mMinTime) < 0)
-            throw new IllegalArgumentException("Maximum time must be greater than the minimum time");
+        mRules.setMax(maxTime.toSeconds());
         mMaxTime = maxTime;
     }
 
     void setSelectableTimes(@NonNull Timepoint[] selectableTimes) {
-        mSelectableTimes.addAll(Arrays.asList(selectableTimes));
-        exclusiveSelectableTimes = getExclusiveSelectableTimes(mSelectableTimes, mDisabledTimes);
+        mRules.addSelectable(toSeconds(selectableTimes));
     }
 
     void setDisabledTimes(@NonNull Timepoint[] disabledTimes) {
-        mDisabledTimes.addAll(Arrays.asList(disabledTimes));
-        exclusiveSelectableTimes = getExclusiveSelectableTimes(mSelectableTimes, mDisabledTimes);
+        mRules.addDisabled(toSeconds(disabledTimes));
     }
 
     @SuppressWarnings("unused")
@@ -97,228 +94,70 @@ class DefaultTimepointLimiter implements TimepointLimiter {
     @SuppressWarnings("unused")
     @NonNull
     Timepoint[] getSelectableTimes() {
-        return mSelectableTimes.toArray(new Timepoint[0]);
+        return toTimepoints(mRules.getSelectable());
     }
 
     @SuppressWarnings("unused")
     @NonNull
     Timepoint[] getDisabledTimes() {
-        return mDisabledTimes.toArray(new Timepoint[0]);
-    }
-
-    @NonNull
-    private TreeSet<Timepoint> getExclusiveSelectableTimes(@NonNull TreeSet<Timepoint> selectable, @NonNull TreeSet<Timepoint> disabled) {
-        TreeSet<Timepoint> output = new TreeSet<>(selectable);
-        output.removeAll(disabled);
-        return output;
+        return toTimepoints(mRules.getDisabled());
     }
 
     @Override
     public boolean isOutOfRange(@Nullable Timepoint current, int index, @NonNull Timepoint.TYPE resolution) {
         if (current == null) return false;
-
-        if (index == HOUR_INDEX) {
-            if (mMinTime != null && mMinTime.getHour() > current.getHour()) return true;
-
-            if (mMaxTime != null && mMaxTime.getHour() + 1 <= current.getHour()) return true;
-
-            if (!exclusiveSelectableTimes.isEmpty()) {
-                Timepoint ceil = exclusiveSelectableTimes.ceiling(current);
-                Timepoint floor = exclusiveSelectableTimes.floor(current);
-                return !(current.equals(ceil, Timepoint.TYPE.HOUR) || current.equals(floor, Timepoint.TYPE.HOUR));
-            }
-
-            if (!mDisabledTimes.isEmpty() && resolution == Timepoint.TYPE.HOUR) {
-                Timepoint ceil = mDisabledTimes.ceiling(current);
-                Timepoint floor = mDisabledTimes.floor(current);
-                return current.equals(ceil, Timepoint.TYPE.HOUR) || current.equals(floor, Timepoint.TYPE.HOUR);
-            }
-
-            return false;
-        } else if (index == MINUTE_INDEX) {
-            if (mMinTime != null) {
-                Timepoint roundedMin = new Timepoint(mMinTime.getHour(), mMinTime.getMinute());
-                if (roundedMin.compareTo(current) > 0) return true;
-            }
-
-            if (mMaxTime != null) {
-                Timepoint roundedMax = new Timepoint(mMaxTime.getHour(), mMaxTime.getMinute(), 59);
-                if (roundedMax.compareTo(current) < 0) return true;
-            }
-
-            if (!exclusiveSelectableTimes.isEmpty()) {
-                Timepoint ceil = exclusiveSelectableTimes.ceiling(current);
-                Timepoint floor = exclusiveSelectableTimes.floor(current);
-                return !(current.equals(ceil, Timepoint.TYPE.MINUTE) || current.equals(floor, Timepoint.TYPE.MINUTE));
-            }
-
-            if (!mDisabledTimes.isEmpty() && resolution == Timepoint.TYPE.MINUTE) {
-                Timepoint ceil = mDisabledTimes.ceiling(current);
-                Timepoint floor = mDisabledTimes.floor(current);
-                boolean ceilExclude = current.equals(ceil, Timepoint.TYPE.MINUTE);
-                boolean floorExclude = current.equals(floor, Timepoint.TYPE.MINUTE);
-                return ceilExclude || floorExclude;
-            }
-
-            return false;
-        } else return isOutOfRange(current);
+        return mRules.isOutOfRange(current.toSeconds(), index, resolution.ordinal());
     }
 
     public boolean isOutOfRange(@NonNull Timepoint current) {
-        if (mMinTime != null && mMinTime.compareTo(current) > 0) return true;
-
-        if (mMaxTime != null && mMaxTime.compareTo(current) < 0) return true;
-
-        if (!exclusiveSelectableTimes.isEmpty()) return !exclusiveSelectableTimes.contains(current);
-
-        return mDisabledTimes.contains(current);
+        return mRules.isOutOfRange(current.toSeconds());
     }
 
-    @SuppressWarnings("SimplifiableIfStatement")
     @Override
     public boolean isAmDisabled() {
-        Timepoint midday = new Timepoint(12);
-
-        if (mMinTime != null && mMinTime.compareTo(midday) >= 0) return true;
-
-        if (!exclusiveSelectableTimes.isEmpty())
-            return exclusiveSelectableTimes.first().compareTo(midday) >= 0;
-
-        return false;
+        return mRules.isAmDisabled();
     }
 
-    @SuppressWarnings("SimplifiableIfStatement")
     @Override
     public boolean isPmDisabled() {
-        Timepoint midday = new Timepoint(12);
-
-        if (mMaxTime != null && mMaxTime.compareTo(midday) < 0) return true;
-
-        if (!exclusiveSelectableTimes.isEmpty())
-            return exclusiveSelectableTimes.last().compareTo(midday) < 0;
-
-        return false;
+        return mRules.isPmDisabled();
     }
 
     @Override
     public @NonNull Timepoint roundToNearest(@NonNull Timepoint time, @Nullable Timepoint.TYPE type, @NonNull Timepoint.TYPE resolution) {
-        if (mMinTime != null && mMinTime.compareTo(time) > 0) return mMinTime;
-
-        if (mMaxTime != null && mMaxTime.compareTo(time) < 0) return mMaxTime;
-
-        // type == SECOND: cannot change anything, return input
-        if (type == Timepoint.TYPE.SECOND) return time;
-
-        if (!exclusiveSelectableTimes.isEmpty()) {
-            Timepoint floor = exclusiveSelectableTimes.floor(time);
-            Timepoint ceil = exclusiveSelectableTimes.ceiling(time);
-
-            if (floor == null || ceil == null) {
-                Timepoint t = floor == null ? ceil : floor;
-                if (type == null) return t;
-                if (t.getHour() != time.getHour()) return time;
-                if (type == Timepoint.TYPE.MINUTE && t.getMinute() != time.getMinute()) return time;
-                return t;
-            }
-
-            if (type == Timepoint.TYPE.HOUR) {
-                if (floor.getHour() != time.getHour() && ceil.getHour() == time.getHour())
-                    return ceil;
-                if (floor.getHour() == time.getHour() && ceil.getHour() != time.getHour())
-                    return floor;
-                if (floor.getHour() != time.getHour() && ceil.getHour() != time.getHour())
-                    return time;
-            }
-
-            if (type == Timepoint.TYPE.MINUTE) {
-                if (floor.getHour() != time.getHour() && ceil.getHour() != time.getHour())
-                    return time;
-                if (floor.getHour() != time.getHour() && ceil.getHour() == time.getHour()) {
-                    return ceil.getMinute() == time.getMinute() ? ceil : time;
-                }
-                if (floor.getHour() == time.getHour() && ceil.getHour() != time.getHour()) {
-                    return floor.getMinute() == time.getMinute() ? floor : time;
-                }
-                if (floor.getMinute() != time.getMinute() && ceil.getMinute() == time.getMinute())
-                    return ceil;
-                if (floor.getMinute() == time.getMinute() && ceil.getMinute() != time.getMinute())
-                    return floor;
-                if (floor.getMinute() != time.getMinute() && ceil.getMinute() != time.getMinute())
-                    return time;
-            }
-
-            int floorDist = Math.abs(time.compareTo(floor));
-            int ceilDist = Math.abs(time.compareTo(ceil));
-
-            return floorDist < ceilDist ? floor : ceil;
+        boolean traced = McdtpTrace.begin("mcdtp:DefaultTimepointLimiter.roundToNearest");
+        try {
+            int seconds = mRules.roundToNearest(time.toSeconds(),
+                    type == null ? TimeRules.ANY : type.ordinal(), resolution.ordinal());
+            if (mMinTime != null && seconds == mMinTime.toSeconds()) return mMinTime;
+            if (mMaxTime != null && seconds == mMaxTime.toSeconds()) return mMaxTime;
+            return toTimepoint(seconds, time);
+        } finally {
+            McdtpTrace.end(traced);
         }
-
-        if (!mDisabledTimes.isEmpty()) {
-            // if type matches resolution: cannot change anything, return input
-            if (type == resolution) return time;
-
-            if (resolution == Timepoint.TYPE.SECOND) {
-                if (!mDisabledTimes.contains(time)) return time;
-                return searchValidTimePoint(time, type, resolution);
-            }
-
-            if (resolution == Timepoint.TYPE.MINUTE) {
-                Timepoint ceil = mDisabledTimes.ceiling(time);
-                Timepoint floor = mDisabledTimes.floor(time);
-                boolean ceilDisabled = time.equals(ceil, Timepoint.TYPE.MINUTE);
-                boolean floorDisabled = time.equals(floor, Timepoint.TYPE.MINUTE);
-
-                if (ceilDisabled || floorDisabled)
-                    return searchValidTimePoint(time, type, resolution);
-                return time;
-            }
-
-            if (resolution == Timepoint.TYPE.HOUR) {
-                Timepoint ceil = mDisabledTimes.ceiling(time);
-                Timepoint floor = mDisabledTimes.floor(time);
-                boolean ceilDisabled = time.equals(ceil, Timepoint.TYPE.HOUR);
-                boolean floorDisabled = time.equals(floor, Timepoint.TYPE.HOUR);
-
-                if (ceilDisabled || floorDisabled)
-                    return searchValidTimePoint(time, type, resolution);
-                return time;
-            }
-        }
-
-        return time;
     }
 
-    private Timepoint searchValidTimePoint(@NonNull Timepoint time, @Nullable Timepoint.TYPE type, @NonNull Timepoint.TYPE resolution) {
-        Timepoint forward = new Timepoint(time);
-        Timepoint backward = new Timepoint(time);
-        int iteration = 0;
-        int resolutionMultiplier = 1;
-        if (resolution == Timepoint.TYPE.MINUTE) resolutionMultiplier = 60;
-        if (resolution == Timepoint.TYPE.SECOND) resolutionMultiplier = 3600;
-
-        while (iteration < 24 * resolutionMultiplier) {
-            iteration++;
-            forward.add(resolution, 1);
-            backward.add(resolution, -1);
-
-            if (type == null || forward.get(type) == time.get(type)) {
-                Timepoint forwardCeil = mDisabledTimes.ceiling(forward);
-                Timepoint forwardFloor = mDisabledTimes.floor(forward);
-                if (!forward.equals(forwardCeil, resolution) && !forward.equals(forwardFloor, resolution))
-                    return forward;
-            }
+    /**
+     * Avoids allocating a Timepoint when the result is the same as the input.
+     */
+    @NonNull
+    private static Timepoint toTimepoint(int seconds, @NonNull Timepoint input) {
+        if (seconds == input.toSeconds()) return input;
+        return new Timepoint(seconds / 3600, (seconds / 60) % 60, seconds % 60);
+    }
 
-            if (type == null || backward.get(type) == time.get(type)) {
-                Timepoint backwardCeil = mDisabledTimes.ceiling(backward);
-                Timepoint backwardFloor = mDisabledTimes.floor(backward);
-                if (!backward.equals(backwardCeil, resolution) && !backward.equals(backwardFloor, resolution))
-                    return backward;
-            }
+    @NonNull
+    private static int[] toSeconds(@NonNull Timepoint[] times) {
+        int[] output = new int[times.length];
+        for (int i = 0; i < times.length; i++) output[i] = times[i].toSeconds();
+        return output;
+    }
 
-            if (type != null && backward.get(type) != time.get(type) && forward.get(type) != time.get(type))
-                break;
-        }
-        // If this step is reached, the user has disabled all timepoints
-        return time;
+    @NonNull
+    private static Timepoint[] toTimepoints(@NonNull int[] times) {
+        Timepoint[] output = new Timepoint[times.length];
+        for (int i = 0; i < times.length; i++)
+            output[i] = new Timepoint(times[i] / 3600, (times[i] / 60) % 60, times[i] % 60);
+        return output;
     }
 }
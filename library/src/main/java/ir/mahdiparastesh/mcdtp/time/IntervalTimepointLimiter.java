@@ -0,0 +1,149 @@
+package ir.mahdiparastesh.mcdtp.time;
+
+import android.os.BadParcelableException;
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+import ir.mahdiparastesh.mcdtp.engine.IntervalRules;
+import ir.mahdiparastesh.mcdtp.engine.TimeRules;
+
+/**
+ * An implementation of TimepointLimiter which restricts the selectable times to a set of
+ * intervals, e.g. opening hours with a lunch break.
+ * <p>
+ * Every interval is a [start, end) range expressed in seconds of the day (see
+ * {@link Timepoint#toSeconds()}); the intervals of a schedule must be sorted and must not overlap.
+ * The rules of each schedule are an {@link IntervalRules} of the engine.
+ * Several named schedules (e.g. one per weekday) can be added and the host can switch between them
+ * with {@link #setActiveSchedule(String)} before showing the picker.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class IntervalTimepointLimiter implements TimepointLimiter {
+    public static final String DEFAULT_SCHEDULE = "default";
+
+    private final LinkedHashMap<String, IntervalRules> mSchedules = new LinkedHashMap<>();
+    private String mActiveSchedule;
+    private IntervalRules mRules;
+
+    public IntervalTimepointLimiter() {
+    }
+
+    /**
+     * Creates a limiter with a single schedule named {@link #DEFAULT_SCHEDULE}.
+     *
+     * @param starts the inclusive starts of the intervals in seconds of the day
+     * @param ends   the exclusive ends of the intervals in seconds of the day
+     */
+    public IntervalTimepointLimiter(@NonNull int[] starts, @NonNull int[] ends) {
+        addSchedule(DEFAULT_SCHEDULE, starts, ends);
+    }
+
+    public IntervalTimepointLimiter(Parcel in) {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String name = in.readString();
+            try {
+                mSchedules.put(name, new IntervalRules(in.createIntArray(), in.createIntArray()));
+            } catch (IllegalArgumentException e) {
+                throw new BadParcelableException(e);
+            }
+        }
+        String active = in.readString();
+        if (active != null) setActiveSchedule(active);
+    }
+
+    @Override
+    public void writeToParcel(Parcel out, int flags) {
+        out.writeInt(mSchedules.size());
+        for (String name : mSchedules.keySet()) {
+            IntervalRules schedule = mSchedules.get(name);
+            out.writeString(name);
+            out.writeIntArray(schedule.getStarts());
+            out.writeIntArray(schedule.getEnds());
+        }
+        out.writeString(mActiveSchedule);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Parcelable.Creator<IntervalTimepointLimiter> CREATOR
+            = new Parcelable.Creator<>() {
+        public IntervalTimepointLimiter createFromParcel(Parcel in) {
+            return new IntervalTimepointLimiter(in);
+        }
+
+        public IntervalTimepointLimiter[] newArray(int size) {
+            return new IntervalTimepointLimiter[size];
+        }
+    };
+
+    /**
+     * Adds (or replaces) a named schedule. The first schedule which is added becomes the active one.
+     *
+     * @param name   the name of the schedule
+     * @param starts the inclusive starts of the intervals in seconds of the day
+     * @param ends   the exclusive ends of the intervals in seconds of the day
+     */
+    public void addSchedule(@NonNull String name, @NonNull int[] starts, @NonNull int[] ends) {
+        mSchedules.put(name, new IntervalRules(starts, ends));
+        if (mActiveSchedule == null || mActiveSchedule.equals(name)) setActiveSchedule(name);
+    }
+
+    /**
+     * Switches the schedule which is used for limiting the picker.
+     * Must be called before the picker is shown, see {@link TimepointLimiter#isAmDisabled()}.
+     */
+    public void setActiveSchedule(@NonNull String name) {
+        IntervalRules schedule = mSchedules.get(name);
+        if (schedule == null)
+            throw new IllegalArgumentException("There is no schedule named " + name);
+        mActiveSchedule = name;
+        mRules = schedule;
+    }
+
+    @Nullable
+    public String getActiveSchedule() {
+        return mActiveSchedule;
+    }
+
+    @NonNull
+    public Set<String> getScheduleNames() {
+        return Collections.unmodifiableSet(mSchedules.keySet());
+    }
+
+    @Override
+    public boolean isOutOfRange(@Nullable Timepoint point, int index, @NonNull Timepoint.TYPE resolution) {
+        if (point == null || mRules == null) return false;
+        return mRules.isOutOfRange(point.toSeconds(), index, resolution.ordinal());
+    }
+
+    @Override
+    public boolean isAmDisabled() {
+        return mRules != null && mRules.isAmDisabled();
+    }
+
+    @Override
+    public boolean isPmDisabled() {
+        return mRules != null && mRules.isPmDisabled();
+    }
+
+    @Override
+    public @NonNull Timepoint roundToNearest(@NonNull Timepoint time, @Nullable Timepoint.TYPE type, @NonNull Timepoint.TYPE resolution) {
+        if (mRules == null) return time;
+        int seconds = time.toSeconds();
+        int nearest = mRules.roundToNearest(seconds,
+                type == null ? TimeRules.ANY : type.ordinal(), resolution.ordinal());
+        if (nearest == seconds) return time;
+        return new Timepoint(nearest / 3600, (nearest / 60) % 60, nearest % 60);
+    }
+}
@@ -3,11 +3,13 @@ package ir.mahdiparastesh.mcdtp.time;
 import android.animation.AnimatorSet;
 import android.animation.ObjectAnimator;
 import android.content.Context;
+import android.graphics.Typeface;
 import android.icu.util.Calendar;
 import android.os.Bundle;
 import android.os.Handler;
 import android.text.format.DateUtils;
 import android.util.AttributeSet;
+import android.view.Choreographer;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.View.OnTouchListener;
@@ -23,7 +25,11 @@ import androidx.core.content.ContextCompat;
 
 import java.util.Locale;
 
+import ir.mahdiparastesh.mcdtp.LocalNumerals;
+import ir.mahdiparastesh.mcdtp.McdtpTrace;
+import ir.mahdiparastesh.mcdtp.PickerMetrics;
 import ir.mahdiparastesh.mcdtp.R;
+import ir.mahdiparastesh.mcdtp.engine.ClockDial;
 
 /**
  * The primary layout to hold the circular picker, and the am/pm buttons. This view will measure
@@ -35,17 +41,32 @@ public class RadialPickerLayout extends FrameLayout implements OnTouchListener {
     private final int TOUCH_SLOP;
     private final int TAP_TIMEOUT;
 
-    private static final int VISIBLE_DEGREES_STEP_SIZE = 30;
-    private static final int HOUR_VALUE_TO_DEGREES_STEP_SIZE = VISIBLE_DEGREES_STEP_SIZE;
-    private static final int MINUTE_VALUE_TO_DEGREES_STEP_SIZE = 6;
-    private static final int SECOND_VALUE_TO_DEGREES_STEP_SIZE = 6;
+    private static final int HOUR_VALUE_TO_DEGREES_STEP_SIZE = ClockDial.HOUR_VALUE_TO_DEGREES_STEP_SIZE;
+    private static final int MINUTE_VALUE_TO_DEGREES_STEP_SIZE = ClockDial.MINUTE_VALUE_TO_DEGREES_STEP_SIZE;
+    private static final int SECOND_VALUE_TO_DEGREES_STEP_SIZE = ClockDial.SECOND_VALUE_TO_DEGREES_STEP_SIZE;
     private static final int HOUR_INDEX = TimePickerDialog.HOUR_INDEX;
     private static final int MINUTE_INDEX = TimePickerDialog.MINUTE_INDEX;
     private static final int SECOND_INDEX = TimePickerDialog.SECOND_INDEX;
     private static final int AM = TimePickerDialog.AM;
     private static final int PM = TimePickerDialog.PM;
 
-    private Timepoint mLastValueSelected;
+    // Reusable state of the touch pipeline, so that dragging over the dial doesn't allocate.
+    private final Timepoint mLastValueSelected = new Timepoint(0);
+    private boolean mHasLastValueSelected;
+    private final Timepoint mTimeFromDegrees = new Timepoint(0);
+    private final Timepoint mValidatorTime = new Timepoint(0);
+    private final boolean[] mIsInnerCircle = new boolean[1];
+    private boolean mDownIsInnerCircle;
+    private final Runnable mAmPmPressedRunnable = this::onAmPmPressed;
+    private final Runnable mDownSelectedRunnable = this::onDownSelected;
+    // Moves are handled once per frame, at the latest position.
+    private final Choreographer mChoreographer = Choreographer.getInstance();
+    private final Choreographer.FrameCallback mMoveFrameCallback = this::onMoveFrame;
+    private boolean mMoveFrameScheduled;
+    private float mPendingMoveX;
+    private float mPendingMoveY;
+    // Event time of the latest move, in uptime milliseconds
+    private long mPendingMoveTime;
 
     private TimePickerController mController;
     private OnValueSelectedListener mListener;
@@ -62,8 +83,11 @@ public class RadialPickerLayout extends FrameLayout implements OnTouchListener {
     private final RadialSelectorView mMinuteRadialSelectorView;
     private final RadialSelectorView mSecondRadialSelectorView;
     private final View mGrayBox;
+    // The minute and second dials are initialized when they're first shown, see initializeDial()
+    private LocalNumerals mNumerals;
+    private boolean mMinuteDialInitialized;
+    private boolean mSecondDialInitialized;
 
-    private int[] mSnapPrefer30sMap;
     private boolean mInputEnabled;
     private int mIsTouchingAmOrPm = -1;
     private boolean mDoingMove;
@@ -77,6 +101,9 @@ public class RadialPickerLayout extends FrameLayout implements OnTouchListener {
     private final Handler mHandler = new Handler();
 
     public interface OnValueSelectedListener {
+        /**
+         * @param newTime may be reused for the next value while dragging, copy it to keep it.
+         */
         void onValueSelected(Timepoint newTime);
 
         void enablePicker();
@@ -113,11 +140,6 @@ public class RadialPickerLayout extends FrameLayout implements OnTouchListener {
         mSecondRadialTextsView = new RadialTextsView(context);
         addView(mSecondRadialTextsView);
 
-        // Prepare mapping to snap touchable degrees to selectable degrees.
-        preparePrefer30sMap();
-
-        mLastValueSelected = null;
-
         mInputEnabled = true;
 
         mGrayBox = new View(context);
@@ -157,64 +179,46 @@ public class RadialPickerLayout extends FrameLayout implements OnTouchListener {
             mAmPmCirclesView.invalidate();
         }
 
-        // Create the selection validators
-        RadialTextsView.SelectionValidator secondValidator = selection -> {
-            Timepoint newTime = new Timepoint(
-                    mCurrentTime.getHour(), mCurrentTime.getMinute(), selection);
-            return !mController.isOutOfRange(newTime, SECOND_INDEX);
-        };
-        RadialTextsView.SelectionValidator minuteValidator = selection -> {
-            Timepoint newTime = new Timepoint(
-                    mCurrentTime.getHour(), selection, mCurrentTime.getSecond());
-            return !mController.isOutOfRange(newTime, MINUTE_INDEX);
-        };
+        // Create the selection validator
         RadialTextsView.SelectionValidator hourValidator = selection -> {
-            Timepoint newTime = new Timepoint(
-                    selection, mCurrentTime.getMinute(), mCurrentTime.getSecond());
-            if (!mController.is24HourMode() && getIsCurrentlyAmOrPm() == PM) newTime.setPM();
-            if (!mController.is24HourMode() && getIsCurrentlyAmOrPm() == AM) newTime.setAM();
-            return !mController.isOutOfRange(newTime, HOUR_INDEX);
+            mValidatorTime.set(selection, mCurrentTime.getMinute(), mCurrentTime.getSecond());
+            if (!mController.is24HourMode() && getIsCurrentlyAmOrPm() == PM) mValidatorTime.setPM();
+            if (!mController.is24HourMode() && getIsCurrentlyAmOrPm() == AM) mValidatorTime.setAM();
+            return !mController.isOutOfRange(mValidatorTime, HOUR_INDEX);
         };
 
-        // Initialize the hours and minutes numbers.
+        // Initialize the hours numbers.
         int[] hours = {12, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11};
         int[] hours_24 = {0, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23};
-        int[] minutes = {0, 5, 10, 15, 20, 25, 30, 35, 40, 45, 50, 55};
-        int[] seconds = {0, 5, 10, 15, 20, 25, 30, 35, 40, 45, 50, 55};
         String[] hoursTexts = new String[12];
         String[] innerHoursTexts = new String[12];
-        String[] minutesTexts = new String[12];
-        String[] secondsTexts = new String[12];
+        mNumerals = LocalNumerals.of(locale);
         for (int i = 0; i < 12; i++) {
             hoursTexts[i] = mController.is24HourMode()
-                    ? String.format(locale, "%02d", hours_24[i])
-                    : String.format(locale, "%d", hours[i]);
-            innerHoursTexts[i] = String.format(locale, "%d", hours[i]);
-            minutesTexts[i] = String.format(locale, "%02d", minutes[i]);
-            secondsTexts[i] = String.format(locale, "%02d", seconds[i]);
+                    ? mNumerals.padded(hours_24[i])
+                    : mNumerals.plain(hours[i]);
+            innerHoursTexts[i] = mNumerals.plain(hours[i]);
         }
+        int[] hoursValues = mController.is24HourMode() ? hours_24 : hours;
+        int[] innerHoursValues = hours;
         // The version 2 layout has the hours > 12 on the inner circle rather than the outer circle
         // Inner circle and outer circle should be swapped (see #411)
         if (mController.getVersion() == TimePickerDialog.Version.VERSION_2) {
             String[] temp = hoursTexts;
             hoursTexts = innerHoursTexts;
             innerHoursTexts = temp;
+            int[] tempValues = hoursValues;
+            hoursValues = innerHoursValues;
+            innerHoursValues = tempValues;
         }
 
         mHourRadialTextsView.initialize(context, hoursTexts,
-                mController.is24HourMode() ? innerHoursTexts : null,
+                mController.is24HourMode() ? innerHoursTexts : null, hoursValues,
+                mController.is24HourMode() ? innerHoursValues : null,
                 mController, hourValidator, true);
         mHourRadialTextsView.setSelection(
                 mController.is24HourMode() ? initialTime.getHour() : hours[initialTime.getHour() % 12]);
         mHourRadialTextsView.invalidate();
-        mMinuteRadialTextsView.initialize(
-                context, minutesTexts, null, mController, minuteValidator, false);
-        mMinuteRadialTextsView.setSelection(initialTime.getMinute());
-        mMinuteRadialTextsView.invalidate();
-        mSecondRadialTextsView.initialize(
-                context, secondsTexts, null, mController, secondValidator, false);
-        mSecondRadialTextsView.setSelection(initialTime.getSecond());
-        mSecondRadialTextsView.invalidate();
 
         // Initialize the currently-selected hour and minute.
         mCurrentTime = initialTime;
@@ -222,18 +226,55 @@ public class RadialPickerLayout extends FrameLayout implements OnTouchListener {
         mHourRadialSelectorView.initialize(
                 context, mController, mController.is24HourMode(), true,
                 hourDegrees, isHourInnerCircle(initialTime.getHour()));
-        int minuteDegrees = initialTime.getMinute() * MINUTE_VALUE_TO_DEGREES_STEP_SIZE;
-        mMinuteRadialSelectorView.initialize(
-                context, mController, false, false,
-                minuteDegrees, false);
-        int secondDegrees = initialTime.getSecond() * SECOND_VALUE_TO_DEGREES_STEP_SIZE;
-        mSecondRadialSelectorView.initialize(
-                context, mController, false, false,
-                secondDegrees, false);
 
         mTimeInitialized = true;
     }
 
+    /**
+     * Initializes the texts and the selector of the minutes or the seconds when they're shown for
+     * the first time, so that a picker which never shows them doesn't format their labels. The
+     * uninitialized views stay in place without drawing anything.
+     */
+    private void initializeDial(int index) {
+        if (index == HOUR_INDEX
+                || (index == MINUTE_INDEX ? mMinuteDialInitialized : mSecondDialInitialized))
+            return;
+        int[] values = {0, 5, 10, 15, 20, 25, 30, 35, 40, 45, 50, 55};
+        String[] texts = new String[12];
+        for (int i = 0; i < 12; i++) texts[i] = mNumerals.padded(values[i]);
+        Context context = getContext();
+
+        if (index == MINUTE_INDEX) {
+            RadialTextsView.SelectionValidator minuteValidator = selection -> {
+                mValidatorTime.set(mCurrentTime.getHour(), selection, mCurrentTime.getSecond());
+                return !mController.isOutOfRange(mValidatorTime, MINUTE_INDEX);
+            };
+            mMinuteRadialTextsView.initialize(
+                    context, texts, null, values, null, mController, minuteValidator, false);
+            mMinuteRadialTextsView.setSelection(mCurrentTime.getMinute());
+            mMinuteRadialTextsView.invalidate();
+            int minuteDegrees = mCurrentTime.getMinute() * MINUTE_VALUE_TO_DEGREES_STEP_SIZE;
+            mMinuteRadialSelectorView.initialize(
+                    context, mController, false, false,
+                    minuteDegrees, false);
+            mMinuteDialInitialized = true;
+        } else {
+            RadialTextsView.SelectionValidator secondValidator = selection -> {
+                mValidatorTime.set(mCurrentTime.getHour(), mCurrentTime.getMinute(), selection);
+                return !mController.isOutOfRange(mValidatorTime, SECOND_INDEX);
+            };
+            mSecondRadialTextsView.initialize(
+                    context, texts, null, values, null, mController, secondValidator, false);
+            mSecondRadialTextsView.setSelection(mCurrentTime.getSecond());
+            mSecondRadialTextsView.invalidate();
+            int secondDegrees = mCurrentTime.getSecond() * SECOND_VALUE_TO_DEGREES_STEP_SIZE;
+            mSecondRadialSelectorView.initialize(
+                    context, mController, false, false,
+                    secondDegrees, false);
+            mSecondDialInitialized = true;
+        }
+    }
+
     public void setTime(Timepoint time) {
         setItem(HOUR_INDEX, time);
     }
@@ -243,10 +284,21 @@ public class RadialPickerLayout extends FrameLayout implements OnTouchListener {
      */
     private void setItem(int index, Timepoint time) {
         time = roundToValidTime(time, index);
-        mCurrentTime = time;
+        setCurrentTime(time);
         reselectSelector(time, false, index);
     }
 
+    /**
+     * Updates the selected time. The selectability of the texts depends on it, so they are
+     * re-evaluated on the next draw.
+     */
+    private void setCurrentTime(Timepoint time) {
+        mCurrentTime = time;
+        mHourRadialTextsView.invalidateValidity();
+        mMinuteRadialTextsView.invalidateValidity();
+        mSecondRadialTextsView.invalidateValidity();
+    }
+
     /**
      * Check if a given hour appears in the outer circle or the inner circle
      *
@@ -299,6 +351,18 @@ public class RadialPickerLayout extends FrameLayout implements OnTouchListener {
         return -1;
     }
 
+    /**
+     * Switches the dial to the custom font once it has been loaded in the background.
+     */
+    void onFontsLoaded() {
+        if (!mTimeInitialized) return;
+        Typeface font = mController.getPickerTheme().getNormalFont();
+        mHourRadialTextsView.setTypeface(font);
+        mMinuteRadialTextsView.setTypeface(font);
+        mSecondRadialTextsView.setTypeface(font);
+        mAmPmCirclesView.setTypeface(font);
+    }
+
     /**
      * Set the internal value as either AM or PM, and update the AM/PM circle displays.
      *
@@ -312,111 +376,10 @@ public class RadialPickerLayout extends FrameLayout implements OnTouchListener {
         else if (amOrPm == PM) newSelection.setPM();
         newSelection = roundToValidTime(newSelection, HOUR_INDEX);
         reselectSelector(newSelection, false, HOUR_INDEX);
-        mCurrentTime = newSelection;
+        setCurrentTime(newSelection);
         mListener.onValueSelected(newSelection);
     }
 
-    /**
-     * Split up the 360 degrees of the circle among the 60 selectable values. Assigns a larger
-     * selectable area to each of the 12 visible values, such that the ratio of space apportioned
-     * to a visible value : space apportioned to a non-visible value will be 14 : 4.
-     * E.g. the output of 30 degrees should have a higher range of input associated with it than
-     * the output of 24 degrees, because 30 degrees corresponds to a visible number on the clock
-     * circle (5 on the minutes, 1 or 13 on the hours).
-     */
-    private void preparePrefer30sMap() {
-        // We'll split up the visible output and the non-visible output such that each visible
-        // output will correspond to a range of 14 associated input degrees, and each non-visible
-        // output will correspond to a range of 4 associate input degrees, so visible numbers
-        // are more than 3 times easier to get than non-visible numbers:
-        // {354-359,0-7}:0, {8-11}:6, {12-15}:12, {16-19}:18, {20-23}:24, {24-37}:30, etc.
-        //
-        // If an output of 30 degrees should correspond to a range of 14 associated degrees, then
-        // we'll need any input between 24 - 37 to snap to 30. Working out from there, 20-23 should
-        // snap to 24, while 38-41 should snap to 36. This is somewhat counter-intuitive, that you
-        // can be touching 36 degrees but have the selection snapped to 30 degrees; however, this
-        // inconsistency isn't noticeable at such fine-grained degrees, and it affords us the
-        // ability to aggressively prefer the visible values by a factor of more than 3:1, which
-        // greatly contributes to the selectivity of these values.
-
-        // Our input will be 0 through 360.
-        mSnapPrefer30sMap = new int[361];
-
-        // The first output is 0, and each following output will increment by 6 {0, 6, 12, ...}.
-        int snappedOutputDegrees = 0;
-        // Count of how many inputs we've designated to the specified output.
-        int count = 1;
-        // How many input we expect for a specified output. This will be 14 for output divisible
-        // by 30, and 4 for the remaining output. We'll special case the outputs of 0 and 360, so
-        // the caller can decide which they need.
-        int expectedCount = 8;
-        // Iterate through the input.
-        for (int degrees = 0; degrees < 361; degrees++) {
-            // Save the input-output mapping.
-            mSnapPrefer30sMap[degrees] = snappedOutputDegrees;
-            // If this is the last input for the specified output, calculate the next output and
-            // the next expected count.
-            if (count == expectedCount) {
-                snappedOutputDegrees += 6;
-                if (snappedOutputDegrees == 360) {
-                    expectedCount = 7;
-                } else if (snappedOutputDegrees % 30 == 0) {
-                    expectedCount = 14;
-                } else {
-                    expectedCount = 4;
-                }
-                count = 1;
-            } else {
-                count++;
-            }
-        }
-    }
-
-    /**
-     * Returns mapping of any input degrees (0 to 360) to one of 60 selectable output degrees,
-     * where the degrees corresponding to visible numbers (i.e. those divisible by 30) will be
-     * weighted heavier than the degrees corresponding to non-visible numbers.
-     * See {@link #preparePrefer30sMap()} documentation for the rationale and generation of the
-     * mapping.
-     */
-    private int snapPrefer30s(int degrees) {
-        if (mSnapPrefer30sMap == null) {
-            return -1;
-        }
-        return mSnapPrefer30sMap[degrees];
-    }
-
-    /**
-     * Returns mapping of any input degrees (0 to 360) to one of 12 visible output degrees (all
-     * multiples of 30), where the input will be "snapped" to the closest visible degrees.
-     *
-     * @param degrees            The input degrees
-     * @param forceHigherOrLower The output may be forced to either the higher or lower step, or may
-     *                           be allowed to snap to whichever is closer. Use 1 to force strictly
-     *                           higher, -1 to force strictly lower, and 0 to snap to the closer one.
-     * @return output degrees, will be a multiple of 30
-     */
-    private static int snapOnly30s(int degrees, int forceHigherOrLower) {
-        int stepSize = HOUR_VALUE_TO_DEGREES_STEP_SIZE;
-        int floor = (degrees / stepSize) * stepSize;
-        int ceiling = floor + stepSize;
-        if (forceHigherOrLower == 1) {
-            degrees = ceiling;
-        } else if (forceHigherOrLower == -1) {
-            if (degrees == floor) {
-                floor -= stepSize;
-            }
-            degrees = floor;
-        } else {
-            if ((degrees - floor) < (ceiling - degrees)) {
-                degrees = floor;
-            } else {
-                degrees = ceiling;
-            }
-        }
-        return degrees;
-    }
-
     /**
      * Snap the input to a selectable value
      *
@@ -488,83 +451,37 @@ public class RadialPickerLayout extends FrameLayout implements OnTouchListener {
                 mSecondRadialTextsView.setSelection(newSelection.getSecond());
         }
 
-        // Invalidate the currently showing picker to force a redraw
+        // Invalidate the currently showing picker to force a redraw; the texts invalidate
+        // themselves, only if their selection has changed.
         switch (getCurrentItemShowing()) {
-            case HOUR_INDEX -> {
-                mHourRadialSelectorView.invalidate();
-                mHourRadialTextsView.invalidate();
-            }
-            case MINUTE_INDEX -> {
-                mMinuteRadialSelectorView.invalidate();
-                mMinuteRadialTextsView.invalidate();
-            }
-            case SECOND_INDEX -> {
-                mSecondRadialSelectorView.invalidate();
-                mSecondRadialTextsView.invalidate();
-            }
+            case HOUR_INDEX -> mHourRadialSelectorView.invalidate();
+            case MINUTE_INDEX -> mMinuteRadialSelectorView.invalidate();
+            case SECOND_INDEX -> mSecondRadialSelectorView.invalidate();
         }
     }
 
+    /**
+     * @return the time at the given degrees, stored in a reused instance which is only valid until
+     * the next call, or null if the degrees are illegal.
+     */
     private Timepoint getTimeFromDegrees(
             int degrees, boolean isInnerCircle, boolean forceToVisibleValue) {
         if (degrees == -1) {
             return null;
         }
         int currentShowing = getCurrentItemShowing();
+        int value = ClockDial.valueAt(currentShowing, degrees, isInnerCircle, forceToVisibleValue,
+                mController.is24HourMode(),
+                mController.getVersion() != TimePickerDialog.Version.VERSION_1,
+                getIsCurrentlyAmOrPm() == PM);
 
-        int stepSize;
-        boolean allowFineGrained = !forceToVisibleValue &&
-                (currentShowing == MINUTE_INDEX || currentShowing == SECOND_INDEX);
-        if (allowFineGrained)
-            degrees = snapPrefer30s(degrees);
-        else
-            degrees = snapOnly30s(degrees, 0);
-
-        stepSize = switch (currentShowing) {
-            case HOUR_INDEX -> HOUR_VALUE_TO_DEGREES_STEP_SIZE;
-            case MINUTE_INDEX -> MINUTE_VALUE_TO_DEGREES_STEP_SIZE;
-            default -> SECOND_VALUE_TO_DEGREES_STEP_SIZE;
-        };
-
-        if (currentShowing == HOUR_INDEX) {
-            if (mController.is24HourMode()) {
-                if (degrees == 0 && isInnerCircle)
-                    degrees = 360;
-                else if (degrees == 360 && !isInnerCircle)
-                    degrees = 0;
-            } else if (degrees == 0)
-                degrees = 360;
-        } else if (degrees == 360 && (
-                currentShowing == MINUTE_INDEX || currentShowing == SECOND_INDEX)) {
-            degrees = 0;
-        }
-
-        int value = degrees / stepSize;
-
-        if (currentShowing == HOUR_INDEX && mController.is24HourMode() &&
-                !isInnerCircle && degrees != 0) {
-            value += 12;
-        }
-
-        if (currentShowing == HOUR_INDEX
-                && mController.getVersion() != TimePickerDialog.Version.VERSION_1
-                && mController.is24HourMode()) {
-            value = (value + 12) % 24;
-        }
-
-        Timepoint newSelection;
+        Timepoint newSelection = mTimeFromDegrees;
         switch (currentShowing) {
-            case HOUR_INDEX -> {
-                int hour = value;
-                if (!mController.is24HourMode() && getIsCurrentlyAmOrPm() == PM && degrees != 360)
-                    hour += 12;
-                if (!mController.is24HourMode() && getIsCurrentlyAmOrPm() == AM && degrees == 360)
-                    hour = 0;
-                newSelection = new Timepoint(hour, mCurrentTime.getMinute(), mCurrentTime.getSecond());
-            }
-            case MINUTE_INDEX -> newSelection = new Timepoint(
+            case HOUR_INDEX -> newSelection.set(
+                    value, mCurrentTime.getMinute(), mCurrentTime.getSecond());
+            case MINUTE_INDEX -> newSelection.set(
                     mCurrentTime.getHour(), value, mCurrentTime.getSecond());
-            case SECOND_INDEX -> newSelection = new Timepoint(
+            case SECOND_INDEX -> newSelection.set(
                     mCurrentTime.getHour(), mCurrentTime.getMinute(), value);
             default -> newSelection = mCurrentTime;
         }
@@ -586,7 +503,7 @@ public class RadialPickerLayout extends FrameLayout implements OnTouchListener {
      * @return Degrees from 0 to 360, if the selection was within the legal range. -1 if not.
      */
     private int getDegreesFromCoords(
-            float pointX, float pointY, boolean forceLegal, final Boolean[] isInnerCircle) {
+            float pointX, float pointY, boolean forceLegal, final boolean[] isInnerCircle) {
         return switch (getCurrentItemShowing()) {
             case HOUR_INDEX -> mHourRadialSelectorView.getDegreesFromCoords(
                     pointX, pointY, forceLegal, isInnerCircle);
@@ -615,6 +532,7 @@ public class RadialPickerLayout extends FrameLayout implements OnTouchListener {
     public void setCurrentItemShowing(int index, boolean animate) {
         if (index != HOUR_INDEX && index != MINUTE_INDEX && index != SECOND_INDEX) return;
 
+        initializeDial(index);
         int lastIndex = getCurrentItemShowing();
         mCurrentItemShowing = index;
         reselectSelector(getTime(), true, index);
@@ -681,13 +599,89 @@ public class RadialPickerLayout extends FrameLayout implements OnTouchListener {
         mSecondRadialSelectorView.setAlpha(secondAlpha);
     }
 
+    /**
+     * Runs TAP_TIMEOUT after touching down on AM or PM.
+     */
+    private void onAmPmPressed() {
+        mAmPmCirclesView.setAmOrPmPressed(mIsTouchingAmOrPm);
+        mAmPmCirclesView.invalidate();
+    }
+
+    /**
+     * Runs TAP_TIMEOUT after touching down on a legal value.
+     */
+    private void onDownSelected() {
+        mDoingMove = true;
+        Timepoint value = roundToValidTime(
+                getTimeFromDegrees(mDownDegrees, mDownIsInnerCircle, false),
+                getCurrentItemShowing());
+        // Redraw
+        reselectSelector(value, true, getCurrentItemShowing());
+        mLastValueSelected.set(value);
+        mHasLastValueSelected = true;
+        mListener.onValueSelected(mLastValueSelected);
+    }
+
+    /**
+     * Handles the latest move of the frame: select the value under the finger.
+     */
+    private void onMoveFrame(long frameTimeNanos) {
+        mMoveFrameScheduled = false;
+        if (!mDoingTouch || !mInputEnabled) return;
+
+        final boolean[] isInnerCircle = mIsInnerCircle;
+        isInnerCircle[0] = false;
+        int degrees = getDegreesFromCoords(mPendingMoveX, mPendingMoveY, true, isInnerCircle);
+        if (degrees != -1) {
+            Timepoint value = roundToValidTime(
+                    getTimeFromDegrees(degrees, isInnerCircle[0], false),
+                    getCurrentItemShowing()
+            );
+            reselectSelector(value, true, getCurrentItemShowing());
+            if (value != null && (!mHasLastValueSelected ||
+                    !mLastValueSelected.equals(value))) {
+                mController.tryVibrate();
+                mLastValueSelected.set(value);
+                mHasLastValueSelected = true;
+                mListener.onValueSelected(mLastValueSelected);
+            }
+        }
+
+        PickerMetrics metrics = mController.getPickerMetrics();
+        // Uptime and System.nanoTime() share the same monotonic clock.
+        if (metrics != null)
+            metrics.onDragUpdate(System.nanoTime() - mPendingMoveTime * 1_000_000L);
+    }
+
+    private void cancelPendingMove() {
+        if (!mMoveFrameScheduled) return;
+        mChoreographer.removeFrameCallback(mMoveFrameCallback);
+        mMoveFrameScheduled = false;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        cancelPendingMove();
+        mHandler.removeCallbacksAndMessages(null);
+    }
+
     @Override
     public boolean onTouch(View v, MotionEvent event) {
+        boolean traced = McdtpTrace.begin("mcdtp:RadialPickerLayout.onTouch");
+        try {
+            return handleTouch(event);
+        } finally {
+            McdtpTrace.end(traced);
+        }
+    }
+
+    private boolean handleTouch(MotionEvent event) {
         final float eventX = event.getX();
         final float eventY = event.getY();
         int degrees;
         Timepoint value;
-        final Boolean[] isInnerCircle = new Boolean[1];
+        final boolean[] isInnerCircle = mIsInnerCircle;
         isInnerCircle[0] = false;
 
         switch (event.getAction()) {
@@ -695,9 +689,10 @@ public class RadialPickerLayout extends FrameLayout implements OnTouchListener {
                 if (!mInputEnabled) return true;
                 mDownX = eventX;
                 mDownY = eventY;
-                mLastValueSelected = null;
+                mHasLastValueSelected = false;
                 mDoingMove = false;
                 mDoingTouch = true;
+                mController.getHaptics().startGesture();
                 // If we're showing the AM/PM, check to see if the user is touching it.
                 if (!mController.is24HourMode() &&
                         mController.getVersion() == TimePickerDialog.Version.VERSION_1) {
@@ -710,16 +705,14 @@ public class RadialPickerLayout extends FrameLayout implements OnTouchListener {
                     // in case the user moves their finger quickly.
                     mController.tryVibrate();
                     mDownDegrees = -1;
-                    mHandler.postDelayed(() -> {
-                        mAmPmCirclesView.setAmOrPmPressed(mIsTouchingAmOrPm);
-                        mAmPmCirclesView.invalidate();
-                    }, TAP_TIMEOUT);
+                    mHandler.postDelayed(mAmPmPressedRunnable, TAP_TIMEOUT);
                 } else {
                     // If we're in accessibility mode, force the touch to be legal. Otherwise,
                     // it will only register within the given touch target zone.
                     boolean forceLegal = mAccessibilityManager.isTouchExplorationEnabled();
                     // Calculate the degrees that is currently being touched.
                     mDownDegrees = getDegreesFromCoords(eventX, eventY, forceLegal, isInnerCircle);
+                    mDownIsInnerCircle = isInnerCircle[0];
                     Timepoint selectedTime = getTimeFromDegrees(
                             mDownDegrees, isInnerCircle[0], false);
                     if (mController.isOutOfRange(selectedTime, getCurrentItemShowing()))
@@ -728,17 +721,7 @@ public class RadialPickerLayout extends FrameLayout implements OnTouchListener {
                         // If it's a legal touch, set that number as "selected" after the
                         // TAP_TIMEOUT in case the user moves their finger quickly.
                         mController.tryVibrate();
-                        mHandler.postDelayed(() -> {
-                            mDoingMove = true;
-                            mLastValueSelected = getTimeFromDegrees(mDownDegrees, isInnerCircle[0],
-                                    false);
-                            mLastValueSelected = roundToValidTime(
-                                    mLastValueSelected, getCurrentItemShowing());
-                            // Redraw
-                            reselectSelector(
-                                    mLastValueSelected, true, getCurrentItemShowing());
-                            mListener.onValueSelected(mLastValueSelected);
-                        }, TAP_TIMEOUT);
+                        mHandler.postDelayed(mDownSelectedRunnable, TAP_TIMEOUT);
                     }
                 }
                 return true;
@@ -774,21 +757,15 @@ public class RadialPickerLayout extends FrameLayout implements OnTouchListener {
                 }
 
                 // We're doing a move along the circle, so move the selection as appropriate.
+                // Touch panels may report several moves per frame, only the last one matters.
                 mDoingMove = true;
                 mHandler.removeCallbacksAndMessages(null);
-                degrees = getDegreesFromCoords(eventX, eventY, true, isInnerCircle);
-                if (degrees != -1) {
-                    value = roundToValidTime(
-                            getTimeFromDegrees(degrees, isInnerCircle[0], false),
-                            getCurrentItemShowing()
-                    );
-                    reselectSelector(value, true, getCurrentItemShowing());
-                    if (value != null && (mLastValueSelected == null ||
-                            !mLastValueSelected.equals(value))) {
-                        mController.tryVibrate();
-                        mLastValueSelected = value;
-                        mListener.onValueSelected(value);
-                    }
+                mPendingMoveX = eventX;
+                mPendingMoveY = eventY;
+                mPendingMoveTime = event.getEventTime();
+                if (!mMoveFrameScheduled) {
+                    mMoveFrameScheduled = true;
+                    mChoreographer.postFrameCallback(mMoveFrameCallback);
                 }
                 return true;
             }
@@ -799,6 +776,7 @@ public class RadialPickerLayout extends FrameLayout implements OnTouchListener {
                     return true;
                 }
                 mHandler.removeCallbacksAndMessages(null);
+                cancelPendingMove();
                 mDoingTouch = false;
 
                 // If we're touching AM or PM, set it as selected, and tell the listener.
@@ -815,7 +793,7 @@ public class RadialPickerLayout extends FrameLayout implements OnTouchListener {
                             else if (mIsTouchingAmOrPm == PM) newSelection.setPM();
                             newSelection = roundToValidTime(newSelection, HOUR_INDEX);
                             reselectSelector(newSelection, false, HOUR_INDEX);
-                            mCurrentTime = newSelection;
+                            setCurrentTime(newSelection);
                             mListener.onValueSelected(newSelection);
 
                         }
@@ -829,9 +807,10 @@ public class RadialPickerLayout extends FrameLayout implements OnTouchListener {
                     degrees = getDegreesFromCoords(eventX, eventY, mDoingMove, isInnerCircle);
                     if (degrees != -1) {
                         value = getTimeFromDegrees(degrees, isInnerCircle[0], !mDoingMove);
-                        value = roundToValidTime(value, getCurrentItemShowing());
+                        // Copy the value, it may be the reused instance
+                        value = new Timepoint(roundToValidTime(value, getCurrentItemShowing()));
                         reselectSelector(value, false, getCurrentItemShowing());
-                        mCurrentTime = value;
+                        setCurrentTime(value);
                         mListener.onValueSelected(value);
                         mListener.advancePicker(getCurrentItemShowing());
                     }
@@ -839,6 +818,25 @@ public class RadialPickerLayout extends FrameLayout implements OnTouchListener {
                 mDoingMove = false;
                 return true;
             }
+            case MotionEvent.ACTION_CANCEL -> {
+                // The gesture was taken away, e.g. by a scrolling parent: nothing is selected and
+                // the hand goes back to the current time.
+                mHandler.removeCallbacksAndMessages(null);
+                cancelPendingMove();
+                if (mIsTouchingAmOrPm == AM || mIsTouchingAmOrPm == PM) {
+                    mAmPmCirclesView.setAmOrPmPressed(-1);
+                    mAmPmCirclesView.invalidate();
+                    mIsTouchingAmOrPm = -1;
+                }
+                if (mHasLastValueSelected && mCurrentTime != null) {
+                    reselectSelector(mCurrentTime, false, getCurrentItemShowing());
+                    mListener.onValueSelected(mCurrentTime);
+                }
+                mHasLastValueSelected = false;
+                mDoingTouch = false;
+                mDoingMove = false;
+                return true;
+            }
             default -> {
             }
         }
@@ -912,40 +910,9 @@ public class RadialPickerLayout extends FrameLayout implements OnTouchListener {
             changeMultiplier = -1;
         }
         if (changeMultiplier != 0) {
-            int value = getCurrentlyShowingValue();
-            int stepSize = 0;
             int currentItemShowing = getCurrentItemShowing();
-            if (currentItemShowing == HOUR_INDEX) {
-                stepSize = HOUR_VALUE_TO_DEGREES_STEP_SIZE;
-                value %= 12;
-            } else if (currentItemShowing == MINUTE_INDEX) {
-                stepSize = MINUTE_VALUE_TO_DEGREES_STEP_SIZE;
-            } else if (currentItemShowing == SECOND_INDEX) {
-                stepSize = SECOND_VALUE_TO_DEGREES_STEP_SIZE;
-            }
-
-            int degrees = value * stepSize;
-            degrees = snapOnly30s(degrees, changeMultiplier);
-            value = degrees / stepSize;
-            int maxValue;
-            int minValue = 0;
-            if (currentItemShowing == HOUR_INDEX) {
-                if (mController.is24HourMode()) {
-                    maxValue = 23;
-                } else {
-                    maxValue = 12;
-                    minValue = 1;
-                }
-            } else {
-                maxValue = 55;
-            }
-            if (value > maxValue) {
-                // If we scrolled forward past the highest number, wrap around to the lowest.
-                value = minValue;
-            } else if (value < minValue) {
-                // If we scrolled backward past the lowest number, wrap around to the highest.
-                value = maxValue;
-            }
+            int value = ClockDial.scroll(currentItemShowing, getCurrentlyShowingValue(),
+                    changeMultiplier, mController.is24HourMode());
 
             Timepoint newSelection = switch (currentItemShowing) {
                 case HOUR_INDEX -> new Timepoint(
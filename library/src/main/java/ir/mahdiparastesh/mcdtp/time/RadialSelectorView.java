@@ -6,7 +6,6 @@ import android.animation.PropertyValuesHolder;
 import android.animation.ValueAnimator;
 import android.animation.ValueAnimator.AnimatorUpdateListener;
 import android.content.Context;
-import android.content.res.Resources;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.view.View;
@@ -14,7 +13,7 @@ import android.view.View;
 import java.lang.ref.WeakReference;
 
 import ir.mahdiparastesh.mcdtp.McdtpUtils;
-import ir.mahdiparastesh.mcdtp.R;
+import ir.mahdiparastesh.mcdtp.PickerTheme;
 
 /**
  * View to show what number is selected. This will draw a blue circle over the number, with a blue
@@ -22,12 +21,18 @@ import ir.mahdiparastesh.mcdtp.R;
  */
 public class RadialSelectorView extends View {
 
-    // Alpha level for selected circle.
-    private static final int SELECTED_ALPHA = McdtpUtils.SELECTED_ALPHA;
-    private static final int SELECTED_ALPHA_THEME_DARK = McdtpUtils.SELECTED_ALPHA_THEME_DARK;
     // Alpha level for the line.
     private static final int FULL_ALPHA = McdtpUtils.FULL_ALPHA;
 
+    // floor(atan(i / ATAN_TABLE_SIZE)) in sixteenths of a degree, for hit testing without trig
+    private static final int ATAN_TABLE_SIZE = 1024;
+    private static final short[] ATAN_TABLE = new short[ATAN_TABLE_SIZE + 1];
+
+    static {
+        for (int i = 0; i <= ATAN_TABLE_SIZE; i++)
+            ATAN_TABLE[i] = (short) (Math.toDegrees(Math.atan((double) i / ATAN_TABLE_SIZE)) * 16);
+    }
+
     private final Paint mPaint = new Paint();
 
     private boolean mIsInitialized;
@@ -51,6 +56,12 @@ public class RadialSelectorView extends View {
     private float mTransitionEndRadiusMultiplier;
     private int mLineLength;
     private int mSelectionRadius;
+    private int mInnerOuterBoundarySquared;
+    private int mMinInnerSquared;
+    private int mHalfwaySquared;
+    private int mMaxOuterSquared;
+    private int mMinNumberSquared;
+    private int mMaxNumberSquared;
     private InvalidateUpdateListener mInvalidateUpdateListener;
 
     private int mSelectionDegrees;
@@ -81,39 +92,31 @@ public class RadialSelectorView extends View {
                            boolean disappearsOut, int selectionDegrees, boolean isInnerCircle) {
         if (mIsInitialized) return;
 
-        Resources res = context.getResources();
+        PickerTheme theme = controller.getPickerTheme();
 
-        mPaint.setColor(McdtpUtils.themeColor(context,
-                com.google.android.material.R.attr.colorPrimary));
+        mPaint.setColor(theme.colorPrimary);
         mPaint.setAntiAlias(true);
 
-        mSelectionAlpha = McdtpUtils.night(context) ? SELECTED_ALPHA_THEME_DARK : SELECTED_ALPHA;
+        mSelectionAlpha = theme.selectedAlpha;
 
         // Calculate values for the circle radius size.
         mIs24HourMode = controller.is24HourMode();
         if (mIs24HourMode || controller.getVersion() != TimePickerDialog.Version.VERSION_1) {
-            mCircleRadiusMultiplier = Float.parseFloat(
-                    res.getString(R.string.circle_radius_multiplier_24HourMode));
+            mCircleRadiusMultiplier = theme.circleRadiusMultiplier24HourMode;
         } else {
-            mCircleRadiusMultiplier = Float.parseFloat(
-                    res.getString(R.string.circle_radius_multiplier));
-            mAmPmCircleRadiusMultiplier =
-                    Float.parseFloat(res.getString(R.string.ampm_circle_radius_multiplier));
+            mCircleRadiusMultiplier = theme.circleRadiusMultiplier;
+            mAmPmCircleRadiusMultiplier = theme.amPmCircleRadiusMultiplier;
         }
 
         // Calculate values for the radius size(s) of the numbers circle(s).
         mHasInnerCircle = hasInnerCircle;
         if (hasInnerCircle) {
-            mInnerNumbersRadiusMultiplier =
-                    Float.parseFloat(res.getString(R.string.numbers_radius_multiplier_inner));
-            mOuterNumbersRadiusMultiplier =
-                    Float.parseFloat(res.getString(R.string.numbers_radius_multiplier_outer));
+            mInnerNumbersRadiusMultiplier = theme.numbersRadiusMultiplierInner;
+            mOuterNumbersRadiusMultiplier = theme.numbersRadiusMultiplierOuter;
         } else {
-            mNumbersRadiusMultiplier =
-                    Float.parseFloat(res.getString(R.string.numbers_radius_multiplier_normal));
+            mNumbersRadiusMultiplier = theme.numbersRadiusMultiplierNormal;
         }
-        mSelectionRadiusMultiplier =
-                Float.parseFloat(res.getString(R.string.selection_radius_multiplier));
+        mSelectionRadiusMultiplier = theme.selectionRadiusMultiplier;
 
         // Calculate values for the transition mid-way states.
         mAnimationRadiusMultiplier = 1;
@@ -123,6 +126,7 @@ public class RadialSelectorView extends View {
 
         setSelection(selectionDegrees, isInnerCircle, false);
         mIsInitialized = true;
+        prepareDrawValues();
     }
 
     /**
@@ -165,42 +169,34 @@ public class RadialSelectorView extends View {
         mAnimationRadiusMultiplier = animationRadiusMultiplier;
     }
 
+    /**
+     * Calculate the degrees within the circle that corresponds to the specified coordinates, if
+     * the coordinates are within the range that will trigger a selection. Uses only integer math,
+     * the distance is compared in squares against the rings prepared in {@link #prepareHitTest()}
+     * and the angle is looked up in {@link #ATAN_TABLE}.
+     */
     public int getDegreesFromCoords(float pointX, float pointY, boolean forceLegal,
-                                    final Boolean[] isInnerCircle) {
+                                    final boolean[] isInnerCircle) {
         if (!mDrawValuesReady) {
             return -1;
         }
 
-        double hypotenuse = Math.sqrt(
-                (pointY - mYCenter) * (pointY - mYCenter) +
-                        (pointX - mXCenter) * (pointX - mXCenter));
+        int dX = (int) pointX - mXCenter;
+        int dY = (int) pointY - mYCenter;
+        int distanceSquared = dX * dX + dY * dY;
         // Check if we're outside the range
         if (mHasInnerCircle) {
             if (forceLegal) {
                 // If we're told to force the coordinates to be legal, we'll set the isInnerCircle
                 // boolean based based off whichever number the coordinates are closer to.
-                int innerNumberRadius = (int) (mCircleRadius * mInnerNumbersRadiusMultiplier);
-                int distanceToInnerNumber = (int) Math.abs(hypotenuse - innerNumberRadius);
-                int outerNumberRadius = (int) (mCircleRadius * mOuterNumbersRadiusMultiplier);
-                int distanceToOuterNumber = (int) Math.abs(hypotenuse - outerNumberRadius);
-
-                isInnerCircle[0] = (distanceToInnerNumber <= distanceToOuterNumber);
+                isInnerCircle[0] = distanceSquared <= mInnerOuterBoundarySquared;
             } else {
                 // Otherwise, if we're close enough to either number (with the space between the
                 // two allotted equally), set the isInnerCircle boolean as the closer one.
                 // appropriately, but otherwise return -1.
-                int minAllowedHypotenuseForInnerNumber =
-                        (int) (mCircleRadius * mInnerNumbersRadiusMultiplier) - mSelectionRadius;
-                int maxAllowedHypotenuseForOuterNumber =
-                        (int) (mCircleRadius * mOuterNumbersRadiusMultiplier) + mSelectionRadius;
-                int halfwayHypotenusePoint = (int) (mCircleRadius *
-                        ((mOuterNumbersRadiusMultiplier + mInnerNumbersRadiusMultiplier) / 2));
-
-                if (hypotenuse >= minAllowedHypotenuseForInnerNumber &&
-                        hypotenuse <= halfwayHypotenusePoint) {
+                if (distanceSquared >= mMinInnerSquared && distanceSquared <= mHalfwaySquared) {
                     isInnerCircle[0] = true;
-                } else if (hypotenuse <= maxAllowedHypotenuseForOuterNumber &&
-                        hypotenuse >= halfwayHypotenusePoint) {
+                } else if (distanceSquared <= mMaxOuterSquared && distanceSquared >= mHalfwaySquared) {
                     isInnerCircle[0] = false;
                 } else {
                     return -1;
@@ -210,25 +206,22 @@ public class RadialSelectorView extends View {
             // If there's just one circle, we'll need to return -1 if:
             // we're not told to force the coordinates to be legal, and
             // the coordinates' distance to the number is within the allowed distance.
-            if (!forceLegal) {
-                int distanceToNumber = (int) Math.abs(hypotenuse - mLineLength);
-                // The max allowed distance will be defined as the distance from the center of the
-                // number to the edge of the circle.
-                int maxAllowedDistance = (int) (mCircleRadius * (1 - mNumbersRadiusMultiplier));
-                if (distanceToNumber > maxAllowedDistance) {
-                    return -1;
-                }
+            if (!forceLegal && (distanceSquared <= mMinNumberSquared
+                    || distanceSquared >= mMaxNumberSquared)) {
+                return -1;
             }
         }
 
-
-        float opposite = Math.abs(pointY - mYCenter);
-        double radians = Math.asin(opposite / hypotenuse);
-        int degrees = (int) (radians * 180 / Math.PI);
+        // The angle from the horizontal axis, reduced to the first octant for the table.
+        int absX = Math.abs(dX), absY = Math.abs(dY);
+        int degrees;
+        if (absX == 0 && absY == 0) degrees = 0;
+        else if (absY <= absX) degrees = ATAN_TABLE[absY * ATAN_TABLE_SIZE / absX] >> 4;
+        else degrees = (90 * 16 - ATAN_TABLE[absX * ATAN_TABLE_SIZE / absY]) >> 4;
 
         // Now we have to translate to the correct quadrant.
-        boolean rightSide = (pointX > mXCenter);
-        boolean topSide = (pointY < mYCenter);
+        boolean rightSide = (dX > 0);
+        boolean topSide = (dY < 0);
         if (rightSide && topSide) {
             degrees = 90 - degrees;
         } else if (rightSide) {
@@ -241,6 +234,60 @@ public class RadialSelectorView extends View {
         return degrees;
     }
 
+    /**
+     * Precalculate the squared bounds of the touchable rings, once the geometry is known.
+     */
+    private void prepareHitTest() {
+        if (mHasInnerCircle) {
+            int innerNumberRadius = (int) (mCircleRadius * mInnerNumbersRadiusMultiplier);
+            int outerNumberRadius = (int) (mCircleRadius * mOuterNumbersRadiusMultiplier);
+            float boundary = (innerNumberRadius + outerNumberRadius) / 2f;
+            mInnerOuterBoundarySquared = (int) (boundary * boundary);
+
+            int minInner = innerNumberRadius - mSelectionRadius;
+            int maxOuter = outerNumberRadius + mSelectionRadius;
+            int halfway = (int) (mCircleRadius *
+                    ((mOuterNumbersRadiusMultiplier + mInnerNumbersRadiusMultiplier) / 2));
+            mMinInnerSquared = minInner > 0 ? minInner * minInner : 0;
+            mHalfwaySquared = halfway * halfway;
+            mMaxOuterSquared = maxOuter * maxOuter;
+        } else {
+            // The max allowed distance will be defined as the distance from the center of the
+            // number to the edge of the circle.
+            int maxAllowedDistance = (int) (mCircleRadius * (1 - mNumbersRadiusMultiplier));
+            int min = mLineLength - maxAllowedDistance - 1;
+            int max = mLineLength + maxAllowedDistance + 1;
+            mMinNumberSquared = min > 0 ? min * min : -1;
+            mMaxNumberSquared = max * max;
+        }
+    }
+
+    /**
+     * Calculates the geometry of the selector once the view has been laid out; also called when
+     * it's initialized afterwards, so that it can be animated in before its first draw.
+     */
+    private void prepareDrawValues() {
+        if (mDrawValuesReady || getWidth() == 0 || !mIsInitialized) return;
+        mXCenter = getWidth() / 2;
+        mYCenter = getHeight() / 2;
+        mCircleRadius = (int) (Math.min(mXCenter, mYCenter) * mCircleRadiusMultiplier);
+
+        if (!mIs24HourMode) {
+            // We'll need to draw the AM/PM circles, so the main circle will need to have
+            // a slightly higher center. To keep the entire view centered vertically, we'll
+            // have to push it up by half the radius of the AM/PM circles.
+            int amPmCircleRadius = (int) (mCircleRadius * mAmPmCircleRadiusMultiplier);
+            mYCenter -= amPmCircleRadius * 0.75;
+        }
+
+        mSelectionRadius = (int) (mCircleRadius * mSelectionRadiusMultiplier);
+
+        mLineLength =
+                (int) (mCircleRadius * mNumbersRadiusMultiplier * mAnimationRadiusMultiplier);
+        prepareHitTest();
+        mDrawValuesReady = true;
+    }
+
     @Override
     public void onDraw(Canvas canvas) {
         int viewWidth = getWidth();
@@ -248,26 +295,15 @@ public class RadialSelectorView extends View {
             return;
         }
 
-        if (!mDrawValuesReady) {
-            mXCenter = getWidth() / 2;
-            mYCenter = getHeight() / 2;
-            mCircleRadius = (int) (Math.min(mXCenter, mYCenter) * mCircleRadiusMultiplier);
-
-            if (!mIs24HourMode) {
-                // We'll need to draw the AM/PM circles, so the main circle will need to have
-                // a slightly higher center. To keep the entire view centered vertically, we'll
-                // have to push it up by half the radius of the AM/PM circles.
-                int amPmCircleRadius = (int) (mCircleRadius * mAmPmCircleRadiusMultiplier);
-                mYCenter -= amPmCircleRadius * 0.75;
-            }
-
-            mSelectionRadius = (int) (mCircleRadius * mSelectionRadiusMultiplier);
-
-            mDrawValuesReady = true;
-        }
+        prepareDrawValues();
 
         // Calculate the current radius at which to place the selection circle.
-        mLineLength = (int) (mCircleRadius * mNumbersRadiusMultiplier * mAnimationRadiusMultiplier);
+        int currentLineLength =
+                (int) (mCircleRadius * mNumbersRadiusMultiplier * mAnimationRadiusMultiplier);
+        if (currentLineLength != mLineLength) {
+            mLineLength = currentLineLength;
+            prepareHitTest();
+        }
         int pointX = mXCenter + (int) (mLineLength * Math.sin(mSelectionRadians));
         int pointY = mYCenter - (int) (mLineLength * Math.cos(mSelectionRadians));
 
@@ -6,20 +6,25 @@ import android.animation.PropertyValuesHolder;
 import android.animation.ValueAnimator;
 import android.animation.ValueAnimator.AnimatorUpdateListener;
 import android.content.Context;
-import android.content.res.Resources;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.Paint.Align;
+import android.graphics.RecordingCanvas;
+import android.graphics.RenderNode;
 import android.graphics.Typeface;
+import android.os.Build;
 import android.view.View;
 
-import androidx.core.content.ContextCompat;
+import androidx.annotation.RequiresApi;
 
-import ir.mahdiparastesh.mcdtp.McdtpUtils;
-import ir.mahdiparastesh.mcdtp.R;
+import ir.mahdiparastesh.mcdtp.PickerTheme;
 
 public class RadialTextsView extends View {
 
+    // Positions of the 12 texts in the 7x7 grid, clockwise from the top.
+    private static final int[] GRID_COLUMNS = {3, 4, 5, 6, 5, 4, 3, 2, 1, 0, 1, 2};
+    private static final int[] GRID_ROWS = {0, 1, 2, 3, 4, 5, 6, 5, 4, 3, 2, 1};
+
     private final Paint mPaint = new Paint();
     private final Paint mSelectedPaint = new Paint();
     private final Paint mInactivePaint = new Paint();
@@ -35,6 +40,17 @@ public class RadialTextsView extends View {
     //private Typeface mTypefaceBold;
     private String[] mTexts;
     private String[] mInnerTexts;
+    private int[] mValues;
+    private int[] mInnerValues;
+    private final Paint[] mTextPaints = new Paint[12];
+    private Paint[] mInnerTextPaints;
+    // Bit i is set if mValues[i] is selectable, bit 12 + i if mInnerValues[i] is selectable.
+    private int mValidityMask;
+    private boolean mValidityDirty;
+    private boolean mPaintsDirty;
+    // Recorded drawing of all texts, reused as long as the face doesn't change (API 29+)
+    private RenderNode mFaceNode;
+    private boolean mFaceDirty = true;
     private boolean mIs24HourMode;
     private boolean mHasInnerCircle;
     private float mCircleRadiusMultiplier;
@@ -68,75 +84,66 @@ public class RadialTextsView extends View {
     }
 
     public void initialize(
-            Context context, String[] texts, String[] innerTexts, TimePickerController controller,
-            SelectionValidator validator, boolean disappearsOut) {
+            Context context, String[] texts, String[] innerTexts, int[] values, int[] innerValues,
+            TimePickerController controller, SelectionValidator validator, boolean disappearsOut) {
         if (mIsInitialized) return;
-        Resources res = context.getResources();
+        PickerTheme theme = controller.getPickerTheme();
 
         // Set up the paint.
-        int textColorRes = McdtpUtils.night(context) ? android.R.color.white : R.color.numbers_text_color;
-        mPaint.setColor(ContextCompat.getColor(context, textColorRes));
-        mTypefaceNormal = McdtpUtils.normalFont(context, controller);
-        //mTypefaceBold = McdtpUtils.boldFont(context, controller);
+        mPaint.setColor(theme.numbersTextColor);
+        mTypefaceNormal = theme.getNormalFont();
+        //mTypefaceBold = theme.getBoldFont();
         mPaint.setAntiAlias(true);
         mPaint.setTextAlign(Align.CENTER);
 
         // Set up the selected paint
-        mSelectedPaint.setColor(ContextCompat.getColor(context, android.R.color.white));
+        mSelectedPaint.setColor(theme.selectedNumberTextColor);
         mSelectedPaint.setAntiAlias(true);
         mSelectedPaint.setTextAlign(Align.CENTER);
         mSelectedPaint.setTypeface(mTypefaceNormal);
 
         // Set up the inactive paint
-        mInactivePaint.setColor(ContextCompat.getColor(context, R.color.date_picker_text_disabled));
+        mInactivePaint.setColor(theme.disabledTextColor);
         mInactivePaint.setAntiAlias(true);
         mInactivePaint.setTextAlign(Align.CENTER);
 
         mTexts = texts;
         mInnerTexts = innerTexts;
+        mValues = values;
+        mInnerValues = innerValues;
         mIs24HourMode = controller.is24HourMode();
         mHasInnerCircle = (innerTexts != null);
 
         // Calculate the radius for the main circle.
         if (mIs24HourMode || controller.getVersion() != TimePickerDialog.Version.VERSION_1) {
-            mCircleRadiusMultiplier = Float.parseFloat(
-                    res.getString(R.string.circle_radius_multiplier_24HourMode));
+            mCircleRadiusMultiplier = theme.circleRadiusMultiplier24HourMode;
         } else {
-            mCircleRadiusMultiplier = Float.parseFloat(
-                    res.getString(R.string.circle_radius_multiplier));
-            mAmPmCircleRadiusMultiplier =
-                    Float.parseFloat(res.getString(R.string.ampm_circle_radius_multiplier));
+            mCircleRadiusMultiplier = theme.circleRadiusMultiplier;
+            mAmPmCircleRadiusMultiplier = theme.amPmCircleRadiusMultiplier;
         }
 
         // Initialize the widths and heights of the grid, and calculate the values for the numbers.
         mTextGridHeights = new float[7];
         mTextGridWidths = new float[7];
         if (mHasInnerCircle) {
-            mNumbersRadiusMultiplier = Float.parseFloat(
-                    res.getString(R.string.numbers_radius_multiplier_outer));
-            mInnerNumbersRadiusMultiplier = Float.parseFloat(
-                    res.getString(R.string.numbers_radius_multiplier_inner));
+            mNumbersRadiusMultiplier = theme.numbersRadiusMultiplierOuter;
+            mInnerNumbersRadiusMultiplier = theme.numbersRadiusMultiplierInner;
 
             // Version 2 layout draws outer circle bigger than inner
             if (controller.getVersion() == TimePickerDialog.Version.VERSION_1) {
-                mTextSizeMultiplier = Float.parseFloat(
-                        res.getString(R.string.text_size_multiplier_outer));
-                mInnerTextSizeMultiplier = Float.parseFloat(
-                        res.getString(R.string.text_size_multiplier_inner));
+                mTextSizeMultiplier = theme.textSizeMultiplierOuter;
+                mInnerTextSizeMultiplier = theme.textSizeMultiplierInner;
             } else {
-                mTextSizeMultiplier = Float.parseFloat(
-                        res.getString(R.string.text_size_multiplier_outer_v2));
-                mInnerTextSizeMultiplier = Float.parseFloat(
-                        res.getString(R.string.text_size_multiplier_inner_v2));
+                mTextSizeMultiplier = theme.textSizeMultiplierOuterV2;
+                mInnerTextSizeMultiplier = theme.textSizeMultiplierInnerV2;
             }
 
             mInnerTextGridHeights = new float[7];
             mInnerTextGridWidths = new float[7];
+            mInnerTextPaints = new Paint[12];
         } else {
-            mNumbersRadiusMultiplier = Float.parseFloat(
-                    res.getString(R.string.numbers_radius_multiplier_normal));
-            mTextSizeMultiplier = Float.parseFloat(
-                    res.getString(R.string.text_size_multiplier_normal));
+            mNumbersRadiusMultiplier = theme.numbersRadiusMultiplierNormal;
+            mTextSizeMultiplier = theme.textSizeMultiplierNormal;
         }
 
         mAnimationRadiusMultiplier = 1;
@@ -145,13 +152,40 @@ public class RadialTextsView extends View {
         mInvalidateUpdateListener = new InvalidateUpdateListener();
 
         mValidator = validator;
+        mValidityDirty = true;
+        mPaintsDirty = true;
 
         mTextGridValuesDirty = true;
         mIsInitialized = true;
+        prepareDrawValues();
     }
 
     protected void setSelection(int selection) {
+        if (this.selection == selection) return;
         this.selection = selection;
+        mPaintsDirty = true;
+        invalidate();
+    }
+
+    /**
+     * Marks the selectability of the texts as stale, it will be evaluated again before the next
+     * draw. Must be called whenever the result of the SelectionValidator may have changed.
+     */
+    void invalidateValidity() {
+        mValidityDirty = true;
+        invalidate();
+    }
+
+    /**
+     * Switches to a font which has been loaded in the background; the positions of the texts
+     * depend on its metrics, so they're calculated again.
+     */
+    void setTypeface(Typeface typeface) {
+        if (!mIsInitialized || typeface == mTypefaceNormal) return;
+        mTypefaceNormal = typeface;
+        mSelectedPaint.setTypeface(typeface);
+        mTextGridValuesDirty = true;
+        invalidate();
     }
 
     /**
@@ -172,34 +206,54 @@ public class RadialTextsView extends View {
     }
 
     @Override
-    public void onDraw(Canvas canvas) {
-        int viewWidth = getWidth();
-        if (viewWidth == 0 || !mIsInitialized) return;
-
-        if (!mDrawValuesReady) {
-            mXCenter = getWidth() / 2;
-            mYCenter = getHeight() / 2;
-            mCircleRadius = Math.min(mXCenter, mYCenter) * mCircleRadiusMultiplier;
-            if (!mIs24HourMode) {
-                // We'll need to draw the AM/PM circles, so the main circle will need to have
-                // a slightly higher center. To keep the entire view centered vertically, we'll
-                // have to push it up by half the radius of the AM/PM circles.
-                float amPmCircleRadius = mCircleRadius * mAmPmCircleRadiusMultiplier;
-                mYCenter -= amPmCircleRadius * 0.75;
-            }
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        mFaceDirty = true;
+    }
 
-            mTextSize = mCircleRadius * mTextSizeMultiplier;
-            if (mHasInnerCircle) {
-                mInnerTextSize = mCircleRadius * mInnerTextSizeMultiplier;
-            }
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (mFaceNode != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q)
+            mFaceNode.discardDisplayList();
+    }
 
-            // Because the text positions will be static, pre-render the animations.
-            renderAnimations();
+    /**
+     * Calculates the size of the texts once the view has been laid out; also called when it's
+     * initialized afterwards, so that it can be animated in before its first draw.
+     */
+    private void prepareDrawValues() {
+        if (mDrawValuesReady || getWidth() == 0 || !mIsInitialized) return;
+        mXCenter = getWidth() / 2;
+        mYCenter = getHeight() / 2;
+        mCircleRadius = Math.min(mXCenter, mYCenter) * mCircleRadiusMultiplier;
+        if (!mIs24HourMode) {
+            // We'll need to draw the AM/PM circles, so the main circle will need to have
+            // a slightly higher center. To keep the entire view centered vertically, we'll
+            // have to push it up by half the radius of the AM/PM circles.
+            float amPmCircleRadius = mCircleRadius * mAmPmCircleRadiusMultiplier;
+            mYCenter -= amPmCircleRadius * 0.75;
+        }
 
-            mTextGridValuesDirty = true;
-            mDrawValuesReady = true;
+        mTextSize = mCircleRadius * mTextSizeMultiplier;
+        if (mHasInnerCircle) {
+            mInnerTextSize = mCircleRadius * mInnerTextSizeMultiplier;
         }
 
+        // Because the text positions will be static, pre-render the animations.
+        renderAnimations();
+
+        mTextGridValuesDirty = true;
+        mDrawValuesReady = true;
+    }
+
+    @Override
+    public void onDraw(Canvas canvas) {
+        int viewWidth = getWidth();
+        if (viewWidth == 0 || !mIsInitialized) return;
+
+        prepareDrawValues();
+
         // Calculate the text positions, but only if they've changed since the last onDraw.
         if (mTextGridValuesDirty) {
             float numbersRadius =
@@ -216,12 +270,52 @@ public class RadialTextsView extends View {
                         mInnerTextSize, mInnerTextGridHeights, mInnerTextGridWidths);
             }
             mTextGridValuesDirty = false;
+            mFaceDirty = true;
+        }
+
+        if (mValidityDirty) updateValidity();
+        if (mPaintsDirty) {
+            assignTextColors(mValues, 0, mTextPaints);
+            if (mHasInnerCircle) assignTextColors(mInnerValues, 12, mInnerTextPaints);
+            mPaintsDirty = false;
+            mFaceDirty = true;
         }
 
-        // Draw the texts in the pre-calculated positions.
-        drawTexts(canvas, mTextSize, mTypefaceNormal, mTexts, mTextGridWidths, mTextGridHeights);
+        // While moving in or out the positions change on every frame, so there's nothing to reuse.
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && canvas.isHardwareAccelerated()
+                && mAnimationRadiusMultiplier == 1)
+            drawCachedFace(canvas);
+        else drawFace(canvas);
+    }
+
+    /**
+     * Draw the texts in the pre-calculated positions.
+     */
+    private void drawFace(Canvas canvas) {
+        drawTexts(canvas, mTextSize, mTypefaceNormal, mTexts, mTextPaints,
+                mTextGridWidths, mTextGridHeights);
         if (mHasInnerCircle) drawTexts(canvas, mInnerTextSize, mTypefaceNormal, mInnerTexts,
-                mInnerTextGridWidths, mInnerTextGridHeights);
+                mInnerTextPaints, mInnerTextGridWidths, mInnerTextGridHeights);
+    }
+
+    /**
+     * Draw the face from a RenderNode, which is only recorded again when the size, the typeface,
+     * the selection or the selectability of the texts have changed.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.Q)
+    private void drawCachedFace(Canvas canvas) {
+        if (mFaceNode == null) mFaceNode = new RenderNode("RadialTextsFace");
+        if (mFaceDirty || !mFaceNode.hasDisplayList()) {
+            mFaceNode.setPosition(0, 0, getWidth(), getHeight());
+            RecordingCanvas faceCanvas = mFaceNode.beginRecording();
+            try {
+                drawFace(faceCanvas);
+            } finally {
+                mFaceNode.endRecording();
+            }
+            mFaceDirty = false;
+        }
+        canvas.drawRenderNode(mFaceNode);
     }
 
     /**
@@ -260,37 +354,39 @@ public class RadialTextsView extends View {
         textGridWidths[6] = xCenter + numbersRadius;
     }
 
-    private Paint[] assignTextColors(String[] texts) {
-        Paint[] paints = new Paint[texts.length];
-        for (int i = 0; i < texts.length; i++) {
-            int text = Integer.parseInt(texts[i]);
-            if (text == selection) paints[i] = mSelectedPaint;
-            else if (mValidator.isValidSelection(text)) paints[i] = mPaint;
+    /**
+     * Ask the validator about every value once and remember the answers in mValidityMask.
+     */
+    private void updateValidity() {
+        int mask = 0;
+        for (int i = 0; i < mValues.length; i++)
+            if (mValidator.isValidSelection(mValues[i])) mask |= 1 << i;
+        if (mHasInnerCircle) for (int i = 0; i < mInnerValues.length; i++)
+            if (mValidator.isValidSelection(mInnerValues[i])) mask |= 1 << (12 + i);
+        mValidityDirty = false;
+        if (mask != mValidityMask) {
+            mValidityMask = mask;
+            mPaintsDirty = true;
+        }
+    }
+
+    private void assignTextColors(int[] values, int maskOffset, Paint[] paints) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == selection) paints[i] = mSelectedPaint;
+            else if ((mValidityMask & (1 << (maskOffset + i))) != 0) paints[i] = mPaint;
             else paints[i] = mInactivePaint;
         }
-        return paints;
     }
 
     /**
      * Draw the 12 text values at the positions specified by the textGrid parameters.
      */
     private void drawTexts(Canvas canvas, float textSize, Typeface typeface, String[] texts,
-                           float[] textGridWidths, float[] textGridHeights) {
+                           Paint[] textPaints, float[] textGridWidths, float[] textGridHeights) {
         mPaint.setTextSize(textSize);
         mPaint.setTypeface(typeface);
-        Paint[] textPaints = assignTextColors(texts);
-        canvas.drawText(texts[0], textGridWidths[3], textGridHeights[0], textPaints[0]);
-        canvas.drawText(texts[1], textGridWidths[4], textGridHeights[1], textPaints[1]);
-        canvas.drawText(texts[2], textGridWidths[5], textGridHeights[2], textPaints[2]);
-        canvas.drawText(texts[3], textGridWidths[6], textGridHeights[3], textPaints[3]);
-        canvas.drawText(texts[4], textGridWidths[5], textGridHeights[4], textPaints[4]);
-        canvas.drawText(texts[5], textGridWidths[4], textGridHeights[5], textPaints[5]);
-        canvas.drawText(texts[6], textGridWidths[3], textGridHeights[6], textPaints[6]);
-        canvas.drawText(texts[7], textGridWidths[2], textGridHeights[5], textPaints[7]);
-        canvas.drawText(texts[8], textGridWidths[1], textGridHeights[4], textPaints[8]);
-        canvas.drawText(texts[9], textGridWidths[0], textGridHeights[3], textPaints[9]);
-        canvas.drawText(texts[10], textGridWidths[1], textGridHeights[2], textPaints[10]);
-        canvas.drawText(texts[11], textGridWidths[2], textGridHeights[1], textPaints[11]);
+        for (int i = 0; i < 12; i++) canvas.drawText(texts[i],
+                textGridWidths[GRID_COLUMNS[i]], textGridHeights[GRID_ROWS[i]], textPaints[i]);
     }
 
     /**
@@ -0,0 +1,90 @@
+package ir.mahdiparastesh.mcdtp.time;
+
+import static ir.mahdiparastesh.mcdtp.engine.TimeRules.SECONDS_IN_DAY;
+
+import androidx.annotation.NonNull;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Compact encoding of a sorted set of seconds of the day, used by DefaultTimepointLimiter for
+ * parcelling. Values are stored as deltas from their predecessor and consecutive equal deltas are
+ * collapsed into runs, so sets generated by an interval cost a few bytes regardless of their size.
+ * <p>
+ * Layout: a format version byte, the number of values, then pairs of (delta, run length); all
+ * numbers except the version are unsigned LEB128 varints. Decoding rejects anything which isn't a
+ * set of seconds of the day with an IllegalArgumentException.
+ */
+final class SecondsCodec {
+    static final int FORMAT_VERSION = 1;
+
+    private SecondsCodec() {
+    }
+
+    @NonNull
+    static byte[] encode(@NonNull int[] sortedSeconds) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8);
+        out.write(FORMAT_VERSION);
+        writeVarint(out, sortedSeconds.length);
+
+        int previous = -1, i = 0;
+        while (i < sortedSeconds.length) {
+            int delta = sortedSeconds[i] - previous;
+            int run = 1;
+            while (i + run < sortedSeconds.length
+                    && sortedSeconds[i + run] - sortedSeconds[i + run - 1] == delta)
+                run++;
+            writeVarint(out, delta);
+            writeVarint(out, run);
+            previous = sortedSeconds[i + run - 1];
+            i += run;
+        }
+        return out.toByteArray();
+    }
+
+    @NonNull
+    static int[] decode(@NonNull byte[] data) {
+        if (data.length == 0 || data[0] != FORMAT_VERSION)
+            throw new IllegalArgumentException("Unsupported format version of the encoded seconds");
+        int[] position = {1};
+        // Checked before allocating, a varint can be negative or far too large.
+        int count = readVarint(data, position);
+        if (count < 0 || count > SECONDS_IN_DAY)
+            throw new IllegalArgumentException("Invalid number of encoded seconds: " + count);
+        int[] output = new int[count];
+
+        int previous = -1, i = 0;
+        while (i < output.length) {
+            int delta = readVarint(data, position);
+            int run = readVarint(data, position);
+            if (delta <= 0 || run <= 0 || run > output.length - i)
+                throw new IllegalArgumentException("Malformed run in the encoded seconds");
+            // The last value of the run must still be a second of the day.
+            if ((long) delta * run > SECONDS_IN_DAY - 1 - previous)
+                throw new IllegalArgumentException("Encoded seconds past the end of the day");
+            for (int end = i + run; i < end; i++) output[i] = previous += delta;
+        }
+        return output;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(byte[] data, int[] position) {
+        int value = 0, shift = 0;
+        byte b;
+        do {
+            if (position[0] >= data.length || shift > 28)
+                throw new IllegalArgumentException("Truncated varint in the encoded seconds");
+            b = data[position[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,141 @@
+package ir.mahdiparastesh.mcdtp.time;
+
+import static ir.mahdiparastesh.mcdtp.time.TimePickerDialog.AM;
+import static ir.mahdiparastesh.mcdtp.time.TimePickerDialog.HOUR_INDEX;
+import static ir.mahdiparastesh.mcdtp.time.TimePickerDialog.MINUTE_INDEX;
+import static ir.mahdiparastesh.mcdtp.time.TimePickerDialog.PM;
+import static ir.mahdiparastesh.mcdtp.time.TimePickerDialog.SECOND_INDEX;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Tells whether the digits typed in the keyboard mode of TimePickerDialog can still be completed
+ * to a time which is selectable according to the limiter.
+ * <p>
+ * The availability of every hour and every minute is collected once into bit masks, the seconds
+ * of a minute are collected when they're first needed; afterwards every check only tests a few
+ * bits for each way the typed digits can be split into hours, minutes and seconds.
+ */
+final class TimeEntryAvailability {
+    private static final long UNKNOWN = -1L;
+
+    private final TimePickerController mController;
+    private final boolean mIs24HourMode;
+    private final boolean mEnableMinutes;
+    private final boolean mEnableSeconds;
+    private final Timepoint mScratch = new Timepoint(0);
+
+    private int mHourMask;
+    private final long[] mMinuteMasks = new long[24];
+    private final long[] mSecondMasks = new long[24 * 60];
+
+    TimeEntryAvailability(@NonNull TimePickerController controller,
+                          boolean enableMinutes, boolean enableSeconds) {
+        mController = controller;
+        mIs24HourMode = controller.is24HourMode();
+        mEnableMinutes = enableMinutes;
+        mEnableSeconds = enableSeconds;
+
+        for (int hour = 0; hour < 24; hour++) {
+            mScratch.set(hour, 0, 0);
+            if (controller.isOutOfRange(mScratch, HOUR_INDEX)) continue;
+            mHourMask |= 1 << hour;
+            long minutes = 0L;
+            for (int minute = 0; minute < 60; minute++) {
+                mScratch.set(hour, minute, 0);
+                if (!controller.isOutOfRange(mScratch, MINUTE_INDEX)) minutes |= 1L << minute;
+            }
+            mMinuteMasks[hour] = minutes;
+        }
+        Arrays.fill(mSecondMasks, UNKNOWN);
+    }
+
+    /**
+     * Whether the exact time can be selected, at the resolution of the picker.
+     */
+    boolean isSelectable(int hour, int minute, int second) {
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59)
+            return false;
+        if (mEnableSeconds) return (secondMask(hour, minute) & (1L << second)) != 0;
+        if (mEnableMinutes) return second == 0 && (mMinuteMasks[hour] & (1L << minute)) != 0;
+        return minute == 0 && second == 0 && (mHourMask & (1 << hour)) != 0;
+    }
+
+    /**
+     * Whether the typed digits, followed by more keys, may still produce a selectable time.
+     *
+     * @param digits   the typed digits in the order of typing
+     * @param count    the number of typed digits
+     * @param meridiem AM or PM if it has been typed, otherwise -1
+     */
+    boolean isFeasible(@NonNull int[] digits, int count, int meridiem) {
+        if (count == 0) return mHourMask != 0;
+        int maxRest = mEnableSeconds ? 4 : mEnableMinutes ? 2 : 0;
+
+        // The hour is made of either the first digit or the first two digits.
+        for (int hourLength = 1; hourLength <= 2; hourLength++) {
+            if (hourLength > count && meridiem != -1) continue;
+            int rest = Math.max(count - hourLength, 0);
+            if (rest > maxRest || (meridiem != -1 && (rest & 1) != 0)) continue;
+
+            int from, to;
+            if (hourLength == 1) {
+                from = to = digits[0];
+            } else if (count == 1) {
+                from = digits[0] * 10;
+                to = from + 9;
+            } else {
+                from = to = digits[0] * 10 + digits[1];
+            }
+            if (hourLength == 2 && digits[0] == 0 && !mIs24HourMode) continue;
+            for (int hour = from; hour <= to; hour++)
+                if (isFeasible(hour, digits, hourLength, rest, meridiem)) return true;
+        }
+        return false;
+    }
+
+    private boolean isFeasible(int typedHour, int[] digits, int offset, int rest, int meridiem) {
+        if (mIs24HourMode)
+            return typedHour <= 23 && isFeasibleAt(typedHour, digits, offset, rest, meridiem);
+        if (typedHour < 1 || typedHour > 12) return false;
+        int hour = typedHour % 12;
+        return (meridiem != PM && isFeasibleAt(hour, digits, offset, rest, meridiem))
+                || (meridiem != AM && isFeasibleAt(hour + 12, digits, offset, rest, meridiem));
+    }
+
+    private boolean isFeasibleAt(int hour, int[] digits, int offset, int rest, int meridiem) {
+        if ((mHourMask & (1 << hour)) == 0) return false;
+        // Typing AM/PM finishes the time, the missing minutes and seconds are filled with zeros.
+        if (rest == 0) return meridiem == -1 || isSelectable(hour, 0, 0);
+
+        int tens = digits[offset];
+        if (tens > 5) return false;
+        if (rest == 1) return (mMinuteMasks[hour] & (0x3FFL << (tens * 10))) != 0;
+
+        int minute = tens * 10 + digits[offset + 1];
+        if ((mMinuteMasks[hour] & (1L << minute)) == 0) return false;
+        if (rest == 2) return meridiem == -1 || isSelectable(hour, minute, 0);
+
+        tens = digits[offset + 2];
+        if (tens > 5) return false;
+        if (rest == 3) return (secondMask(hour, minute) & (0x3FFL << (tens * 10))) != 0;
+        return isSelectable(hour, minute, tens * 10 + digits[offset + 3]);
+    }
+
+    private long secondMask(int hour, int minute) {
+        int index = hour * 60 + minute;
+        long seconds = mSecondMasks[index];
+        if (seconds != UNKNOWN) return seconds;
+
+        seconds = 0L;
+        if ((mMinuteMasks[hour] & (1L << minute)) != 0) {
+            for (int second = 0; second < 60; second++) {
+                mScratch.set(hour, minute, second);
+                if (!mController.isOutOfRange(mScratch, SECOND_INDEX)) seconds |= 1L << second;
+            }
+        }
+        return mSecondMasks[index] = seconds;
+    }
+}
@@ -1,6 +1,13 @@
 package ir.mahdiparastesh.mcdtp.time;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
 import ir.mahdiparastesh.mcdtp.FontCustomiser;
+import ir.mahdiparastesh.mcdtp.McdtpMetrics;
+import ir.mahdiparastesh.mcdtp.PickerHaptics;
+import ir.mahdiparastesh.mcdtp.PickerMetrics;
+import ir.mahdiparastesh.mcdtp.PickerTheme;
 
 interface TimePickerController extends FontCustomiser {
 
@@ -10,6 +17,10 @@ interface TimePickerController extends FontCustomiser {
 
     void tryVibrate();
 
+    /** Available once the picker has been created */
+    @NonNull
+    PickerHaptics getHaptics();
+
     boolean isOutOfRange(Timepoint time, int index);
 
     boolean isAmDisabled();
@@ -17,4 +28,13 @@ interface TimePickerController extends FontCustomiser {
     boolean isPmDisabled();
 
     Timepoint roundToNearest(Timepoint time, Timepoint.TYPE type);
+
+    /** Available once the views of the picker are being created */
+    @NonNull
+    PickerTheme getPickerTheme();
+
+    @Nullable
+    default PickerMetrics getPickerMetrics() {
+        return McdtpMetrics.getGlobal();
+    }
 }
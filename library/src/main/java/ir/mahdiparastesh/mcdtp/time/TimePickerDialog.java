@@ -33,8 +33,15 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 
+import ir.mahdiparastesh.mcdtp.LocalNumerals;
+import ir.mahdiparastesh.mcdtp.McdtpMetrics;
+import ir.mahdiparastesh.mcdtp.McdtpTrace;
 import ir.mahdiparastesh.mcdtp.McdtpUtils;
+import ir.mahdiparastesh.mcdtp.PickerHaptics;
+import ir.mahdiparastesh.mcdtp.PickerMetrics;
+import ir.mahdiparastesh.mcdtp.PickerTheme;
 import ir.mahdiparastesh.mcdtp.R;
+import ir.mahdiparastesh.mcdtp.engine.TimeEntryDfa;
 import ir.mahdiparastesh.mcdtp.time.RadialPickerLayout.OnValueSelectedListener;
 
 public class TimePickerDialog extends AppCompatDialogFragment
@@ -49,6 +56,7 @@ public class TimePickerDialog extends AppCompatDialogFragment
     private static final String KEY_IN_KB_MODE = "in_kb_mode";
     private static final String KEY_TYPED_TIMES = "typed_times";
     private static final String KEY_VIBRATE = "vibrate";
+    private static final String KEY_SYSTEM_HAPTICS = "system_haptics";
     private static final String KEY_DISMISS = "dismiss";
     private static final String KEY_ENABLE_SECONDS = "enable_seconds";
     private static final String KEY_ENABLE_MINUTES = "enable_minutes";
@@ -92,13 +100,20 @@ public class TimePickerDialog extends AppCompatDialogFragment
     private Boolean mIs24HourMode = null;
     private String mTitle;
     private boolean mVibrate;
+    private boolean mSystemHaptics;
     private boolean mDismissOnPause;
     private boolean mEnableSeconds;
     private boolean mEnableMinutes;
     private Version mVersion;
     private DefaultTimepointLimiter mDefaultLimiter = new DefaultTimepointLimiter();
     private TimepointLimiter mLimiter = mDefaultLimiter;
+    private PickerMetrics mMetrics;
+    private PickerTheme mTheme;
+    private PickerHaptics mHaptics;
+    // When the dialog was created, until its first frame has been reported
+    private long mCreatedAt = 0L;
     private Locale mLocale = Locale.getDefault();
+    private LocalNumerals mNumerals;
     @FontRes
     private Integer mBoldFontRes = null;
     @FontRes
@@ -110,7 +125,11 @@ public class TimePickerDialog extends AppCompatDialogFragment
     private String mDeletedKeyFormat;
     private boolean mInKbMode;
     private ArrayList<Integer> mTypedTimes;
-    private Node mLegalTimesTree;
+    private int mKbEntryMode;
+    /** The state of the entry automaton after each prefix of mTypedTimes. */
+    private final int[] mKbStates = new int[TimeEntryDfa.MAX_LENGTH + 1];
+    private final int[] mKbSymbols = new int[TimeEntryDfa.MAX_LENGTH];
+    private TimeEntryAvailability mKbAvailability;
     private int mAmKeyCode;
     private int mPmKeyCode;
 
@@ -121,6 +140,8 @@ public class TimePickerDialog extends AppCompatDialogFragment
     private String mSelectMinutes;
     private String mSecondPickerDescription;
     private String mSelectSeconds;
+    // Content descriptions of the picker per index and value, built on demand
+    private final String[][] mPickerDescriptions = new String[3][60];
 
     public interface OnTimeSetListener {
         void onTimeSet(TimePickerDialog view, int hourOfDay, int minute, int second);
@@ -157,6 +178,7 @@ public class TimePickerDialog extends AppCompatDialogFragment
         mInKbMode = false;
         mTitle = "";
         mVibrate = true;
+        mSystemHaptics = false;
         mDismissOnPause = false;
         mEnableSeconds = false;
         mEnableMinutes = true;
@@ -191,6 +213,15 @@ public class TimePickerDialog extends AppCompatDialogFragment
         mVibrate = vibrate;
     }
 
+    /**
+     * Ticks with the haptic feedback of the system, which follows its touch feedback setting,
+     * instead of vibrating unless the phone is silent.
+     */
+    @SuppressWarnings("unused")
+    public void useSystemHapticFeedback(boolean systemHaptics) {
+        mSystemHaptics = systemHaptics;
+    }
+
     @SuppressWarnings("unused")
     public void dismissOnPause(boolean dismissOnPause) {
         mDismissOnPause = dismissOnPause;
@@ -363,6 +394,32 @@ public class TimePickerDialog extends AppCompatDialogFragment
         mLimiter = limiter;
     }
 
+    /**
+     * Reports the timings of this dialog to the given listener instead of the global one.
+     */
+    @SuppressWarnings("unused")
+    public void setPickerMetrics(@Nullable PickerMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    @Nullable
+    @Override
+    public PickerMetrics getPickerMetrics() {
+        return McdtpMetrics.of(mMetrics);
+    }
+
+    @NonNull
+    @Override
+    public PickerTheme getPickerTheme() {
+        return mTheme;
+    }
+
+    @NonNull
+    @Override
+    public PickerHaptics getHaptics() {
+        return mHaptics;
+    }
+
     @Override
     public Version getVersion() {
         return mVersion;
@@ -403,13 +460,16 @@ public class TimePickerDialog extends AppCompatDialogFragment
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        if (getPickerMetrics() != null) mCreatedAt = System.nanoTime();
         setStyle(AppCompatDialogFragment.STYLE_NO_TITLE, 0);
+        mHaptics = new PickerHaptics(requireActivity());
         if (savedInstanceState != null && savedInstanceState.containsKey(KEY_INITIAL_TIME)) {
             mInitialTime = savedInstanceState.getParcelable(KEY_INITIAL_TIME);
             mIs24HourMode = savedInstanceState.getBoolean(KEY_24_HOUR_MODE);
             mInKbMode = savedInstanceState.getBoolean(KEY_IN_KB_MODE);
             mTitle = savedInstanceState.getString(KEY_TITLE);
             mVibrate = savedInstanceState.getBoolean(KEY_VIBRATE);
+            mSystemHaptics = savedInstanceState.getBoolean(KEY_SYSTEM_HAPTICS);
             mDismissOnPause = savedInstanceState.getBoolean(KEY_DISMISS);
             mEnableSeconds = savedInstanceState.getBoolean(KEY_ENABLE_SECONDS);
             mEnableMinutes = savedInstanceState.getBoolean(KEY_ENABLE_MINUTES);
@@ -437,6 +497,18 @@ public class TimePickerDialog extends AppCompatDialogFragment
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container,
                              Bundle savedInstanceState) {
+        boolean traced = McdtpTrace.begin("mcdtp:TimePickerDialog.onCreateView");
+        try {
+            return createView(inflater, container, savedInstanceState);
+        } finally {
+            McdtpTrace.end(traced);
+        }
+    }
+
+    private View createView(@NonNull LayoutInflater inflater, ViewGroup container,
+                            Bundle savedInstanceState) {
+        PickerMetrics metrics = getPickerMetrics();
+        long start = McdtpMetrics.start(metrics);
         int viewRes = mVersion == Version.VERSION_1
                 ? R.layout.time_picker_dialog : R.layout.time_picker_dialog_v2;
         View view = inflater.inflate(viewRes, container, false);
@@ -445,6 +517,8 @@ public class TimePickerDialog extends AppCompatDialogFragment
 
         Resources res = getResources();
         Context context = requireActivity();
+        mTheme = new PickerTheme(context, this);
+        mNumerals = LocalNumerals.of(mLocale);
         mHourPickerDescription = res.getString(R.string.hour_picker_description);
         mSelectHours = res.getString(R.string.select_hours);
         mMinutePickerDescription = res.getString(R.string.minute_picker_description);
@@ -503,20 +577,9 @@ public class TimePickerDialog extends AppCompatDialogFragment
             tryVibrate();
         });
 
-        Typeface normalFont = McdtpUtils.normalFont(context, this);
-        Typeface boldFont = McdtpUtils.boldFont(context, this);
-        mHourView.setTypeface(boldFont);
-        mHourSpaceView.setTypeface(boldFont);
-        mMinuteView.setTypeface(boldFont);
-        mMinuteSpaceView.setTypeface(boldFont);
-        mSecondView.setTypeface(boldFont);
-        mSecondSpaceView.setTypeface(boldFont);
-        mAmTextView.setTypeface(normalFont);
-        mPmTextView.setTypeface(normalFont);
-
         mOkButton = view.findViewById(R.id.ok);
         mOkButton.setOnClickListener(v -> {
-            if (mInKbMode && isTypedTimeFullyLegal()) {
+            if (mInKbMode && isTypedTimeSelectable()) {
                 finishKbMode(false);
             } else {
                 tryVibrate();
@@ -525,7 +588,6 @@ public class TimePickerDialog extends AppCompatDialogFragment
             dismiss();
         });
         mOkButton.setOnKeyListener(keyboardListener);
-        mOkButton.setTypeface(boldFont);
         mOkButton.setText(android.R.string.ok);
 
         Button mCancelButton = view.findViewById(R.id.cancel);
@@ -533,10 +595,13 @@ public class TimePickerDialog extends AppCompatDialogFragment
             tryVibrate();
             if (getDialog() != null) getDialog().cancel();
         });
-        mCancelButton.setTypeface(boldFont);
         mCancelButton.setText(android.R.string.cancel);
         mCancelButton.setVisibility(isCancelable() ? View.VISIBLE : View.GONE);
 
+        // The system fonts are shown until the custom ones have been loaded.
+        applyFonts(view);
+        McdtpUtils.loadFonts(context, this, this::onFontsLoaded);
+
         // Enable or disable the AM/PM view.
         if (mIs24HourMode) {
             mAmPmLayout.setVisibility(View.GONE);
@@ -725,9 +790,11 @@ public class TimePickerDialog extends AppCompatDialogFragment
         mDeletedKeyFormat = res.getString(R.string.deleted_key);
         mPlaceholderText = mDoublePlaceholderText.charAt(0);
         mAmKeyCode = mPmKeyCode = -1;
-        generateLegalTimesTree();
+        mKbEntryMode = TimeEntryDfa.mode(mIs24HourMode, mEnableMinutes, mEnableSeconds);
+        mKbAvailability = null;
         if (mInKbMode && savedInstanceState != null) {
             mTypedTimes = savedInstanceState.getIntegerArrayList(KEY_TYPED_TIMES);
+            replayTypedTimes();
             tryStartingKbMode(-1);
             mHourView.invalidate();
         } else if (mTypedTimes == null) {
@@ -752,9 +819,43 @@ public class TimePickerDialog extends AppCompatDialogFragment
         view.findViewById(R.id.time_picker_dialog)
                 .setBackgroundColor(ContextCompat.getColor(context,
                         night ? R.color.light_gray : R.color.background_color));
+        if (metrics != null) {
+            metrics.onCreateView(PickerMetrics.Picker.TIME, System.nanoTime() - start);
+            if (mCreatedAt != 0L) {
+                McdtpMetrics.reportFirstFrame(
+                        view, metrics, PickerMetrics.Picker.TIME, mCreatedAt);
+                mCreatedAt = 0L;
+            }
+        }
         return view;
     }
 
+    private void applyFonts(@NonNull View view) {
+        Typeface normalFont = mTheme.getNormalFont();
+        Typeface boldFont = mTheme.getBoldFont();
+        mHourView.setTypeface(boldFont);
+        mHourSpaceView.setTypeface(boldFont);
+        mMinuteView.setTypeface(boldFont);
+        mMinuteSpaceView.setTypeface(boldFont);
+        mSecondView.setTypeface(boldFont);
+        mSecondSpaceView.setTypeface(boldFont);
+        mAmTextView.setTypeface(normalFont);
+        mPmTextView.setTypeface(normalFont);
+        mOkButton.setTypeface(boldFont);
+        ((Button) view.findViewById(R.id.cancel)).setTypeface(boldFont);
+    }
+
+    /**
+     * Swaps all the views to the custom fonts within the same frame.
+     */
+    private void onFontsLoaded() {
+        View view = getView();
+        if (view == null) return;
+        mTheme = mTheme.withFonts(view.getContext(), this);
+        applyFonts(view);
+        mTimePicker.onFontsLoaded();
+    }
+
     @Override
     public void onConfigurationChanged(@NonNull final Configuration newConfig) {
         super.onConfigurationChanged(newConfig);
@@ -767,12 +868,25 @@ public class TimePickerDialog extends AppCompatDialogFragment
         }
     }
 
+    @Override
+    public void onStart() {
+        super.onStart();
+        mHaptics.start();
+        mHaptics.useSystemFeedback(mSystemHaptics ? getView() : null);
+    }
+
     @Override
     public void onPause() {
         super.onPause();
         if (mDismissOnPause) dismiss();
     }
 
+    @Override
+    public void onStop() {
+        super.onStop();
+        mHaptics.stop();
+    }
+
     @Override
     public void onCancel(@NonNull DialogInterface dialog) {
         super.onCancel(dialog);
@@ -787,7 +901,7 @@ public class TimePickerDialog extends AppCompatDialogFragment
 
     @Override
     public void tryVibrate() {
-        if (mVibrate) McdtpUtils.shake(requireActivity(), null);
+        if (mVibrate) mHaptics.tick();
     }
 
     private void updateAmPmDisplay(int amOrPm) {
@@ -828,6 +942,7 @@ public class TimePickerDialog extends AppCompatDialogFragment
             }
             outState.putString(KEY_TITLE, mTitle);
             outState.putBoolean(KEY_VIBRATE, mVibrate);
+            outState.putBoolean(KEY_SYSTEM_HAPTICS, mSystemHaptics);
             outState.putBoolean(KEY_DISMISS, mDismissOnPause);
             outState.putBoolean(KEY_ENABLE_SECONDS, mEnableSeconds);
             outState.putBoolean(KEY_ENABLE_MINUTES, mEnableMinutes);
@@ -845,11 +960,15 @@ public class TimePickerDialog extends AppCompatDialogFragment
     @Override
     public void onValueSelected(Timepoint newValue) {
         setHour(newValue.getHour(), false);
-        mTimePicker.setContentDescription(mHourPickerDescription + ": " + newValue.getHour());
         setMinute(newValue.getMinute());
-        mTimePicker.setContentDescription(mMinutePickerDescription + ": " + newValue.getMinute());
         setSecond(newValue.getSecond());
-        mTimePicker.setContentDescription(mSecondPickerDescription + ": " + newValue.getSecond());
+        int index = mTimePicker.getCurrentItemShowing();
+        if (index != -1) mTimePicker.setContentDescription(getPickerDescription(index,
+                switch (index) {
+                    case HOUR_INDEX -> newValue.getHour();
+                    case MINUTE_INDEX -> newValue.getMinute();
+                    default -> newValue.getSecond();
+                }));
         if (!mIs24HourMode) updateAmPmDisplay(newValue.isAM() ? AM : PM);
     }
 
@@ -871,7 +990,7 @@ public class TimePickerDialog extends AppCompatDialogFragment
 
     @Override
     public void enablePicker() {
-        if (!isTypedTimeFullyLegal()) mTypedTimes.clear();
+        if (!isTypedTimeSelectable()) mTypedTimes.clear();
         finishKbMode(true);
     }
 
@@ -882,7 +1001,11 @@ public class TimePickerDialog extends AppCompatDialogFragment
 
     @Override
     public boolean isOutOfRange(Timepoint current, int index) {
-        return mLimiter.isOutOfRange(current, index, getPickerResolution());
+        PickerMetrics metrics = getPickerMetrics();
+        long start = McdtpMetrics.start(metrics);
+        boolean outOfRange = mLimiter.isOutOfRange(current, index, getPickerResolution());
+        McdtpMetrics.limiterQuery(metrics, PickerMetrics.Picker.TIME, start);
+        return outOfRange;
     }
 
     @Override
@@ -904,7 +1027,11 @@ public class TimePickerDialog extends AppCompatDialogFragment
 
     @Override
     public Timepoint roundToNearest(@NonNull Timepoint time, @Nullable Timepoint.TYPE type) {
-        return mLimiter.roundToNearest(time, type, getPickerResolution());
+        PickerMetrics metrics = getPickerMetrics();
+        long start = McdtpMetrics.start(metrics);
+        Timepoint nearest = mLimiter.roundToNearest(time, type, getPickerResolution());
+        McdtpMetrics.limiterQuery(metrics, PickerMetrics.Picker.TIME, start);
+        return nearest;
     }
 
     /** Get the configured resolution of the current picker in terms of Timepoint components */
@@ -916,17 +1043,16 @@ public class TimePickerDialog extends AppCompatDialogFragment
     }
 
     private void setHour(int value, boolean announce) {
-        String format;
-        if (mIs24HourMode) format = "%02d";
+        CharSequence text;
+        if (mIs24HourMode) text = mNumerals.padded(value);
         else {
-            format = "%d";
             value = value % 12;
             if (value == 0) {
                 value = 12;
             }
+            text = mNumerals.plain(value);
         }
 
-        CharSequence text = String.format(mLocale, format, value);
         mHourView.setText(text);
         mHourSpaceView.setText(text);
         if (announce) McdtpUtils.tryAccessibilityAnnounce(mTimePicker, text);
@@ -936,7 +1062,7 @@ public class TimePickerDialog extends AppCompatDialogFragment
         if (value == 60) {
             value = 0;
         }
-        CharSequence text = String.format(mLocale, "%02d", value);
+        CharSequence text = mNumerals.padded(value);
         McdtpUtils.tryAccessibilityAnnounce(mTimePicker, text);
         mMinuteView.setText(text);
         mMinuteSpaceView.setText(text);
@@ -946,12 +1072,29 @@ public class TimePickerDialog extends AppCompatDialogFragment
         if (value == 60) {
             value = 0;
         }
-        CharSequence text = String.format(mLocale, "%02d", value);
+        CharSequence text = mNumerals.padded(value);
         McdtpUtils.tryAccessibilityAnnounce(mTimePicker, text);
         mSecondView.setText(text);
         mSecondSpaceView.setText(text);
     }
 
+    /**
+     * The strings are kept, so that dragging over the dial doesn't build a new one for every value.
+     */
+    private String getPickerDescription(int index, int value) {
+        String description = mPickerDescriptions[index][value];
+        if (description == null) {
+            String picker = switch (index) {
+                case HOUR_INDEX -> mHourPickerDescription;
+                case MINUTE_INDEX -> mMinutePickerDescription;
+                default -> mSecondPickerDescription;
+            };
+            description = picker + ": " + value;
+            mPickerDescriptions[index][value] = description;
+        }
+        return description;
+    }
+
     // Show either Hours or Minutes.
     private void setCurrentItemShowing(int index, boolean animateCircle, boolean delayLabelAnimate,
                                        boolean announce) {
@@ -962,13 +1105,13 @@ public class TimePickerDialog extends AppCompatDialogFragment
             case HOUR_INDEX -> {
                 int hours = mTimePicker.getHours();
                 if (!mIs24HourMode) hours = hours % 12;
-                mTimePicker.setContentDescription(mHourPickerDescription + ": " + hours);
+                mTimePicker.setContentDescription(getPickerDescription(HOUR_INDEX, hours));
                 if (announce) McdtpUtils.tryAccessibilityAnnounce(mTimePicker, mSelectHours);
                 labelToAnimate = mHourView;
             }
             case MINUTE_INDEX -> {
                 int minutes = mTimePicker.getMinutes();
-                mTimePicker.setContentDescription(mMinutePickerDescription + ": " + minutes);
+                mTimePicker.setContentDescription(getPickerDescription(MINUTE_INDEX, minutes));
                 if (announce) {
                     McdtpUtils.tryAccessibilityAnnounce(mTimePicker, mSelectMinutes);
                 }
@@ -976,7 +1119,7 @@ public class TimePickerDialog extends AppCompatDialogFragment
             }
             default -> {
                 int seconds = mTimePicker.getSeconds();
-                mTimePicker.setContentDescription(mSecondPickerDescription + ": " + seconds);
+                mTimePicker.setContentDescription(getPickerDescription(SECOND_INDEX, seconds));
                 if (announce) McdtpUtils.tryAccessibilityAnnounce(mTimePicker, mSelectSeconds);
                 labelToAnimate = mSecondView;
             }
@@ -1001,12 +1144,12 @@ public class TimePickerDialog extends AppCompatDialogFragment
     private boolean processKeyUp(int keyCode) {
         if (keyCode == KeyEvent.KEYCODE_TAB) {
             if (mInKbMode) {
-                if (isTypedTimeFullyLegal()) finishKbMode(true);
+                if (isTypedTimeSelectable()) finishKbMode(true);
                 return true;
             }
         } else if (keyCode == KeyEvent.KEYCODE_ENTER) {
             if (mInKbMode) {
-                if (!isTypedTimeFullyLegal()) return true;
+                if (!isTypedTimeSelectable()) return true;
                 finishKbMode(false);
             }
             if (mCallback != null) mCallback.onTimeSet(this,
@@ -1063,7 +1206,7 @@ public class TimePickerDialog extends AppCompatDialogFragment
         if (mTimePicker.trySettingInputEnabled(false) &&
                 (keyCode == -1 || addKeyIfLegal(keyCode))) {
             mInKbMode = true;
-            mOkButton.setEnabled(false);
+            mOkButton.setEnabled(isTypedTimeSelectable());
             updateDisplay(false);
         }
     }
@@ -1078,11 +1221,18 @@ public class TimePickerDialog extends AppCompatDialogFragment
                 (!mIs24HourMode && isTypedTimeFullyLegal()))
             return false;
 
-        mTypedTimes.add(keyCode);
-        if (!isTypedTimeLegalSoFar()) {
-            deleteLastTypedKey();
+        int size = mTypedTimes.size();
+        int symbol = getSymbolFromKeyCode(keyCode);
+        int state = TimeEntryDfa.next(mKbEntryMode, mKbStates[size], symbol);
+        if (state == TimeEntryDfa.REJECT) return false;
+        // Reject the key as well if no selectable time can be typed anymore.
+        mKbSymbols[size] = symbol;
+        int meridiem = symbol == TimeEntryDfa.SYMBOL_AM ? AM
+                : symbol == TimeEntryDfa.SYMBOL_PM ? PM : -1;
+        if (!getKbAvailability().isFeasible(mKbSymbols, meridiem == -1 ? size + 1 : size, meridiem))
             return false;
-        }
+        mTypedTimes.add(keyCode);
+        mKbStates[mTypedTimes.size()] = state;
 
         int val = getValFromKeyCode(keyCode);
         McdtpUtils.tryAccessibilityAnnounce(mTimePicker, String.format(mLocale, "%d", val));
@@ -1091,26 +1241,31 @@ public class TimePickerDialog extends AppCompatDialogFragment
             if (!mIs24HourMode && mTypedTimes.size() <= (textSize - 1)) {
                 mTypedTimes.add(mTypedTimes.size() - 1, KeyEvent.KEYCODE_0);
                 mTypedTimes.add(mTypedTimes.size() - 1, KeyEvent.KEYCODE_0);
+                replayTypedTimes();
             }
-            mOkButton.setEnabled(true);
         }
+        mOkButton.setEnabled(isTypedTimeSelectable());
 
         return true;
     }
 
     /**
-     * Traverse the tree to see if the keys that have been typed so far are legal as is,
-     * or may become legal as more keys are typed (excluding backspace).
+     * Recompute the entry states of the typed keys, after they have been restored or rewritten.
+     * Any keys which are not legal anymore are dropped.
      */
-    private boolean isTypedTimeLegalSoFar() {
-        Node node = mLegalTimesTree;
-        for (int keyCode : mTypedTimes) {
-            node = node.canReach(keyCode);
-            if (node == null) {
-                return false;
+    private void replayTypedTimes() {
+        int state = TimeEntryDfa.START;
+        mKbStates[0] = state;
+        for (int i = 0; i < mTypedTimes.size(); i++) {
+            int symbol = getSymbolFromKeyCode(mTypedTimes.get(i));
+            state = TimeEntryDfa.next(mKbEntryMode, state, symbol);
+            if (state == TimeEntryDfa.REJECT) {
+                mTypedTimes.subList(i, mTypedTimes.size()).clear();
+                break;
             }
+            mKbSymbols[i] = symbol;
+            mKbStates[i + 1] = state;
         }
-        return true;
     }
 
     /**
@@ -1125,18 +1280,36 @@ public class TimePickerDialog extends AppCompatDialogFragment
             return (values[0] >= 0 && values[1] >= 0 &&
                     values[1] < 60 && values[2] >= 0 && values[2] < 60);
         } else {
-            // For AM/PM mode, the time is legal if it contains an AM or PM, as those can only be
-            // legally added at specific times based on the tree's algorithm.
-            return (mTypedTimes.contains(getAmOrPmKeyCode(AM)) ||
-                    mTypedTimes.contains(getAmOrPmKeyCode(PM)));
+            // For AM/PM mode, the time is legal if it ends with an AM or PM, as those can only be
+            // legally typed at specific states of the entry automaton.
+            return TimeEntryDfa.isMeridiemEntered(mKbEntryMode, mKbStates[mTypedTimes.size()]);
         }
     }
 
+    /**
+     * Check if the time that has been typed so far is completely legal and may be selected
+     * according to the limiter.
+     */
+    private boolean isTypedTimeSelectable() {
+        if (!isTypedTimeFullyLegal()) return false;
+        Boolean[] enteredZeros = {false, false, false};
+        int[] values = getEnteredTime(enteredZeros);
+        int hour = values[0];
+        if (!mIs24HourMode && hour >= 0) hour = hour % 12 + (values[3] == PM ? 12 : 0);
+        return getKbAvailability()
+                .isSelectable(hour, mEnableMinutes ? values[1] : 0, values[2]);
+    }
+
+    @NonNull
+    private TimeEntryAvailability getKbAvailability() {
+        if (mKbAvailability == null)
+            mKbAvailability = new TimeEntryAvailability(this, mEnableMinutes, mEnableSeconds);
+        return mKbAvailability;
+    }
+
     private int deleteLastTypedKey() {
         int deleted = mTypedTimes.remove(mTypedTimes.size() - 1);
-        if (!isTypedTimeFullyLegal()) {
-            mOkButton.setEnabled(false);
-        }
+        mOkButton.setEnabled(isTypedTimeSelectable());
         return deleted;
     }
 
@@ -1181,15 +1354,9 @@ public class TimePickerDialog extends AppCompatDialogFragment
         } else {
             Boolean[] enteredZeros = {false, false, false};
             int[] values = getEnteredTime(enteredZeros);
-            String hourFormat = enteredZeros[0] ? "%02d" : "%2d";
-            String minuteFormat = (enteredZeros[1]) ? "%02d" : "%2d";
-            String secondFormat = (enteredZeros[1]) ? "%02d" : "%2d";
-            String hourStr = (values[0] == -1) ? mDoublePlaceholderText :
-                    String.format(hourFormat, values[0]).replace(' ', mPlaceholderText);
-            String minuteStr = (values[1] == -1) ? mDoublePlaceholderText :
-                    String.format(minuteFormat, values[1]).replace(' ', mPlaceholderText);
-            String secondStr = (values[2] == -1) ? mDoublePlaceholderText :
-                    String.format(secondFormat, values[1]).replace(' ', mPlaceholderText);
+            String hourStr = getTypedText(values[0], enteredZeros[0]);
+            String minuteStr = getTypedText(values[1], enteredZeros[1]);
+            String secondStr = getTypedText(values[2], enteredZeros[2]);
             mHourView.setText(hourStr);
             mHourSpaceView.setText(hourStr);
             mHourView.setTextColor(mUnselectedColor);
@@ -1203,6 +1370,15 @@ public class TimePickerDialog extends AppCompatDialogFragment
         }
     }
 
+    /**
+     * Text of a value typed in keyboard mode, with the placeholder in place of missing digits.
+     */
+    private String getTypedText(int value, boolean enteredZero) {
+        if (value < 0 || value > 59) return mDoublePlaceholderText;
+        if (enteredZero || value > 9) return mNumerals.padded(value);
+        return mPlaceholderText + mNumerals.plain(value);
+    }
+
     private static int getValFromKeyCode(int keyCode) {
         return switch (keyCode) {
             case KeyEvent.KEYCODE_0 -> 0;
@@ -1280,6 +1456,18 @@ public class TimePickerDialog extends AppCompatDialogFragment
         return new int[]{hour, minute, second, amOrPm};
     }
 
+    /**
+     * Get the symbol of the key in the entry automaton, or -1 if it isn't a digit nor AM/PM.
+     */
+    private int getSymbolFromKeyCode(int keyCode) {
+        int val = getValFromKeyCode(keyCode);
+        if (val != -1) return val;
+        if (mIs24HourMode) return -1;
+        if (keyCode == getAmOrPmKeyCode(AM)) return TimeEntryDfa.SYMBOL_AM;
+        if (keyCode == getAmOrPmKeyCode(PM)) return TimeEntryDfa.SYMBOL_PM;
+        return -1;
+    }
+
     /**
      * Get the keycode value for AM and PM in the current language.
      */
@@ -1313,257 +1501,6 @@ public class TimePickerDialog extends AppCompatDialogFragment
         return -1;
     }
 
-    /**
-     * Create a tree for deciding what keys can legally be typed.
-     */
-    private void generateLegalTimesTree() {
-        // Create a quick cache of numbers to their keycodes.
-        int k0 = KeyEvent.KEYCODE_0;
-        int k1 = KeyEvent.KEYCODE_1;
-        int k2 = KeyEvent.KEYCODE_2;
-        int k3 = KeyEvent.KEYCODE_3;
-        int k4 = KeyEvent.KEYCODE_4;
-        int k5 = KeyEvent.KEYCODE_5;
-        int k6 = KeyEvent.KEYCODE_6;
-        int k7 = KeyEvent.KEYCODE_7;
-        int k8 = KeyEvent.KEYCODE_8;
-        int k9 = KeyEvent.KEYCODE_9;
-
-        // The root of the tree doesn't contain any numbers.
-        mLegalTimesTree = new Node();
-
-        // In case we're only allowing hours
-        if (!mEnableMinutes && mIs24HourMode) {
-            // The first digit may be 0-1
-            Node firstDigit = new Node(k0, k1);
-            mLegalTimesTree.addChild(firstDigit);
-
-            // When the first digit is 0-1, the second digit may be 0-9
-            Node secondDigit = new Node(k0, k1, k2, k3, k4, k5, k6, k7, k8, k9);
-            firstDigit.addChild(secondDigit);
-
-            // The first digit may be 2
-            firstDigit = new Node(k2);
-            mLegalTimesTree.addChild(firstDigit);
-
-            // When the first digit is 2, the second digit may be 0-3
-            secondDigit = new Node(k0, k1, k2, k3);
-            firstDigit.addChild(secondDigit);
-            return;
-        }
-        //noinspection ConstantConditions
-        if (!mEnableMinutes && !mIs24HourMode) {
-            // We'll need to use the AM/PM node a lot.
-            // Set up AM and PM to respond to "a" and "p".
-            Node ampm = new Node(getAmOrPmKeyCode(AM), getAmOrPmKeyCode(PM));
-
-            // The first digit may be 1
-            Node firstDigit = new Node(k1);
-            mLegalTimesTree.addChild(firstDigit);
-
-            // If the first digit is 1, the second one may be am/pm 1pm
-            firstDigit.addChild(ampm);
-            // If the first digit is 1, the second digit may be 0-2
-            Node secondDigit = new Node(k0, k1, k2);
-            firstDigit.addChild(secondDigit);
-            secondDigit.addChild(ampm);
-
-            // The first digit may be 2-9
-            firstDigit = new Node(k2, k3, k4, k5, k6, k7, k8, k9);
-            mLegalTimesTree.addChild(firstDigit);
-            firstDigit.addChild(ampm);
-            return;
-        }
-
-        // In case minutes are allowed
-        if (mIs24HourMode) {
-            // We'll be re-using these nodes, so we'll save them.
-            Node minuteFirstDigit = new Node(k0, k1, k2, k3, k4, k5);
-            Node minuteSecondDigit = new Node(k0, k1, k2, k3, k4, k5, k6, k7, k8, k9);
-            // The first digit must be followed by the second digit.
-            minuteFirstDigit.addChild(minuteSecondDigit);
-
-            if (mEnableSeconds) {
-                Node secondsFirstDigit = new Node(k0, k1, k2, k3, k4, k5);
-                Node secondsSecondDigit = new Node(k0, k1, k2, k3, k4, k5, k6, k7, k8, k9);
-                secondsFirstDigit.addChild(secondsSecondDigit);
-
-                // Minutes can be followed by seconds.
-                minuteSecondDigit.addChild(secondsFirstDigit);
-            }
-
-            // The first digit may be 0-1.
-            Node firstDigit = new Node(k0, k1);
-            mLegalTimesTree.addChild(firstDigit);
-
-            // When the first digit is 0-1, the second digit may be 0-5.
-            Node secondDigit = new Node(k0, k1, k2, k3, k4, k5);
-            firstDigit.addChild(secondDigit);
-            // We may now be followed by the first minute digit. E.g. 00:09, 15:58.
-            secondDigit.addChild(minuteFirstDigit);
-
-            // When the first digit is 0-1, and the second digit is 0-5, the third digit may be 6-9.
-            Node thirdDigit = new Node(k6, k7, k8, k9);
-            // The time must now be finished. E.g. 0:55, 1:08.
-            secondDigit.addChild(thirdDigit);
-
-            // When the first digit is 0-1, the second digit may be 6-9.
-            secondDigit = new Node(k6, k7, k8, k9);
-            firstDigit.addChild(secondDigit);
-            // We must now be followed by the first minute digit. E.g. 06:50, 18:20.
-            secondDigit.addChild(minuteFirstDigit);
-
-            // The first digit may be 2.
-            firstDigit = new Node(k2);
-            mLegalTimesTree.addChild(firstDigit);
-
-            // When the first digit is 2, the second digit may be 0-3.
-            secondDigit = new Node(k0, k1, k2, k3);
-            firstDigit.addChild(secondDigit);
-            // We must now be followed by the first minute digit. E.g. 20:50, 23:09.
-            secondDigit.addChild(minuteFirstDigit);
-
-            // When the first digit is 2, the second digit may be 4-5.
-            secondDigit = new Node(k4, k5);
-            firstDigit.addChild(secondDigit);
-            // We must now be followed by the last minute digit. E.g. 2:40, 2:53.
-            secondDigit.addChild(minuteSecondDigit);
-
-            // The first digit may be 3-9.
-            firstDigit = new Node(k3, k4, k5, k6, k7, k8, k9);
-            mLegalTimesTree.addChild(firstDigit);
-            // We must now be followed by the first minute digit. E.g. 3:57, 8:12.
-            firstDigit.addChild(minuteFirstDigit);
-        } else {
-            // We'll need to use the AM/PM node a lot.
-            // Set up AM and PM to respond to "a" and "p".
-            Node ampm = new Node(getAmOrPmKeyCode(AM), getAmOrPmKeyCode(PM));
-
-            // Seconds will be used a few times as well, if enabled.
-            Node secondsFirstDigit = new Node(k0, k1, k2, k3, k4, k5);
-            Node secondsSecondDigit = new Node(k0, k1, k2, k3, k4, k5, k6, k7, k8, k9);
-            secondsSecondDigit.addChild(ampm);
-            secondsFirstDigit.addChild(secondsSecondDigit);
-
-            // The first hour digit may be 1.
-            Node firstDigit = new Node(k1);
-            mLegalTimesTree.addChild(firstDigit);
-            // We'll allow quick input of on-the-hour times. E.g. 1pm.
-            firstDigit.addChild(ampm);
-
-            // When the first digit is 1, the second digit may be 0-2.
-            Node secondDigit = new Node(k0, k1, k2);
-            firstDigit.addChild(secondDigit);
-            // Also for quick input of on-the-hour times. E.g. 10pm, 12am.
-            secondDigit.addChild(ampm);
-
-            // When the first digit is 1, and the second digit is 0-2, the third digit may be 0-5.
-            Node thirdDigit = new Node(k0, k1, k2, k3, k4, k5);
-            secondDigit.addChild(thirdDigit);
-            // The time may be finished now. E.g. 1:02pm, 1:25am.
-            thirdDigit.addChild(ampm);
-
-            // When the first digit is 1, the second digit is 0-2, and the third digit is 0-5,
-            // the fourth digit may be 0-9.
-            Node fourthDigit = new Node(k0, k1, k2, k3, k4, k5, k6, k7, k8, k9);
-            thirdDigit.addChild(fourthDigit);
-            // The time must be finished now, when seconds are disabled. E.g. 10:49am, 12:40pm.
-            fourthDigit.addChild(ampm);
-
-            // When the first digit is 1, the second digit is 0-2, and the third digit is 0-5,
-            // and fourth digit is 0-9, we may add seconds if enabled.
-            if (mEnableSeconds) {
-                // The time must be finished now. E.g. 10:49:01am, 12:40:59pm.
-                fourthDigit.addChild(secondsFirstDigit);
-            }
-
-            // When the first digit is 1, and the second digit is 0-2, the third digit may be 6-9.
-            thirdDigit = new Node(k6, k7, k8, k9);
-            secondDigit.addChild(thirdDigit);
-            // The time must be finished now. E.g. 1:08am, 1:26pm.
-            thirdDigit.addChild(ampm);
-
-            // When the first digit is 1, and the second digit is 0-2, and the third digit is 6-9,
-            // we may add seconds is enabled.
-            if (mEnableSeconds) {
-                // The time must be finished now. E.g. 1:08:01am, 1:26:59pm.
-                thirdDigit.addChild(secondsFirstDigit);
-            }
-
-            // When the first digit is 1, the second digit may be 3-5.
-            secondDigit = new Node(k3, k4, k5);
-            firstDigit.addChild(secondDigit);
-
-            // When the first digit is 1, and the second digit is 3-5, the third digit may be 0-9.
-            thirdDigit = new Node(k0, k1, k2, k3, k4, k5, k6, k7, k8, k9);
-            secondDigit.addChild(thirdDigit);
-            // The time must be finished now if seconds are disabled. E.g. 1:39am, 1:50pm.
-            thirdDigit.addChild(ampm);
-
-            // When the first digit is 1, and the second digit is 3-5, and the third digit is 0-9,
-            // we may add seconds if enabled.
-            if (mEnableSeconds) {
-                // The time must be finished now. E.g. 1:39:01am, 1:50:59pm.
-                thirdDigit.addChild(secondsFirstDigit);
-            }
-
-            // The hour digit may be 2-9.
-            firstDigit = new Node(k2, k3, k4, k5, k6, k7, k8, k9);
-            mLegalTimesTree.addChild(firstDigit);
-            // We'll allow quick input of on-the-hour-times. E.g. 2am, 5pm.
-            firstDigit.addChild(ampm);
-
-            // When the first digit is 2-9, the second digit may be 0-5.
-            secondDigit = new Node(k0, k1, k2, k3, k4, k5);
-            firstDigit.addChild(secondDigit);
-
-            // When the first digit is 2-9, and the second digit is 0-5, the third digit may be 0-9.
-            thirdDigit = new Node(k0, k1, k2, k3, k4, k5, k6, k7, k8, k9);
-            secondDigit.addChild(thirdDigit);
-            // The time must be finished now. E.g. 2:57am, 9:30pm.
-            thirdDigit.addChild(ampm);
-
-            // When the first digit is 2-9, and the second digit is 0-5, and third digit is 0-9, we
-            // may add seconds if enabled.
-            if (mEnableSeconds) {
-                // The time must be finished now. E.g. 2:57:01am, 9:30:59pm.
-                thirdDigit.addChild(secondsFirstDigit);
-            }
-        }
-    }
-
-    /**
-     * Simple node class to be used for traversal to check for legal times.
-     * mLegalKeys represents the keys that can be typed to get to the node.
-     * mChildren are the children that can be reached from this node.
-     */
-    private static class Node {
-        private final int[] mLegalKeys;
-        private final ArrayList<Node> mChildren;
-
-        public Node(int... legalKeys) {
-            mLegalKeys = legalKeys;
-            mChildren = new ArrayList<>();
-        }
-
-        public void addChild(Node child) {
-            mChildren.add(child);
-        }
-
-        public boolean containsKey(int key) {
-            for (int legalKey : mLegalKeys)
-                if (legalKey == key) return true;
-            return false;
-        }
-
-        public Node canReach(int key) {
-            for (Node child : mChildren)
-                if (child.containsKey(key))
-                    return child;
-            return null;
-        }
-    }
-
     private class KeyboardListener implements OnKeyListener {
         @Override
         public boolean onKey(View v, int keyCode, KeyEvent event) {
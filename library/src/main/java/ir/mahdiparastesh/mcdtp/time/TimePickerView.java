@@ -0,0 +1,296 @@
+package ir.mahdiparastesh.mcdtp.time;
+
+import static ir.mahdiparastesh.mcdtp.time.TimePickerDialog.AM;
+import static ir.mahdiparastesh.mcdtp.time.TimePickerDialog.HOUR_INDEX;
+import static ir.mahdiparastesh.mcdtp.time.TimePickerDialog.MINUTE_INDEX;
+import static ir.mahdiparastesh.mcdtp.time.TimePickerDialog.PM;
+import static ir.mahdiparastesh.mcdtp.time.TimePickerDialog.SECOND_INDEX;
+
+import android.content.Context;
+import android.text.format.DateFormat;
+import android.util.AttributeSet;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import androidx.annotation.FontRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Locale;
+
+import ir.mahdiparastesh.mcdtp.McdtpMetrics;
+import ir.mahdiparastesh.mcdtp.McdtpUtils;
+import ir.mahdiparastesh.mcdtp.PickerHaptics;
+import ir.mahdiparastesh.mcdtp.PickerMetrics;
+import ir.mahdiparastesh.mcdtp.PickerTheme;
+
+/**
+ * The clock of TimePickerDialog as a plain view, for showing it inline in layouts or list rows
+ * without a dialog or a fragment. Configure it with the setters and then call
+ * {@link #initialize(OnTimeChangedListener, Timepoint)}; the options cannot be changed afterwards,
+ * but the selected time can, through {@link #setTime(Timepoint)}.
+ * <p>
+ * Since there's no header, the hours, minutes and seconds are picked one after another, or the
+ * host can switch between them with {@link #setCurrentItemShowing(int)}.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class TimePickerView extends FrameLayout
+        implements TimePickerController, RadialPickerLayout.OnValueSelectedListener {
+    private final RadialPickerLayout mTimePicker;
+    private OnTimeChangedListener mListener;
+    private boolean mInitialized = false;
+
+    private boolean mIs24HourMode;
+    private boolean mEnableSeconds = false;
+    private boolean mEnableMinutes = true;
+    private boolean mVibrate = true;
+    private boolean mSystemHaptics = false;
+    private boolean mAllowAutoAdvance = true;
+    private TimePickerDialog.Version mVersion = TimePickerDialog.Version.VERSION_1;
+    private final DefaultTimepointLimiter mDefaultLimiter = new DefaultTimepointLimiter();
+    private TimepointLimiter mLimiter = mDefaultLimiter;
+    private Locale mLocale = Locale.getDefault();
+    private PickerTheme mTheme;
+    private final PickerHaptics mHaptics;
+    @FontRes
+    private Integer mBoldFontRes = null;
+    @FontRes
+    private Integer mNormalFontRes = null;
+
+    public interface OnTimeChangedListener {
+        void onTimeChanged(TimePickerView view, int hourOfDay, int minute, int second);
+    }
+
+    public TimePickerView(Context context) {
+        this(context, null);
+    }
+
+    public TimePickerView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        mIs24HourMode = DateFormat.is24HourFormat(context);
+        mHaptics = new PickerHaptics(context);
+        mTimePicker = new RadialPickerLayout(context, null);
+        mTimePicker.setLayoutParams(new LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        addView(mTimePicker);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mHaptics.start();
+        mHaptics.useSystemFeedback(mSystemHaptics ? this : null);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        mHaptics.stop();
+        super.onDetachedFromWindow();
+    }
+
+    /**
+     * @param listener    notified whenever the selected time changes
+     * @param initialTime rounded to the nearest selectable time
+     */
+    public void initialize(@Nullable OnTimeChangedListener listener, @NonNull Timepoint initialTime) {
+        mListener = listener;
+        if (mInitialized) {
+            setTime(initialTime);
+            return;
+        }
+        if (!mEnableMinutes) mEnableSeconds = false;
+        mTimePicker.setOnValueSelectedListener(this);
+        mTheme = new PickerTheme(getContext(), this);
+        mTimePicker.initialize(getContext(), mLocale, this, roundToNearest(initialTime, null));
+        mTimePicker.setCurrentItemShowing(HOUR_INDEX, false);
+        McdtpUtils.loadFonts(getContext(), this, () -> {
+            mTheme = mTheme.withFonts(getContext(), this);
+            mTimePicker.onFontsLoaded();
+        });
+        mInitialized = true;
+    }
+
+    public void setTime(@NonNull Timepoint time) {
+        time = roundToNearest(time, null);
+        mTimePicker.setTime(time);
+        if (!mIs24HourMode) mTimePicker.setAmOrPm(time.isAM() ? AM : PM);
+        mTimePicker.setCurrentItemShowing(HOUR_INDEX, false);
+    }
+
+    @NonNull
+    public Timepoint getSelectedTime() {
+        return mTimePicker.getTime();
+    }
+
+    /**
+     * @param index HOUR_INDEX, MINUTE_INDEX or SECOND_INDEX of TimePickerDialog
+     */
+    public void setCurrentItemShowing(int index) {
+        if ((index == MINUTE_INDEX && !mEnableMinutes) || (index == SECOND_INDEX && !mEnableSeconds))
+            return;
+        mTimePicker.setCurrentItemShowing(index, true);
+    }
+
+    public void set24HourMode(boolean is24HourMode) {
+        mIs24HourMode = is24HourMode;
+    }
+
+    public void enableSeconds(boolean enableSeconds) {
+        if (enableSeconds) mEnableMinutes = true;
+        mEnableSeconds = enableSeconds;
+    }
+
+    public void enableMinutes(boolean enableMinutes) {
+        if (!enableMinutes) mEnableSeconds = false;
+        mEnableMinutes = enableMinutes;
+    }
+
+    /** Whether picking the hour moves on to the minutes, and the minutes to the seconds. */
+    public void setAutoAdvance(boolean autoAdvance) {
+        mAllowAutoAdvance = autoAdvance;
+    }
+
+    public void doVibrate(boolean vibrate) {
+        mVibrate = vibrate;
+    }
+
+    /**
+     * Ticks with the haptic feedback of the system, which follows its touch feedback setting,
+     * instead of vibrating unless the phone is silent.
+     */
+    public void useSystemHapticFeedback(boolean systemHaptics) {
+        mSystemHaptics = systemHaptics;
+        if (isAttachedToWindow()) mHaptics.useSystemFeedback(systemHaptics ? this : null);
+    }
+
+    /**
+     * The view has no header for picking AM or PM, so in 12-hour mode the dial keeps the AM/PM
+     * circles of {@link TimePickerDialog.Version#VERSION_1} whatever the version.
+     */
+    public void setVersion(TimePickerDialog.Version version) {
+        mVersion = version;
+    }
+
+    public void setLocale(Locale locale) {
+        mLocale = locale;
+    }
+
+    public void setMinTime(Timepoint minTime) {
+        mDefaultLimiter.setMinTime(minTime);
+    }
+
+    public void setMaxTime(Timepoint maxTime) {
+        mDefaultLimiter.setMaxTime(maxTime);
+    }
+
+    public void setSelectableTimes(Timepoint[] selectableTimes) {
+        mDefaultLimiter.setSelectableTimes(selectableTimes);
+    }
+
+    public void setDisabledTimes(Timepoint[] disabledTimes) {
+        mDefaultLimiter.setDisabledTimes(disabledTimes);
+    }
+
+    public void setTimepointLimiter(TimepointLimiter limiter) {
+        mLimiter = limiter;
+    }
+
+    public void setBoldFont(@FontRes int fontRes) {
+        mBoldFontRes = fontRes;
+    }
+
+    public void setNormalFont(@FontRes int fontRes) {
+        mNormalFontRes = fontRes;
+    }
+
+    @Override
+    public Integer getBoldFont() {
+        return mBoldFontRes;
+    }
+
+    @Override
+    public Integer getNormalFont() {
+        return mNormalFontRes;
+    }
+
+    @Override
+    public boolean is24HourMode() {
+        return mIs24HourMode;
+    }
+
+    @Override
+    public TimePickerDialog.Version getVersion() {
+        return mIs24HourMode ? mVersion : TimePickerDialog.Version.VERSION_1;
+    }
+
+    @Override
+    public void tryVibrate() {
+        if (mVibrate) mHaptics.tick();
+    }
+
+    @Override
+    public boolean isOutOfRange(Timepoint time, int index) {
+        PickerMetrics metrics = getPickerMetrics();
+        long start = McdtpMetrics.start(metrics);
+        boolean outOfRange = mLimiter.isOutOfRange(time, index, getPickerResolution());
+        McdtpMetrics.limiterQuery(metrics, PickerMetrics.Picker.TIME, start);
+        return outOfRange;
+    }
+
+    @Override
+    public boolean isAmDisabled() {
+        return mLimiter.isAmDisabled();
+    }
+
+    @Override
+    public boolean isPmDisabled() {
+        return mLimiter.isPmDisabled();
+    }
+
+    @Override
+    public Timepoint roundToNearest(@NonNull Timepoint time, @Nullable Timepoint.TYPE type) {
+        PickerMetrics metrics = getPickerMetrics();
+        long start = McdtpMetrics.start(metrics);
+        Timepoint nearest = mLimiter.roundToNearest(time, type, getPickerResolution());
+        McdtpMetrics.limiterQuery(metrics, PickerMetrics.Picker.TIME, start);
+        return nearest;
+    }
+
+    @NonNull
+    @Override
+    public PickerTheme getPickerTheme() {
+        return mTheme;
+    }
+
+    @NonNull
+    @Override
+    public PickerHaptics getHaptics() {
+        return mHaptics;
+    }
+
+    @NonNull
+    private Timepoint.TYPE getPickerResolution() {
+        if (mEnableSeconds) return Timepoint.TYPE.SECOND;
+        if (mEnableMinutes) return Timepoint.TYPE.MINUTE;
+        return Timepoint.TYPE.HOUR;
+    }
+
+    @Override
+    public void onValueSelected(Timepoint newTime) {
+        if (mListener != null) mListener.onTimeChanged(
+                this, newTime.getHour(), newTime.getMinute(), newTime.getSecond());
+    }
+
+    @Override
+    public void enablePicker() {
+        mTimePicker.trySettingInputEnabled(true);
+    }
+
+    @Override
+    public void advancePicker(int index) {
+        if (!mAllowAutoAdvance) return;
+        if (index == HOUR_INDEX && mEnableMinutes) mTimePicker.setCurrentItemShowing(MINUTE_INDEX, true);
+        else if (index == MINUTE_INDEX && mEnableSeconds)
+            mTimePicker.setCurrentItemShowing(SECOND_INDEX, true);
+    }
+}
@@ -86,6 +86,20 @@ public class Timepoint implements Parcelable, Comparable<Timepoint> {
         if (hour < 12) hour = (hour + 12) % 24;
     }
 
+    /**
+     * Reuses this instance for another time, for hot paths which must not allocate.
+     * Never call this on an instance which has been handed out or put in a collection.
+     */
+    void set(int hour, int minute, int second) {
+        this.hour = hour % 24;
+        this.minute = minute % 60;
+        this.second = second % 60;
+    }
+
+    void set(@NonNull Timepoint time) {
+        set(time.hour, time.minute, time.second);
+    }
+
     public void add(TYPE type, int value) {
         if (type == MINUTE) value *= 60;
         if (type == HOUR) value *= 3600;
@@ -0,0 +1,31 @@
+package ir.mahdiparastesh.mcdtp;
+
+import static org.junit.Assume.assumeTrue;
+
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * The bytes allocated by the current thread, as counted by the JVM. A path which is meant not to
+ * allocate is run many times and allowed less than {@link #TOLERANCE} bytes per run, which is
+ * smaller than any object, so that one-off allocations of the test runner aren't mistaken for it.
+ * On JDK 17 such a path counts 0 bytes and an object 16, see {@link AllocationsTest}.
+ */
+public final class Allocations {
+    public static final int TOLERANCE = 8;
+    private static final ThreadMXBean BEAN = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private Allocations() {
+    }
+
+    /** Skips the test if the JVM doesn't count the allocations. */
+    public static void assumeSupported() {
+        assumeTrue(BEAN.isThreadAllocatedMemorySupported());
+        BEAN.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    public static long current() {
+        return BEAN.getCurrentThreadAllocatedBytes();
+    }
+}
@@ -0,0 +1,48 @@
+package ir.mahdiparastesh.mcdtp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that the counter behind the allocation guards sees nothing for a path which doesn't
+ * allocate and catches a single object per run, so that {@link Allocations#TOLERANCE} separates
+ * the two.
+ */
+public class AllocationsTest {
+    private static final int RUNS = 100_000;
+    /** Keeps the objects from being optimised away */
+    private static Object sSink;
+
+    private final int[] mValues = new int[64];
+
+    @Before
+    public void setUp() {
+        Allocations.assumeSupported();
+    }
+
+    private void update(int run) {
+        mValues[run & 63] += run;
+    }
+
+    @Test
+    public void nothingIsCountedWithoutAllocations() {
+        for (int run = 0; run < RUNS; run++) update(run);
+
+        long start = Allocations.current();
+        for (int run = 0; run < RUNS; run++) update(run);
+        assertEquals(0, Allocations.current() - start);
+    }
+
+    @Test
+    public void anObjectPerRunIsCaught() {
+        for (int run = 0; run < RUNS; run++) sSink = new Object();
+
+        long start = Allocations.current();
+        for (int run = 0; run < RUNS; run++) sSink = new Object();
+        long allocated = Allocations.current() - start;
+        assertTrue(allocated + " bytes", allocated >= (long) RUNS * Allocations.TOLERANCE);
+    }
+}
@@ -0,0 +1,219 @@
+package ir.mahdiparastesh.mcdtp;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * A canvas which only counts what is drawn on it, so that a frame can be compared with its budget
+ * without rendering anything. Transformations and clips are ignored, which also keeps the shadows
+ * of Robolectric out of the measurements.
+ */
+public class CountingCanvas extends Canvas {
+    public int texts;
+    public int shapes;
+    private int mSaveCount = 1;
+
+    public void reset() {
+        texts = 0;
+        shapes = 0;
+    }
+
+    public int draws() {
+        return texts + shapes;
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, Paint paint) {
+        texts++;
+    }
+
+    @Override
+    public void drawText(String text, int start, int end, float x, float y, Paint paint) {
+        texts++;
+    }
+
+    @Override
+    public void drawText(char[] text, int index, int count, float x, float y, Paint paint) {
+        texts++;
+    }
+
+    @Override
+    public void drawText(CharSequence text, int start, int end, float x, float y, Paint paint) {
+        texts++;
+    }
+
+    @Override
+    public void drawTextRun(char[] text, int index, int count, int contextIndex,
+                            int contextCount, float x, float y, boolean isRtl, Paint paint) {
+        texts++;
+    }
+
+    @Override
+    public void drawTextRun(CharSequence text, int start, int end, int contextStart,
+                            int contextEnd, float x, float y, boolean isRtl, Paint paint) {
+        texts++;
+    }
+
+    @Override
+    public void drawCircle(float cx, float cy, float radius, Paint paint) {
+        shapes++;
+    }
+
+    @Override
+    public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+        shapes++;
+    }
+
+    @Override
+    public void drawLines(float[] pts, Paint paint) {
+        shapes++;
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+        shapes++;
+    }
+
+    @Override
+    public void drawRect(RectF rect, Paint paint) {
+        shapes++;
+    }
+
+    @Override
+    public void drawRect(Rect r, Paint paint) {
+        shapes++;
+    }
+
+    @Override
+    public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+        shapes++;
+    }
+
+    @Override
+    public void drawRoundRect(float left, float top, float right, float bottom,
+                              float rx, float ry, Paint paint) {
+        shapes++;
+    }
+
+    @Override
+    public void drawOval(RectF oval, Paint paint) {
+        shapes++;
+    }
+
+    @Override
+    public void drawArc(RectF oval, float startAngle, float sweepAngle, boolean useCenter,
+                        Paint paint) {
+        shapes++;
+    }
+
+    @Override
+    public void drawPath(Path path, Paint paint) {
+        shapes++;
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        shapes++;
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+        shapes++;
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+        shapes++;
+    }
+
+    @Override
+    public void drawColor(int color) {
+        shapes++;
+    }
+
+    @Override
+    public void drawPaint(Paint paint) {
+        shapes++;
+    }
+
+    @Override
+    public int save() {
+        return mSaveCount++;
+    }
+
+    @Override
+    public int saveLayer(RectF bounds, Paint paint) {
+        return mSaveCount++;
+    }
+
+    @Override
+    public int saveLayer(float left, float top, float right, float bottom, Paint paint) {
+        return mSaveCount++;
+    }
+
+    @Override
+    public int saveLayerAlpha(RectF bounds, int alpha) {
+        return mSaveCount++;
+    }
+
+    @Override
+    public int saveLayerAlpha(float left, float top, float right, float bottom, int alpha) {
+        return mSaveCount++;
+    }
+
+    @Override
+    public void restore() {
+        if (mSaveCount > 1) mSaveCount--;
+    }
+
+    @Override
+    public void restoreToCount(int saveCount) {
+        mSaveCount = Math.max(1, saveCount);
+    }
+
+    @Override
+    public int getSaveCount() {
+        return mSaveCount;
+    }
+
+    @Override
+    public void translate(float dx, float dy) {
+    }
+
+    @Override
+    public void scale(float sx, float sy) {
+    }
+
+    @Override
+    public void rotate(float degrees) {
+    }
+
+    @Override
+    public void concat(Matrix matrix) {
+    }
+
+    @Override
+    public boolean clipRect(float left, float top, float right, float bottom) {
+        return true;
+    }
+
+    @Override
+    public boolean clipRect(int left, int top, int right, int bottom) {
+        return true;
+    }
+
+    @Override
+    public boolean clipRect(Rect rect) {
+        return true;
+    }
+
+    @Override
+    public boolean clipRect(RectF rect) {
+        return true;
+    }
+}
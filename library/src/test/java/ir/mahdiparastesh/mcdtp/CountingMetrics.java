@@ -0,0 +1,35 @@
+package ir.mahdiparastesh.mcdtp;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Counts what the pickers report, when it's set as the global {@link PickerMetrics}.
+ */
+public class CountingMetrics implements PickerMetrics {
+    /** Lookups of date format symbols, which every constructed formatter makes once */
+    public int formatters;
+    /** Calendars constructed by CalendarFactory, clones aren't counted */
+    public int calendars;
+    public int monthsBound;
+
+    public void reset() {
+        formatters = 0;
+        calendars = 0;
+        monthsBound = 0;
+    }
+
+    @Override
+    public void onMonthBound(long durationNanos) {
+        monthsBound++;
+    }
+
+    @Override
+    public void onCalendarCreated() {
+        calendars++;
+    }
+
+    @Override
+    public void onCacheLookup(@NonNull Cache cache, boolean hit) {
+        if (cache == Cache.SYMBOLS) formatters++;
+    }
+}
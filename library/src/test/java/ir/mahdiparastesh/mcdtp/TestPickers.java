@@ -0,0 +1,37 @@
+package ir.mahdiparastesh.mcdtp;
+
+import android.content.Context;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import android.view.View.MeasureSpec;
+
+import org.robolectric.RuntimeEnvironment;
+
+/**
+ * Sets up the pickers of the tests the way a host would, without an activity.
+ */
+public final class TestPickers {
+
+    private TestPickers() {
+    }
+
+    /**
+     * @return a context with the Material 3 theme which PickerTheme resolves its colours from
+     */
+    public static Context themedContext() {
+        return new ContextThemeWrapper(RuntimeEnvironment.getApplication(),
+                com.google.android.material.R.style.Theme_Material3_DayNight);
+    }
+
+    /**
+     * Measures and lays out the view with the given width.
+     *
+     * @param height 0 lets the view choose its own height
+     */
+    public static void layout(View view, int width, int height) {
+        view.measure(MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY), height == 0
+                ? MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED)
+                : MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY));
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+    }
+}
@@ -0,0 +1,63 @@
+package ir.mahdiparastesh.mcdtp.date;
+
+import android.annotation.SuppressLint;
+import android.icu.util.Calendar;
+import android.os.Parcel;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Counts the queries of the pickers, which are answered by another limiter.
+ */
+@SuppressLint("ParcelCreator")
+class CountingDateRangeLimiter<CAL extends Calendar> implements DateRangeLimiter<CAL> {
+    private final DateRangeLimiter<CAL> mLimiter;
+    int queries;
+
+    CountingDateRangeLimiter(DateRangeLimiter<CAL> limiter) {
+        mLimiter = limiter;
+    }
+
+    @Override
+    public int getMinYear() {
+        return mLimiter.getMinYear();
+    }
+
+    @Override
+    public int getMaxYear() {
+        return mLimiter.getMaxYear();
+    }
+
+    @NonNull
+    @Override
+    public CAL getStartDate() {
+        return mLimiter.getStartDate();
+    }
+
+    @NonNull
+    @Override
+    public CAL getEndDate() {
+        return mLimiter.getEndDate();
+    }
+
+    @Override
+    public boolean isOutOfRange(int year, int month, int day) {
+        queries++;
+        return mLimiter.isOutOfRange(year, month, day);
+    }
+
+    @NonNull
+    @Override
+    public CAL setToNearestDate(@NonNull CAL day) {
+        return mLimiter.setToNearestDate(day);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(@NonNull Parcel dest, int flags) {
+    }
+}
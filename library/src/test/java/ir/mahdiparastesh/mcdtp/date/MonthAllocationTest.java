@@ -0,0 +1,116 @@
+package ir.mahdiparastesh.mcdtp.date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.icu.util.Calendar;
+import android.icu.util.GregorianCalendar;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import ir.mahdiparastesh.mcdtp.Allocations;
+import ir.mahdiparastesh.mcdtp.CountingCanvas;
+import ir.mahdiparastesh.mcdtp.CountingMetrics;
+import ir.mahdiparastesh.mcdtp.McdtpMetrics;
+import ir.mahdiparastesh.mcdtp.TestPickers;
+
+/**
+ * Checks that drawing a month allocates nothing once it's warm and that flinging the months only
+ * allocates in the frames which bind a month on the way.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class MonthAllocationTest {
+    private static final int YEAR = 2024, MONTH = Calendar.MAY, SELECTED = 15;
+    private static final int FRAMES = 200;
+    /** The frames of a fling which cross one month */
+    private static final int FRAMES_PER_MONTH = 8;
+
+    private final CountingMetrics mMetrics = new CountingMetrics();
+    private final CountingCanvas mCanvas = new CountingCanvas();
+    private DatePickerView<GregorianCalendar> mPicker;
+    private int mFramesWithoutBind;
+    private long mAllocatedWithoutBind;
+
+    @Before
+    public void setUp() {
+        Allocations.assumeSupported();
+        McdtpMetrics.setGlobal(mMetrics);
+        mPicker = new DatePickerView<>(TestPickers.themedContext());
+        mPicker.initialize(null, new GregorianCalendar(YEAR, MONTH, SELECTED));
+    }
+
+    @After
+    public void tearDown() {
+        McdtpMetrics.setGlobal(null);
+    }
+
+    @Test
+    public void drawingDoesNotAllocate() {
+        SimpleMonthView<GregorianCalendar> view =
+                new SimpleMonthView<>(mPicker.getContext(), null, mPicker);
+        view.setMonthParams(SELECTED, YEAR, MONTH, Calendar.SUNDAY);
+        TestPickers.layout(view, 1080, 0);
+        for (int frame = 0; frame < FRAMES; frame++) view.onDraw(mCanvas);
+
+        long start = Allocations.current();
+        for (int frame = 0; frame < FRAMES; frame++) view.onDraw(mCanvas);
+        long allocated = Allocations.current() - start;
+        assertTrue(allocated + " bytes", allocated < FRAMES * Allocations.TOLERANCE);
+    }
+
+    @Test
+    public void flingingAllocatesOnlyInFramesWhichBindAMonth() {
+        TestPickers.layout(mPicker, 1080, 1400);
+        DayPickerView<?> months = findMonths(mPicker);
+        assertNotNull(months);
+        int step = months.getWidth() / FRAMES_PER_MONTH;
+        // Creates the views of the months, which are recycled afterwards
+        fling(months, step);
+
+        mMetrics.reset();
+        fling(months, step);
+        assertTrue(mMetrics.monthsBound > 0);
+        assertTrue(mFramesWithoutBind > 0);
+        assertEquals(0, mMetrics.formatters);
+        assertEquals(0, mMetrics.calendars);
+        assertTrue(mAllocatedWithoutBind + " bytes in " + mFramesWithoutBind + " frames",
+                mAllocatedWithoutBind < (long) mFramesWithoutBind * Allocations.TOLERANCE);
+    }
+
+    /**
+     * Scrolls the months by a step and draws the visible ones, for every frame, and adds up what
+     * the frames which bind no month allocate. Reading the counter doesn't allocate.
+     */
+    private void fling(DayPickerView<?> months, int step) {
+        mFramesWithoutBind = 0;
+        mAllocatedWithoutBind = 0L;
+        for (int frame = 0; frame < FRAMES; frame++) {
+            int bound = mMetrics.monthsBound;
+            long start = Allocations.current();
+            months.scrollBy(step, 0);
+            for (int i = 0; i < months.getChildCount(); i++)
+                ((MonthView<?>) months.getChildAt(i)).onDraw(mCanvas);
+            long allocated = Allocations.current() - start;
+            if (mMetrics.monthsBound != bound) continue;
+            mFramesWithoutBind++;
+            mAllocatedWithoutBind += allocated;
+        }
+    }
+
+    private static DayPickerView<?> findMonths(View view) {
+        if (view instanceof DayPickerView<?> months) return months;
+        if (view instanceof ViewGroup group)
+            for (int i = 0; i < group.getChildCount(); i++) {
+                DayPickerView<?> months = findMonths(group.getChildAt(i));
+                if (months != null) return months;
+            }
+        return null;
+    }
+}
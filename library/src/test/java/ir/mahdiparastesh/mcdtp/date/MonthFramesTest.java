@@ -0,0 +1,187 @@
+package ir.mahdiparastesh.mcdtp.date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.icu.util.Calendar;
+import android.icu.util.ULocale;
+import android.widget.FrameLayout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+
+import ir.mahdiparastesh.mcdtp.CountingCanvas;
+import ir.mahdiparastesh.mcdtp.CountingMetrics;
+import ir.mahdiparastesh.mcdtp.McdtpMetrics;
+import ir.mahdiparastesh.mcdtp.TestPickers;
+
+/**
+ * Draws a month frame by frame and checks what every frame costs, in calendars whose months and
+ * digits differ.
+ */
+@RunWith(ParameterizedRobolectricTestRunner.class)
+public class MonthFramesTest {
+    /** Noon of 15 May 2024 in UTC, a day in the middle of a month in all the calendars */
+    private static final long SELECTED = 1_715_774_400_000L;
+    private static final int FRAMES = 10;
+
+    @ParameterizedRobolectricTestRunner.Parameters(name = "{0}")
+    public static Collection<Object[]> calendars() {
+        return Arrays.asList(new Object[][]{
+                {"en_US@calendar=gregorian", "en-US"},
+                // Persian digits
+                {"fa_IR@calendar=persian", "fa-IR"},
+                {"hi_IN@calendar=indian", "hi-IN"},
+        });
+    }
+
+    private final String mCalendar;
+    private final Locale mLocale;
+    private final CountingMetrics mMetrics = new CountingMetrics();
+    private final CountingCanvas mCanvas = new CountingCanvas();
+    private DatePickerView<Calendar> mPicker;
+    private CountingDateRangeLimiter<Calendar> mLimiter;
+    private SimpleMonthView<Calendar> mView;
+    private int mYear, mMonth, mDays, mMonthsInYear;
+
+    /**
+     * @param calendar the ICU locale whose calendar is picked from, e.g. the PersianCalendar of
+     *                 ICU which can't be named by the tests
+     * @param locale   the locale of the pickers
+     */
+    public MonthFramesTest(String calendar, String locale) {
+        mCalendar = calendar;
+        mLocale = Locale.forLanguageTag(locale);
+    }
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        McdtpMetrics.setGlobal(mMetrics);
+        Calendar selection = Calendar.getInstance(new ULocale(mCalendar));
+        selection.setTimeInMillis(SELECTED);
+        mYear = selection.get(Calendar.YEAR);
+        mMonth = selection.get(Calendar.MONTH);
+        mDays = selection.getActualMaximum(Calendar.DAY_OF_MONTH);
+        mMonthsInYear = selection.getActualMaximum(Calendar.MONTH) + 1;
+
+        mPicker = new DatePickerView<>(TestPickers.themedContext());
+        mPicker.setLocale(mLocale);
+        DefaultDateRangeLimiter<Calendar> limiter =
+                new DefaultDateRangeLimiter<>((Class<Calendar>) selection.getClass());
+        limiter.setController(mPicker);
+        mLimiter = new CountingDateRangeLimiter<>(limiter);
+        mPicker.setDateRangeLimiter(mLimiter);
+        mPicker.initialize(null, selection);
+
+        mView = new SimpleMonthView<>(mPicker.getContext(), null, mPicker);
+        mView.setMonthParams(
+                selection.get(Calendar.DAY_OF_MONTH), mYear, mMonth, Calendar.SUNDAY);
+        TestPickers.layout(mView, 1080, 0);
+    }
+
+    @After
+    public void tearDown() {
+        McdtpMetrics.setGlobal(null);
+    }
+
+    private void drawFrame() {
+        mCanvas.reset();
+        mLimiter.queries = 0;
+        mMetrics.reset();
+        mView.draw(mCanvas);
+    }
+
+    /** The number of days in a month of the calendar */
+    private int daysIn(int year, int month) {
+        Calendar calendar = (Calendar) mPicker.getSelectedDate().clone();
+        calendar.set(year, month, 1);
+        return calendar.getActualMaximum(Calendar.DAY_OF_MONTH);
+    }
+
+    @Test
+    public void firstFrameCreatesTheFormattersOnce() {
+        drawFrame();
+        // The title and the labels of the week days
+        assertTrue(mMetrics.formatters <= 2);
+        assertEquals(0, mMetrics.calendars);
+    }
+
+    @Test
+    public void framesStayWithinBudget() {
+        drawFrame();
+        for (int frame = 0; frame < FRAMES; frame++) {
+            drawFrame();
+            // The title, the labels of the week days and the days
+            assertEquals(1 + 7 + mDays, mCanvas.texts);
+            // The circle of the selected day
+            assertEquals(1, mCanvas.shapes);
+            assertEquals(mDays, mLimiter.queries);
+            assertEquals(0, mMetrics.formatters);
+            assertEquals(0, mMetrics.calendars);
+        }
+    }
+
+    @Test
+    public void rebindingKeepsTheFormatters() {
+        drawFrame();
+        for (int month = 0; month < mMonthsInYear; month++) {
+            mMetrics.reset();
+            mView.setMonthParams(-1, mYear + 1, month, Calendar.SUNDAY);
+            assertEquals(0, mMetrics.formatters);
+            // Today is found on a calendar of the view
+            assertEquals(0, mMetrics.calendars);
+
+            int days = daysIn(mYear + 1, month);
+            drawFrame();
+            assertTrue(mCanvas.texts <= 1 + 7 + days);
+            assertEquals(0, mCanvas.shapes);
+            assertTrue(mLimiter.queries <= days);
+            assertEquals(0, mMetrics.formatters);
+            assertEquals(0, mMetrics.calendars);
+        }
+    }
+
+    /** Binds the months of two years around the selection to recycled views, as a fling does. */
+    @Test
+    public void adapterBindFramesStayWithinBudget() {
+        MonthAdapter<Calendar> adapter = new SimpleMonthAdapter<>(mPicker);
+        FrameLayout parent = new FrameLayout(mPicker.getContext());
+        MonthAdapter.MonthViewHolder<Calendar> holder = adapter.onCreateViewHolder(parent, 0);
+        MonthView<?> view = (MonthView<?>) holder.itemView;
+        Calendar start = mPicker.getStartDate();
+        int selected = (mYear - mPicker.getMinYear()) * mMonthsInYear
+                + mMonth - start.get(Calendar.MONTH);
+        adapter.onBindViewHolder(holder, selected);
+        TestPickers.layout(view, 1080, 0);
+        mCanvas.reset();
+        view.draw(mCanvas);
+
+        for (int position = selected - mMonthsInYear; position < selected + mMonthsInYear;
+             position++) {
+            mMetrics.reset();
+            mLimiter.queries = 0;
+            adapter.onBindViewHolder(holder, position);
+            TestPickers.layout(view, 1080, 0);
+            mCanvas.reset();
+            view.draw(mCanvas);
+
+            int year = (position + start.get(Calendar.MONTH)) / mMonthsInYear
+                    + mPicker.getMinYear();
+            int days = daysIn(year, (position + start.get(Calendar.MONTH)) % mMonthsInYear);
+            assertEquals(1, mMetrics.monthsBound);
+            assertTrue(mCanvas.texts <= 1 + 7 + days);
+            assertTrue(mCanvas.shapes <= 1);
+            assertTrue(mLimiter.queries <= days);
+            assertEquals(0, mMetrics.formatters);
+            assertEquals(0, mMetrics.calendars);
+        }
+    }
+}
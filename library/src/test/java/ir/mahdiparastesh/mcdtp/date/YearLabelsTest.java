@@ -0,0 +1,63 @@
+package ir.mahdiparastesh.mcdtp.date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import android.icu.util.GregorianCalendar;
+import android.view.View;
+import android.widget.ListAdapter;
+import android.widget.TextView;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Locale;
+
+import ir.mahdiparastesh.mcdtp.TestPickers;
+
+/**
+ * Checks that the years are formatted once, rather than every time they're bound while the list
+ * is scrolled.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class YearLabelsTest {
+    private static final int YEAR = 2024;
+
+    private static YearPickerView<GregorianCalendar> years(Locale locale) {
+        DatePickerView<GregorianCalendar> picker =
+                new DatePickerView<>(TestPickers.themedContext());
+        picker.setLocale(locale);
+        picker.initialize(null, new GregorianCalendar(YEAR, 0, 1));
+        return new YearPickerView<>(picker.getContext(), picker);
+    }
+
+    private static int positionOf(ListAdapter adapter, int year) {
+        return year - (int) adapter.getItem(0);
+    }
+
+    @Test
+    public void rebindingAYearKeepsItsLabel() {
+        YearPickerView<GregorianCalendar> years = years(Locale.US);
+        ListAdapter adapter = years.getAdapter();
+        int position = positionOf(adapter, YEAR);
+        TextView label = (TextView) adapter.getView(position, null, years);
+        CharSequence text = label.getText();
+        assertEquals("2024", text.toString());
+
+        // Bound to another year and back, as the list recycles it
+        View other = adapter.getView(position + 1, label, years);
+        assertSame(label, other);
+        adapter.getView(position, label, years);
+        assertSame(text, label.getText());
+    }
+
+    @Test
+    public void labelsHaveTheDigitsOfTheLocale() {
+        YearPickerView<GregorianCalendar> years = years(new Locale("fa"));
+        ListAdapter adapter = years.getAdapter();
+        TextView label = (TextView) adapter.getView(positionOf(adapter, YEAR), null, years);
+        // 2024 in Persian digits
+        assertEquals("\u06f2\u06f0\u06f2\u06f4", label.getText().toString());
+    }
+}
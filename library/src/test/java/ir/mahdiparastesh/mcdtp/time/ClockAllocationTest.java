@@ -0,0 +1,136 @@
+package ir.mahdiparastesh.mcdtp.time;
+
+import static org.junit.Assert.assertTrue;
+
+import android.os.SystemClock;
+import android.view.Choreographer;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.lang.reflect.Field;
+
+import ir.mahdiparastesh.mcdtp.Allocations;
+import ir.mahdiparastesh.mcdtp.CountingCanvas;
+import ir.mahdiparastesh.mcdtp.PickerTheme;
+import ir.mahdiparastesh.mcdtp.TestPickers;
+
+/**
+ * Checks that drawing the clock, the moves of a touch and dragging its hand allocate nothing once
+ * they're warm.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ClockAllocationTest {
+    private static final int FRAMES = 240;
+    /** The moves of a finger around the outer circle, 6 degrees apart */
+    private static final int MOVES = 60;
+    /** Touch panels may report several moves within a frame */
+    private static final int MOVES_PER_FRAME = 4;
+
+    private final CountingCanvas mCanvas = new CountingCanvas();
+    private final MotionEvent[] mMoves = new MotionEvent[MOVES];
+    private RadialPickerLayout mDial;
+    private Choreographer.FrameCallback mMoveFrame;
+    private MotionEvent mDown;
+
+    @Before
+    public void setUp() throws ReflectiveOperationException {
+        Allocations.assumeSupported();
+        TimePickerView picker = new TimePickerView(TestPickers.themedContext());
+        picker.set24HourMode(true);
+        picker.initialize(null, new Timepoint(10, 30));
+        TestPickers.layout(picker, 1080, 1080);
+        mDial = (RadialPickerLayout) picker.getChildAt(0);
+        // The selectors prepare their geometry, which the touches are tested against
+        drawDial();
+
+        Field field = RadialPickerLayout.class.getDeclaredField("mMoveFrameCallback");
+        field.setAccessible(true);
+        mMoveFrame = (Choreographer.FrameCallback) field.get(mDial);
+
+        // Midnight on the outer circle and the hours after it
+        PickerTheme theme = picker.getPickerTheme();
+        float cx = mDial.getWidth() / 2f, cy = mDial.getHeight() / 2f;
+        float radius = Math.min(cx, cy) * theme.circleRadiusMultiplier24HourMode
+                * theme.numbersRadiusMultiplierOuter;
+        long time = SystemClock.uptimeMillis();
+        mDown = MotionEvent.obtain(time, time, MotionEvent.ACTION_DOWN, cx, cy - radius, 0);
+        for (int i = 0; i < MOVES; i++) {
+            double angle = Math.toRadians(i * 6);
+            mMoves[i] = MotionEvent.obtain(time, time + i, MotionEvent.ACTION_MOVE,
+                    (float) (cx + radius * Math.sin(angle)),
+                    (float) (cy - radius * Math.cos(angle)), 0);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if (mDown != null) mDown.recycle();
+        for (MotionEvent move : mMoves) if (move != null) move.recycle();
+    }
+
+    private void drawDial() {
+        for (int i = 0; i < mDial.getChildCount(); i++) {
+            View child = mDial.getChildAt(i);
+            if (child.getVisibility() == View.VISIBLE) child.draw(mCanvas);
+        }
+    }
+
+    /** Runs the frame posted by a move at once, as the looper of the test is paused. */
+    private void runMoveFrame(long frameTimeNanos) {
+        Choreographer.getInstance().removeFrameCallback(mMoveFrame);
+        mMoveFrame.doFrame(frameTimeNanos);
+    }
+
+    /** A frame of a drag: the move of the finger, the frame which selects under it and a draw */
+    private void dragFrame(int frame) {
+        MotionEvent move = mMoves[frame % MOVES];
+        mDial.onTouch(mDial, move);
+        runMoveFrame(move.getEventTime() * 1_000_000L);
+        drawDial();
+    }
+
+    @Test
+    public void drawingDoesNotAllocate() {
+        for (int frame = 0; frame < FRAMES; frame++) drawDial();
+
+        long start = Allocations.current();
+        for (int frame = 0; frame < FRAMES; frame++) drawDial();
+        long allocated = Allocations.current() - start;
+        assertTrue(allocated + " bytes", allocated < FRAMES * Allocations.TOLERANCE);
+    }
+
+    @Test
+    public void draggingDoesNotAllocate() {
+        mDial.onTouch(mDial, mDown);
+        for (int frame = 0; frame < FRAMES; frame++) dragFrame(frame);
+
+        long start = Allocations.current();
+        for (int frame = 0; frame < FRAMES; frame++) dragFrame(frame);
+        long allocated = Allocations.current() - start;
+        assertTrue(allocated + " bytes", allocated < FRAMES * Allocations.TOLERANCE);
+    }
+
+    /** Only the moves are measured, less than one object for all of them is allowed. */
+    @Test
+    public void touchMovesDoNotAllocate() {
+        mDial.onTouch(mDial, mDown);
+        for (int frame = 0; frame < FRAMES; frame++) dragFrame(frame);
+
+        long allocated = 0;
+        for (int frame = 0; frame < FRAMES; frame++) {
+            long start = Allocations.current();
+            for (int i = 0; i < MOVES_PER_FRAME; i++)
+                mDial.onTouch(mDial, mMoves[(frame * MOVES_PER_FRAME + i) % MOVES]);
+            allocated += Allocations.current() - start;
+            runMoveFrame(SystemClock.uptimeMillis() * 1_000_000L);
+        }
+        assertTrue(allocated + " bytes",
+                allocated < FRAMES * MOVES_PER_FRAME * Allocations.TOLERANCE);
+    }
+}
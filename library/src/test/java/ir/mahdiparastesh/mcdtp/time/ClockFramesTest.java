@@ -0,0 +1,143 @@
+package ir.mahdiparastesh.mcdtp.time;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import ir.mahdiparastesh.mcdtp.CountingCanvas;
+import ir.mahdiparastesh.mcdtp.CountingMetrics;
+import ir.mahdiparastesh.mcdtp.McdtpMetrics;
+import ir.mahdiparastesh.mcdtp.TestPickers;
+
+/**
+ * Draws the clock frame by frame and checks what every frame costs.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ClockFramesTest {
+    /** The hours of a 24-hour clock, on two circles */
+    private static final int NUMBERS = 24;
+    /** The face and its centre, the selection, its dot and the line to it */
+    private static final int SHAPES = 5;
+    private static final int FRAMES = 10;
+
+    private final CountingMetrics mMetrics = new CountingMetrics();
+    private final CountingCanvas mCanvas = new CountingCanvas();
+    private CountingTimepointLimiter mLimiter;
+    private TimePickerView mPicker;
+
+    @Before
+    public void setUp() {
+        McdtpMetrics.setGlobal(mMetrics);
+        mPicker = new TimePickerView(TestPickers.themedContext());
+        mPicker.set24HourMode(true);
+        mLimiter = new CountingTimepointLimiter(new DefaultTimepointLimiter());
+        mPicker.setTimepointLimiter(mLimiter);
+        mPicker.initialize(null, new Timepoint(10, 30));
+        TestPickers.layout(mPicker, 1080, 1080);
+    }
+
+    @After
+    public void tearDown() {
+        McdtpMetrics.setGlobal(null);
+    }
+
+    private void drawFrame() {
+        mCanvas.reset();
+        mLimiter.queries = 0;
+        mMetrics.reset();
+        mPicker.draw(mCanvas);
+    }
+
+    @Test
+    public void firstFrameAsksAboutEveryNumberOnce() {
+        drawFrame();
+        assertEquals(NUMBERS, mCanvas.texts);
+        assertTrue(mLimiter.queries <= NUMBERS);
+        assertEquals(0, mMetrics.formatters);
+        assertEquals(0, mMetrics.calendars);
+    }
+
+    @Test
+    public void framesStayWithinBudget() {
+        drawFrame();
+        for (int frame = 0; frame < FRAMES; frame++) {
+            drawFrame();
+            assertEquals(NUMBERS, mCanvas.texts);
+            assertTrue(mCanvas.shapes <= SHAPES);
+            assertEquals(0, mLimiter.queries);
+            assertEquals(0, mMetrics.formatters);
+            assertEquals(0, mMetrics.calendars);
+        }
+    }
+
+    @Test
+    public void selectingAnotherTimeAsksAboutEveryNumberOnce() {
+        drawFrame();
+        for (int hour = 0; hour < 24; hour++) {
+            mPicker.setTime(new Timepoint(hour, 30));
+            drawFrame();
+            assertEquals(NUMBERS, mCanvas.texts);
+            assertTrue(mCanvas.shapes <= SHAPES);
+            assertTrue(mLimiter.queries <= NUMBERS);
+            assertEquals(0, mMetrics.formatters);
+            assertEquals(0, mMetrics.calendars);
+        }
+    }
+
+    /** The minutes drawn without the rest of the dial */
+    @Test
+    public void textsAloneAskAboutEveryNumberOnce() {
+        String[] texts = new String[12];
+        int[] values = new int[12];
+        for (int i = 0; i < 12; i++) {
+            values[i] = i * 5;
+            texts[i] = String.valueOf(values[i]);
+        }
+        int[] queries = {0};
+        RadialTextsView minutes = new RadialTextsView(mPicker.getContext());
+        minutes.initialize(mPicker.getContext(), texts, null, values, null, mPicker, selection -> {
+            queries[0]++;
+            return selection != 30;
+        }, false);
+        TestPickers.layout(minutes, 1080, 1080);
+
+        mCanvas.reset();
+        minutes.draw(mCanvas);
+        assertEquals(12, mCanvas.texts);
+        assertEquals(12, queries[0]);
+        for (int frame = 0; frame < FRAMES; frame++) {
+            queries[0] = 0;
+            mCanvas.reset();
+            mMetrics.reset();
+            minutes.draw(mCanvas);
+            assertEquals(12, mCanvas.texts);
+            assertEquals(0, mCanvas.shapes);
+            assertEquals(0, queries[0]);
+            assertEquals(0, mMetrics.formatters);
+            assertEquals(0, mMetrics.calendars);
+        }
+
+        // A selection which may have changed is validated once, on the next frame.
+        minutes.invalidateValidity();
+        minutes.draw(mCanvas);
+        assertEquals(12, queries[0]);
+    }
+
+    @Test
+    public void twelveHourClockHasAmAndPmWhateverTheVersion() {
+        TimePickerView picker = new TimePickerView(TestPickers.themedContext());
+        picker.set24HourMode(false);
+        picker.setVersion(TimePickerDialog.Version.VERSION_2);
+        picker.initialize(null, new Timepoint(10, 30));
+        TestPickers.layout(picker, 1080, 1080);
+        mCanvas.reset();
+        picker.draw(mCanvas);
+        // The 12 hours, AM and PM
+        assertEquals(12 + 2, mCanvas.texts);
+    }
+}
@@ -0,0 +1,54 @@
+package ir.mahdiparastesh.mcdtp.time;
+
+import android.annotation.SuppressLint;
+import android.os.Parcel;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Counts the queries of the clock, which are answered by another limiter.
+ */
+@SuppressLint("ParcelCreator")
+class CountingTimepointLimiter implements TimepointLimiter {
+    private final TimepointLimiter mLimiter;
+    int queries;
+
+    CountingTimepointLimiter(TimepointLimiter limiter) {
+        mLimiter = limiter;
+    }
+
+    @Override
+    public boolean isOutOfRange(
+            @Nullable Timepoint point, int index, @NonNull Timepoint.TYPE resolution) {
+        queries++;
+        return mLimiter.isOutOfRange(point, index, resolution);
+    }
+
+    @Override
+    public boolean isAmDisabled() {
+        return mLimiter.isAmDisabled();
+    }
+
+    @Override
+    public boolean isPmDisabled() {
+        return mLimiter.isPmDisabled();
+    }
+
+    @NonNull
+    @Override
+    public Timepoint roundToNearest(
+            @NonNull Timepoint time, @Nullable Timepoint.TYPE type,
+            @NonNull Timepoint.TYPE resolution) {
+        return mLimiter.roundToNearest(time, type, resolution);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(@NonNull Parcel dest, int flags) {
+    }
+}
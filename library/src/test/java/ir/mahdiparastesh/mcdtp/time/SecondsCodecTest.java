@@ -0,0 +1,78 @@
+package ir.mahdiparastesh.mcdtp.time;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class SecondsCodecTest {
+
+    private static int[] range(int from, int to, int step) {
+        int[] seconds = new int[(to - from + step - 1) / step];
+        for (int i = 0; i < seconds.length; i++) seconds[i] = from + i * step;
+        return seconds;
+    }
+
+    @Test
+    public void roundTrips() {
+        int[][] sets = {
+                {},
+                {0},
+                {86399},
+                {0, 86399},
+                range(9 * 3600, 17 * 3600, 1),
+                range(0, 86400, 1),
+                range(0, 86400, 15 * 60),
+                {5, 6, 7, 100, 200, 300, 301, 86398},
+        };
+        for (int[] set : sets)
+            assertArrayEquals(set, SecondsCodec.decode(SecondsCodec.encode(set)));
+    }
+
+    @Test
+    public void intervalsCostAFewBytes() {
+        assertTrue(SecondsCodec.encode(range(0, 86400, 1)).length < 16);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownVersionIsRejected() {
+        SecondsCodec.decode(new byte[]{(byte) (SecondsCodec.FORMAT_VERSION + 1), 0});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeCountIsRejected() {
+        // 0xFFFFFFFF as a 5-byte varint
+        SecondsCodec.decode(new byte[]{SecondsCodec.FORMAT_VERSION,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void countBeyondTheDayIsRejected() {
+        // 2^28, which would otherwise allocate a gigabyte
+        SecondsCodec.decode(new byte[]{SecondsCodec.FORMAT_VERSION,
+                (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void secondsPastTheDayAreRejected() {
+        // One value 86401 after -1, which is 86400
+        byte[] data = SecondsCodec.encode(new int[]{86399});
+        data[2]++;
+        SecondsCodec.decode(data);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void overflowingRunsAreRejected() {
+        // Two values 2^30 apart, which would wrap around in an int
+        SecondsCodec.decode(new byte[]{SecondsCodec.FORMAT_VERSION, 2,
+                (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x04, 2});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncatedDataIsRejected() {
+        byte[] data = SecondsCodec.encode(new int[]{10, 20, 35});
+        SecondsCodec.decode(Arrays.copyOf(data, data.length - 1));
+    }
+}
@@ -4,6 +4,7 @@ import android.icu.util.Calendar;
 import android.icu.util.GregorianCalendar;
 import android.icu.util.IndianCalendar;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.View;
 import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
@@ -15,7 +16,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Objects;
 
+import ir.mahdiparastesh.mcdtp.CalendarFactory;
 import ir.mahdiparastesh.mcdtp.date.DatePickerDialog;
+import ir.mahdiparastesh.mcdtp.date.ScrollJankReporter;
 import ir.mahdiparastesh.mcdtp.sample.databinding.MainBinding;
 import ir.mahdiparastesh.mcdtp.time.TimePickerDialog;
 
@@ -23,6 +26,8 @@ public class Main extends FragmentActivity {
     MainBinding b;
     final HashMap<String, Class<? extends Calendar>> calendars = new HashMap<>();
     final ArrayList<String> calIndex = new ArrayList<>();
+    // One for every calendar and version, so that their scrolling can be compared in logcat
+    final HashMap<String, ScrollJankReporter> jankReporters = new HashMap<>();
     String chosenCal;
     DatePickerDialog.Version chosenDVer;
     TimePickerDialog.Version chosenTVer;
@@ -30,6 +35,10 @@ public class Main extends FragmentActivity {
     boolean enableSeconds;
     boolean doVibrate;
 
+    static {
+        CalendarFactory.register("persian", PersianCalendar.class, PersianCalendar::new);
+    }
+
     public Main() {
         addCal("Gregorian", GregorianCalendar.class);
         addCal("Persian", PersianCalendar.class);
@@ -113,6 +122,14 @@ public class Main extends FragmentActivity {
             picker.setBoldFont(R.font.bold);
             picker.setNormalFont(R.font.normal);
             picker.doVibrate(doVibrate);
+
+            String jankKey = chosenCal + " " + chosenDVer;
+            ScrollJankReporter jankReporter =
+                    jankReporters.computeIfAbsent(jankKey, k -> new ScrollJankReporter());
+            picker.setScrollJankReporter(jankReporter);
+            picker.setOnDismissListener(dialog -> Log.d("ScrollJank", jankKey
+                    + "\nmonths: " + jankReporter.getSummary(ScrollJankReporter.Source.MONTHS)
+                    + "\nyears: " + jankReporter.getSummary(ScrollJankReporter.Source.YEARS)));
             picker.show(getSupportFragmentManager(), "test_date");
         });
 